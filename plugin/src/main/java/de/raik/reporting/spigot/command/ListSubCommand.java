@@ -13,16 +13,17 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
 import java.util.*;
 
 /**
- * Sub command showing the list of all reports
- * which were made
+ * Sub command showing the list of the newest reports
+ * which were made. The next page can be shown with the
+ * cursor sent at the end of the list
  *
  * @author Raik
  * @version 1.0
@@ -58,8 +59,12 @@ public class ListSubCommand implements TabExecutor {
      */
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
-        //Make request
-        HttpRequest request = this.plugin.getPreDefinedHttpBuilder("reports").GET().build();
+        //Make request for the page and continue at the cursor if given
+        String path = "reports?limit=" + this.plugin.getConfig().getInt("microservice.listLimit", 10);
+        if (args.length >= 2) {
+            path += "&cursor=" + URLEncoder.encode(args[1], StandardCharsets.UTF_8);
+        }
+        HttpRequest request = this.plugin.getPreDefinedHttpBuilder(path).GET().build();
         //Setup client and make request
         HttpResponse<String> response;
         try {
@@ -85,6 +90,9 @@ public class ListSubCommand implements TabExecutor {
         }
 
         this.sendList(reports, sender);
+        //Send command for the next page if there is one
+        response.headers().firstValue("X-Next-Cursor").ifPresent(cursor ->
+                sender.sendMessage("§7More reports: §f/" + label + " list " + cursor));
         //Always return true
         return true;
     }
@@ -104,10 +112,7 @@ public class ListSubCommand implements TabExecutor {
                 reportList.add(jsonObject);
             }
         });
-        //Sort by date and reverse to start from beginning
-        reportList.sort(Comparator.comparing((JsonObject firstReport) -> LocalDateTime.parse(firstReport.get("date").getAsString())));
-        Collections.reverse(reportList);
-
+        //Reports are already sent with the newest first
         //Print header
         sender.sendMessage("§ePlayer §7| §eReason §7| §eReporter | §eTimestamp");
         //Print all reports
@@ -134,7 +139,7 @@ public class ListSubCommand implements TabExecutor {
      */
     @Override
     public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
-        //Always return empty list as this is one argument only
+        //Always return empty list as the cursor can't be completed
         return Collections.emptyList();
     }
 }
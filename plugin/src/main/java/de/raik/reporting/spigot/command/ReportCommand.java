@@ -46,6 +46,7 @@ public class ReportCommand implements TabExecutor {
         //Register sub commands
         this.subCommands.put("list", new ListSubCommand(plugin));
         this.subCommands.put("delete", new DeleteSubCommand(plugin));
+        this.subCommands.put("top", new TopSubCommand(plugin));
     }
 
     /**
@@ -0,0 +1,126 @@
+package de.raik.reporting.spigot.command;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import de.raik.reporting.spigot.ReportPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Sub command showing the most reported players
+ * with the amount of their reports. The players are
+ * counted by the microservice
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class TopSubCommand implements TabExecutor {
+
+    /**
+     * Plugin instance to create web requests later
+     */
+    private final ReportPlugin plugin;
+
+    /**
+     * Constructor setting plugin for the command
+     *
+     * @param plugin The plugin instance
+     */
+    public TopSubCommand(ReportPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Executes the given command, returning its success.
+     * <br>
+     * If false is returned, then the "usage" plugin.yml entry for this command
+     * (if defined) will be sent to the player.
+     *
+     * @param sender  Source of the command
+     * @param command Command which was executed
+     * @param label   Alias of the command which was used
+     * @param args    Passed command arguments
+     * @return true if a valid command, otherwise false
+     */
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        //Using the amount of the list if none is given
+        int amount = this.plugin.getConfig().getInt("microservice.listLimit", 10);
+        if (args.length >= 2) {
+            try {
+                amount = Integer.parseInt(args[1]);
+            } catch (NumberFormatException exception) {
+                return false;
+            }
+        }
+
+        HttpRequest request = this.plugin.getPreDefinedHttpBuilder("reports/top?n=" + amount).GET().build();
+        //Setup client and make request
+        HttpResponse<String> response;
+        try {
+            response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException | InterruptedException exception) {
+            exception.printStackTrace();
+            sender.sendMessage("§cAn error has occurred.");
+            return true;
+        }
+        //Check for response code
+        if (response.statusCode() != 200) {
+            sender.sendMessage("§cAn error has occurred.");
+            return true;
+        }
+
+        //Parse json
+        JsonArray counts;
+        try {
+            counts = (JsonArray) new JsonParser().parse(response.body());
+        } catch (JsonParseException | ClassCastException exception) {
+            sender.sendMessage("§cAn error has occurred.");
+            return true;
+        }
+
+        //Print header and the players which are sent with the most reported first
+        sender.sendMessage("§ePlayer §7| §eReports");
+        counts.forEach(element -> {
+            if (element instanceof JsonObject jsonObject) {
+                sender.sendMessage(String.format("§f%s §7| §f%d",
+                        Bukkit.getOfflinePlayer(UUID.fromString(jsonObject.get("uuid").getAsString())).getName(),
+                        jsonObject.get("reports").getAsInt()));
+            }
+        });
+        //Always return true
+        return true;
+    }
+
+    /**
+     * Requests a list of possible completions for a command argument.
+     *
+     * @param sender  Source of the command.  For players tab-completing a
+     *                command inside of a command block, this will be the player, not
+     *                the command block.
+     * @param command Command which was executed
+     * @param alias   The alias used
+     * @param args    The arguments passed to the command, including final
+     *                partial argument to be completed and command label
+     * @return A List of possible completions for the final argument, or null
+     * to default to the command executor
+     */
+    @Override
+    public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+        //Always return empty list as the amount can't be completed
+        return Collections.emptyList();
+    }
+}
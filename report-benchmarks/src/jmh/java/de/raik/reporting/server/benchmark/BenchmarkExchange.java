@@ -0,0 +1,140 @@
+package de.raik.reporting.server.benchmark;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * Http exchange without connection to dispatch requests
+ * in the benchmarks. The response is discarded
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class BenchmarkExchange extends HttpExchange {
+
+    /**
+     * The method of the request
+     */
+    private final String requestMethod;
+
+    /**
+     * The uri of the request
+     */
+    private final URI requestURI;
+
+    /**
+     * The headers of the request
+     */
+    private final Headers requestHeaders = new Headers();
+
+    /**
+     * The headers of the response
+     */
+    private final Headers responseHeaders = new Headers();
+
+    /**
+     * The code of the response
+     */
+    private int responseCode = -1;
+
+    /**
+     * Constructor to create the exchange of a request
+     *
+     * @param requestMethod The method of the request
+     * @param requestURI The uri of the request
+     */
+    BenchmarkExchange(String requestMethod, URI requestURI) {
+        this.requestMethod = requestMethod;
+        this.requestURI = requestURI;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return this.requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return this.responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return this.requestURI;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return this.requestMethod;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return InputStream.nullInputStream();
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return OutputStream.nullOutputStream();
+    }
+
+    @Override
+    public void sendResponseHeaders(int responseCode, long responseLength) {
+        this.responseCode = responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return this.responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+    }
+
+    @Override
+    public void setStreams(InputStream inputStream, OutputStream outputStream) {
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+}
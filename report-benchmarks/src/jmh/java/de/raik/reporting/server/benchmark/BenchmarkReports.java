@@ -0,0 +1,71 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.report.Report;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Creating reports for the benchmarks which are the
+ * same in every run so results can be compared
+ *
+ * @author Raik
+ * @version 1.0
+ */
+final class BenchmarkReports {
+
+    /**
+     * The reasons of the reports
+     */
+    private static final String[] REASONS = {"Hacking", "Spamming in chat", "Griefing the spawn", "Bad name", "Teaming"};
+
+    /**
+     * The time the reports are created around
+     */
+    private static final LocalDateTime START = LocalDateTime.of(2021, 8, 1, 12, 0);
+
+    /**
+     * Private constructor as there are only static methods
+     */
+    private BenchmarkReports() {
+    }
+
+    /**
+     * Creating the reported users of the reports
+     *
+     * @param amount The amount of users
+     * @param seed The seed of the uuids
+     * @return The uuids of the users
+     */
+    static UUID[] createUsers(int amount, long seed) {
+        Random random = new Random(seed);
+        UUID[] users = new UUID[amount];
+        for (int i = 0; i < amount; i++) {
+            users[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        return users;
+    }
+
+    /**
+     * Creating reports of random users with
+     * one report per second
+     *
+     * @param amount The amount of reports
+     * @param users The reported users to choose from
+     * @param seed The seed of the choices
+     * @return The reports
+     */
+    static Report[] createReports(int amount, UUID[] users, long seed) {
+        Random random = new Random(seed);
+        Report[] reports = new Report[amount];
+        for (int i = 0; i < amount; i++) {
+            reports[i] = new Report(users[random.nextInt(users.length)], REASONS[random.nextInt(REASONS.length)],
+                    new UUID(random.nextLong(), random.nextLong()), START.plusSeconds(i).withNano(random.nextInt(1000) * 1000));
+        }
+
+        return reports;
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.config.file.CSVConfig;
+import de.raik.reporting.server.report.ReportStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of loading and saving the csv config with
+ * different amounts of reports. Every operation handles the
+ * whole file so it's measured as single shot
+ * The 10M reports need a big heap which is set for the fork
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CSVConfigBenchmark {
+
+    /**
+     * The amount of stored reports
+     */
+    @Param({"10000", "1000000", "10000000"})
+    public int reports;
+
+    /**
+     * The directory of the csv file
+     */
+    private File directory;
+
+    /**
+     * The config saving the reports
+     */
+    private CSVConfig config;
+
+    /**
+     * Creating the reports and writing
+     * the file to load
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("report-csv-benchmark").toFile();
+
+        ReportStore store = new ReportStore();
+        store.addAll(Arrays.asList(BenchmarkReports.createReports(this.reports,
+                BenchmarkReports.createUsers(Math.max(1, this.reports / 10), 1), 2)));
+        this.config = this.createConfig();
+        this.config.initAccessor(store);
+        this.config.saveConfig();
+    }
+
+    /**
+     * Deleting the files
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        this.directory.delete();
+    }
+
+    /**
+     * Loading every report of the file
+     * into a new store
+     *
+     * @return The store of the loaded reports
+     */
+    @Benchmark
+    public ReportStore load() {
+        ReportStore store = new ReportStore();
+        this.createConfig().initAccessor(store);
+        return store;
+    }
+
+    /**
+     * Saving every report into the file
+     */
+    @Benchmark
+    public void save() {
+        this.config.saveConfig();
+    }
+
+    /**
+     * Creating a config of the file
+     * in the directory
+     *
+     * @return The config
+     */
+    private CSVConfig createConfig() {
+        CSVConfig config = new CSVConfig();
+        HashMap<String, String> arguments = new HashMap<>();
+        arguments.put("name", "reports");
+        arguments.put("path", this.directory.getPath());
+        config.loadArguments(arguments);
+
+        return config;
+    }
+
+}
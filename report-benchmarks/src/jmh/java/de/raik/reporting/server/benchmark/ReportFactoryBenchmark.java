@@ -0,0 +1,73 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of creating reports from the string
+ * data of a csv line
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportFactoryBenchmark {
+
+    /**
+     * The factory creating the reports
+     */
+    private final ReportFactory factory = new ReportFactory();
+
+    /**
+     * The split lines of different reports
+     */
+    private String[][] lines;
+
+    /**
+     * The index of the next line
+     */
+    private int index = 0;
+
+    /**
+     * Creating the lines from generated reports
+     */
+    @Setup
+    public void setup() {
+        Report[] reports = BenchmarkReports.createReports(1024, BenchmarkReports.createUsers(128, 1), 2);
+        this.lines = new String[reports.length][];
+        for (int i = 0; i < reports.length; i++) {
+            Report report = reports[i];
+            this.lines[i] = new String[]{report.reportedUser().toString(), report.reportReason(),
+                    report.reporter().toString(), report.timestamp().toString()};
+        }
+    }
+
+    /**
+     * Creating a report of the next line
+     *
+     * @return The created report
+     */
+    @Benchmark
+    public Report createFromStringData() {
+        this.index = (this.index + 1) & (this.lines.length - 1);
+        return this.factory.createFromStringData(this.lines[this.index]);
+    }
+
+}
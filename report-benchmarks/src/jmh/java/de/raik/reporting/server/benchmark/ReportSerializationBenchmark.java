@@ -0,0 +1,118 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.editor.rest.ResponseCache;
+import de.raik.reporting.server.editor.rest.handlers.GetReportsHandler;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of serializing the reports of the
+ * GetReportsHandler to json without cache
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportSerializationBenchmark {
+
+    /**
+     * The amount of serialized reports
+     */
+    @Param({"100", "10000"})
+    public int reports;
+
+    /**
+     * Whether the json is pretty printed
+     */
+    @Param({"false", "true"})
+    public boolean pretty;
+
+    /**
+     * The handler serializing the reports
+     */
+    private SerializingHandler handler;
+
+    /**
+     * The reports to serialize
+     */
+    private List<Report> reportList;
+
+    /**
+     * The stream the json is written to
+     * which is reused by every operation
+     */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+
+    /**
+     * Creating the reports and the handler
+     */
+    @Setup
+    public void setup() {
+        this.reportList = Arrays.asList(BenchmarkReports.createReports(this.reports, BenchmarkReports.createUsers(100, 1), 2));
+        this.handler = new SerializingHandler(new ReportStore());
+    }
+
+    /**
+     * Serializing all reports
+     *
+     * @return The length of the json
+     */
+    @Benchmark
+    public int serialize() throws IOException {
+        this.body.reset();
+        this.handler.serialize(this.body, this.reportList, this.pretty);
+        return this.body.size();
+    }
+
+    /**
+     * Handler giving access to the
+     * serialization of the reports
+     */
+    private static class SerializingHandler extends GetReportsHandler {
+
+        /**
+         * Constructor to create the handler
+         *
+         * @param reports The store of the handler
+         */
+        private SerializingHandler(ReportStore reports) {
+            super(reports, new ResponseCache());
+        }
+
+        /**
+         * Writing the reports as json like
+         * the responses of the handler
+         *
+         * @param body The stream to write to
+         * @param reports The reports to write
+         * @param pretty Whether the json is pretty printed
+         */
+        private void serialize(ByteArrayOutputStream body, List<Report> reports, boolean pretty) throws IOException {
+            this.writeReports(body, reports.iterator(), pretty);
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.report.TimelineIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of adding, removing and iterating the reports
+ * of the store at the same time like the editor does while
+ * the config saves. Every operation is reported on its own
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportStoreBenchmark {
+
+    /**
+     * The amount of reports the store starts with
+     */
+    @Param({"100000"})
+    public int reports;
+
+    /**
+     * The amount of reports read per iteration like a page of the api
+     */
+    @Param({"100"})
+    public int pageSize;
+
+    /**
+     * The store of the reports
+     */
+    private final ReportStore store = new ReportStore();
+
+    /**
+     * The reported users of the reports
+     */
+    private UUID[] users;
+
+    /**
+     * The reports added by the add threads
+     */
+    private Report[] additionalReports;
+
+    /**
+     * Filling the store
+     */
+    @Setup
+    public void setup() {
+        this.users = BenchmarkReports.createUsers(Math.max(1, this.reports / 10), 1);
+        this.store.addAll(Arrays.asList(BenchmarkReports.createReports(this.reports, this.users, 2)));
+        this.additionalReports = BenchmarkReports.createReports(1 << 16, this.users, 3);
+    }
+
+    /**
+     * Adding a report of a random user
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void add() {
+        this.store.add(this.additionalReports[ThreadLocalRandom.current().nextInt(this.additionalReports.length)]);
+    }
+
+    /**
+     * Removing the reports of a random user
+     *
+     * @return The removed reports
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Report> remove() {
+        return this.store.removeReports(this.users[ThreadLocalRandom.current().nextInt(this.users.length)]);
+    }
+
+    /**
+     * Reading the newest page of the timeline
+     * and the reports of a random user
+     *
+     * @param blackhole The blackhole consuming the reports
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void iterate(Blackhole blackhole) {
+        TimelineIterator timeline = this.store.timeline(null, true);
+        for (int i = 0; i < this.pageSize && timeline.hasNext(); i++) {
+            blackhole.consume(timeline.next());
+        }
+        for (Report report : this.store.getReports(this.users[ThreadLocalRandom.current().nextInt(this.users.length)])) {
+            blackhole.consume(report);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.editor.rest.routing.RouteHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of matching the requests to the routes of the
+ * rest editor. The handlers do nothing so only the routing
+ * including parsing the path parameters is measured
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteMatchingBenchmark {
+
+    /**
+     * The method and path of the request
+     * covering literal, parameter, unknown and not allowed routes
+     */
+    @Param({"GET /reports", "GET /reports/3f2b6a4e-9c1d-4e8a-b7f0-2d5c8e1a9b34", "POST /reports/batch",
+            "PUT /reports/3f2b6a4e-9c1d-4e8a-b7f0-2d5c8e1a9b34", "GET /unknown/path"})
+    public String request;
+
+    /**
+     * The router with the routes of the rest editor
+     */
+    private final RequestRouter router = new RequestRouter();
+
+    /**
+     * The method of the request
+     */
+    private String method;
+
+    /**
+     * The uri of the request
+     */
+    private URI uri;
+
+    /**
+     * Adding the routes like the rest editor does
+     */
+    @Setup
+    public void setup() {
+        RouteHandler handler = (httpExchange, pathParameters) -> httpExchange.sendResponseHeaders(200, -1);
+        this.router.route("GET", "/reports", handler)
+                .route("POST", "/reports/batch", handler)
+                .route("GET", "/reports/{reported:uuid}", handler)
+                .route("HEAD", "/reports/{reported:uuid}", handler)
+                .route("POST", "/reports/{reported:uuid}", handler)
+                .route("DELETE", "/reports/{reported:uuid}", handler)
+                .route("GET", "/executor", handler)
+                .route("GET", "/metrics", handler);
+
+        String[] request = this.request.split(" ");
+        this.method = request[0];
+        this.uri = URI.create(request[1]);
+    }
+
+    /**
+     * Dispatching the request
+     *
+     * @return The matched route
+     */
+    @Benchmark
+    public String dispatch() throws IOException {
+        return this.router.dispatch(new BenchmarkExchange(this.method, this.uri));
+    }
+
+}
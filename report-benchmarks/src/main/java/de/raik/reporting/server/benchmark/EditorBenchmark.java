@@ -0,0 +1,376 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.editor.ReportEditor;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local benchmark comparing the request throughput and latency
+ * of the rest editors. Every editor is started in this process with
+ * the same reports and loaded by clients which each use one kept alive
+ * connection and optionally pipeline their requests
+ *
+ * Arguments in the format key=value:
+ * editors - Comma separated editor classes to compare
+ * connections - The amount of client connections
+ * pipeline - The amount of requests sent before reading the responses
+ * warmup - The seconds of warmup per editor
+ * duration - The seconds of measuring per editor
+ * threads - The worker threads of the editors
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class EditorBenchmark {
+
+    /**
+     * The port the editors are started on
+     */
+    private static final int PORT = 18337;
+
+    /**
+     * The auth key of the editors
+     */
+    private static final String AUTH_KEY = "benchmark";
+
+    /**
+     * The arguments of the benchmark
+     */
+    private final HashMap<String, String> arguments = new HashMap<>();
+
+    /**
+     * The reports the editors serve
+     */
+    private final ReportStore reports = new ReportStore();
+
+    /**
+     * The reported users the clients request
+     */
+    private final UUID[] reportedUsers = new UUID[1000];
+
+    /**
+     * Main method running the benchmark
+     *
+     * @param args The arguments in the format key=value
+     */
+    public static void main(String[] args) throws Exception {
+        new EditorBenchmark(args).run();
+    }
+
+    /**
+     * Constructor parsing the arguments and
+     * creating the reports
+     *
+     * @param args The arguments in the format key=value
+     */
+    private EditorBenchmark(String[] args) {
+        //Default arguments which are overwritten by the given ones
+        this.arguments.put("editors", "de.raik.reporting.server.editor.rest.RestEditor,"
+                + "de.raik.reporting.server.editor.rest.nio.NioRestEditor");
+        this.arguments.put("connections", "16");
+        this.arguments.put("pipeline", "1");
+        this.arguments.put("warmup", "3");
+        this.arguments.put("duration", "10");
+        this.arguments.put("threads", "10");
+        Arrays.stream(args).filter(argument -> argument.indexOf('=') > 0)
+                .forEach(argument -> this.arguments.put(argument.split("=", 2)[0], argument.split("=", 2)[1]));
+
+        //Every user has 10 reports so responses have a realistic size
+        ArrayList<Report> createdReports = new ArrayList<>();
+        for (int i = 0; i < this.reportedUsers.length; i++) {
+            this.reportedUsers[i] = UUID.randomUUID();
+            for (int j = 0; j < 10; j++) {
+                createdReports.add(new Report(this.reportedUsers[i], "Benchmark reason " + j, UUID.randomUUID(),
+                        LocalDateTime.now().minusMinutes(j)));
+            }
+        }
+        this.reports.addAll(createdReports);
+    }
+
+    /**
+     * Running the benchmark for every editor
+     * and printing the results
+     */
+    private void run() throws Exception {
+        int connections = Integer.parseInt(this.arguments.get("connections"));
+        int pipeline = Integer.parseInt(this.arguments.get("pipeline"));
+        System.out.printf("%d connections, pipeline depth %d, %s s warmup, %s s measured%n", connections, pipeline,
+                this.arguments.get("warmup"), this.arguments.get("duration"));
+        System.out.printf("%-60s %12s %10s %10s %10s%n", "Editor", "Requests/s", "p50 us", "p99 us", "Errors");
+
+        for (String editorClass : this.arguments.get("editors").split(",")) {
+            ReportEditor editor = this.startEditor(editorClass);
+            Thread.sleep(500);
+
+            this.load(connections, pipeline, Integer.parseInt(this.arguments.get("warmup")));
+            Result result = this.load(connections, pipeline, Integer.parseInt(this.arguments.get("duration")));
+            System.out.printf("%-60s %12d %10d %10d %10d%n", editorClass, result.requests() / result.seconds(),
+                    result.percentile(0.5) / 1000, result.percentile(0.99) / 1000, result.errors());
+
+            editor.shutdown();
+            Thread.sleep(1500);
+        }
+    }
+
+    /**
+     * Starting an editor on the benchmark port
+     *
+     * @param editorClass The class of the editor
+     * @return The started editor
+     */
+    private ReportEditor startEditor(String editorClass) throws ReflectiveOperationException {
+        ReportEditor editor = (ReportEditor) Class.forName(editorClass).getConstructor().newInstance();
+        HashMap<String, String> editorArguments = new HashMap<>();
+        editorArguments.put("port", String.valueOf(PORT));
+        editorArguments.put("authKey", AUTH_KEY);
+        editorArguments.put("compression", "-1");
+        editorArguments.put("executor", "bounded");
+        editorArguments.put("threads", this.arguments.get("threads"));
+        editorArguments.put("queueSize", "10000");
+        editorArguments.put("retryAfter", "1");
+        editorArguments.put("metricsAuth", "true");
+        editorArguments.put("duplicateWindow", "0");
+        editorArguments.put("reporterLimit", "0");
+        editorArguments.put("reporterBurst", "1");
+        editorArguments.put("streamBuffer", "256");
+        editorArguments.put("streamRetained", "10000");
+        editorArguments.put("streamSubscribers", "100");
+        editor.loadArguments(editorArguments);
+        editor.setUpdateCallback(() -> {});
+        editor.initAccessor(this.reports);
+
+        return editor;
+    }
+
+    /**
+     * Loading the running editor with the connections
+     *
+     * @param connections The amount of connections
+     * @param pipeline The amount of requests sent before reading the responses
+     * @param seconds The seconds to load the editor
+     * @return The result of all connections
+     */
+    private Result load(int connections, int pipeline, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Client client = new Client(running, pipeline);
+            clients.add(client);
+            client.start();
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Client client : clients) {
+            client.join();
+        }
+
+        //Merging the latencies of all clients
+        long[] latencies = clients.stream().flatMapToLong(client -> Arrays.stream(client.latencies, 0, client.requests))
+                .sorted().toArray();
+        return new Result(latencies.length, seconds, latencies, clients.stream().mapToInt(client -> client.errors).sum());
+    }
+
+    /**
+     * The result of loading an editor
+     *
+     * @param requests The amount of answered requests
+     * @param seconds The seconds the editor was loaded
+     * @param latencies The sorted latencies in nanoseconds
+     * @param errors The amount of failed connections
+     */
+    private record Result(long requests, int seconds, long[] latencies, int errors) {
+
+        /**
+         * Getting a percentile of the latencies
+         *
+         * @param percentile The percentile between 0 and 1
+         * @return The latency in nanoseconds
+         */
+        long percentile(double percentile) {
+            return this.latencies.length == 0 ? 0 : this.latencies[(int) ((this.latencies.length - 1) * percentile)];
+        }
+
+    }
+
+    /**
+     * Client thread requesting the reports of random users
+     * over one kept alive connection
+     */
+    private class Client extends Thread {
+
+        /**
+         * Whether the clients should keep requesting
+         */
+        private final AtomicBoolean running;
+
+        /**
+         * The amount of requests sent before reading the responses
+         */
+        private final int pipeline;
+
+        /**
+         * The latencies of the answered requests
+         */
+        private long[] latencies = new long[1 << 16];
+
+        /**
+         * The amount of answered requests
+         */
+        private int requests = 0;
+
+        /**
+         * The amount of failed connections
+         */
+        private int errors = 0;
+
+        /**
+         * Constructor to create the client
+         *
+         * @param running Whether the clients should keep requesting
+         * @param pipeline The amount of requests sent before reading the responses
+         */
+        Client(AtomicBoolean running, int pipeline) {
+            this.running = running;
+            this.pipeline = pipeline;
+        }
+
+        @Override
+        public void run() {
+            while (this.running.get()) {
+                try (Socket socket = new Socket("localhost", PORT)) {
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout(5000);
+                    OutputStream output = socket.getOutputStream();
+                    InputStream input = new BufferedInputStream(socket.getInputStream());
+
+                    while (this.running.get()) {
+                        long start = System.nanoTime();
+                        StringBuilder requestBatch = new StringBuilder();
+                        for (int i = 0; i < this.pipeline; i++) {
+                            UUID reported = EditorBenchmark.this.reportedUsers[ThreadLocalRandom.current()
+                                    .nextInt(EditorBenchmark.this.reportedUsers.length)];
+                            requestBatch.append("GET /reports/").append(reported).append(" HTTP/1.1\r\nHost: localhost\r\n")
+                                    .append("Authorization: Basic ").append(AUTH_KEY).append("\r\n\r\n");
+                        }
+                        output.write(requestBatch.toString().getBytes(StandardCharsets.ISO_8859_1));
+                        output.flush();
+
+                        for (int i = 0; i < this.pipeline; i++) {
+                            this.readResponse(input);
+                            this.recordLatency(System.nanoTime() - start);
+                        }
+                    }
+                } catch (IOException exception) {
+                    this.errors++;
+                }
+            }
+        }
+
+        /**
+         * Storing the latency of an answered request
+         *
+         * @param latency The latency in nanoseconds
+         */
+        private void recordLatency(long latency) {
+            if (this.requests == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.latencies.length * 2);
+            }
+            this.latencies[this.requests++] = latency;
+        }
+
+        /**
+         * Reading one response with a fixed length
+         * or a chunked body
+         *
+         * @param input The stream of the connection
+         * @throws IOException Thrown when the response is broken
+         */
+        private void readResponse(InputStream input) throws IOException {
+            String statusLine = this.readLine(input);
+            if (!statusLine.startsWith("HTTP/1.1 200")) {
+                throw new IOException("Unexpected status " + statusLine);
+            }
+
+            long contentLength = -1;
+            boolean chunked = false;
+            for (String header = this.readLine(input); !header.isEmpty(); header = this.readLine(input)) {
+                String lowerHeader = header.toLowerCase();
+                if (lowerHeader.startsWith("content-length:")) {
+                    contentLength = Long.parseLong(header.substring(15).trim());
+                } else if (lowerHeader.startsWith("transfer-encoding:") && lowerHeader.contains("chunked")) {
+                    chunked = true;
+                }
+            }
+
+            if (!chunked) {
+                this.skip(input, Math.max(0, contentLength));
+                return;
+            }
+            for (long chunkSize = Long.parseLong(this.readLine(input).trim(), 16); chunkSize > 0;
+                 chunkSize = Long.parseLong(this.readLine(input).trim(), 16)) {
+                this.skip(input, chunkSize);
+                this.readLine(input);
+            }
+            this.readLine(input);
+        }
+
+        /**
+         * Reading a line ending with a line break
+         *
+         * @param input The stream to read from
+         * @return The line without the line break
+         * @throws IOException Thrown when the stream ended
+         */
+        private String readLine(InputStream input) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int read = input.read(); read != '\n'; read = input.read()) {
+                if (read == -1) {
+                    throw new IOException("Connection closed");
+                }
+                if (read != '\r') {
+                    line.append((char) read);
+                }
+            }
+
+            return line.toString();
+        }
+
+        /**
+         * Skipping bytes of the stream
+         *
+         * @param input The stream to skip in
+         * @param amount The amount of bytes to skip
+         * @throws IOException Thrown when the stream ended
+         */
+        private void skip(InputStream input, long amount) throws IOException {
+            while (amount > 0) {
+                long skipped = input.skip(amount);
+                if (skipped <= 0) {
+                    if (input.read() == -1) {
+                        throw new IOException("Connection closed");
+                    }
+                    skipped = 1;
+                }
+                amount -= skipped;
+            }
+        }
+
+    }
+
+}
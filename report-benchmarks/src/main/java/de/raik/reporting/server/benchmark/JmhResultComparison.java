@@ -0,0 +1,145 @@
+package de.raik.reporting.server.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tool comparing two json result files of jmh to make
+ * regressions of the hot paths visible across changes
+ *
+ * Every benchmark with the same parameters in both files is printed with
+ * the relative change of its score. A change is a regression if the score got
+ * worse by more than the threshold and more than the errors of both runs.
+ * The tool exits with 1 if there is a regression so it can fail a build
+ *
+ * Arguments: baseline results, current results and the threshold in percent
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class JmhResultComparison {
+
+    /**
+     * Main method comparing the files
+     *
+     * @param args The baseline file, the current file and the threshold in percent
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: <baseline.json> <results.json> [threshold percent]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonObject> baseline = readResults(Path.of(args[0]));
+        Map<String, JsonObject> current = readResults(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonObject> result : current.entrySet()) {
+            JsonObject baselineResult = baseline.get(result.getKey());
+            JsonObject metric = result.getValue().getAsJsonObject("primaryMetric");
+            if (baselineResult == null) {
+                System.out.printf("%-80s %14s %14.3f %9s%n", result.getKey(), "-", metric.get("score").getAsDouble(), "new");
+                continue;
+            }
+
+            JsonObject baselineMetric = baselineResult.getAsJsonObject("primaryMetric");
+            double baselineScore = baselineMetric.get("score").getAsDouble();
+            double score = metric.get("score").getAsDouble();
+            //Throughput is better when higher and every time based mode when lower
+            boolean higherIsBetter = result.getValue().get("mode").getAsString().equals("thrpt");
+            double change = (score - baselineScore) / baselineScore * 100;
+            double worsening = higherIsBetter ? -change : change;
+            double error = errorOf(baselineMetric) + errorOf(metric);
+
+            boolean regression = worsening > threshold && Math.abs(score - baselineScore) > error;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s %s%n", result.getKey(), baselineScore, score, change,
+                    metric.get("scoreUnit").getAsString(), regression ? "REGRESSION" : "");
+        }
+
+        System.out.println(regressions == 0 ? "No regressions above " + threshold + "%"
+                : regressions + " regressions above " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * Reading the results of a file by the benchmark
+     * and its parameters
+     *
+     * @param file The json result file of jmh
+     * @return The results by their name sorted
+     * @throws IOException Thrown when the file can't be read
+     */
+    private static Map<String, JsonObject> readResults(Path file) throws IOException {
+        TreeMap<String, JsonObject> results = new TreeMap<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonArray resultArray = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : resultArray) {
+                JsonObject result = element.getAsJsonObject();
+                results.put(nameOf(result), result);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Getting the name of a result containing
+     * the benchmark, the mode and the parameters
+     *
+     * @param result The result of jmh
+     * @return The name of the result
+     */
+    private static String nameOf(JsonObject result) {
+        String benchmark = result.get("benchmark").getAsString();
+        StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1))
+                .append(" (").append(result.get("mode").getAsString()).append(')');
+
+        if (result.has("params")) {
+            LinkedHashMap<String, String> parameters = new LinkedHashMap<>();
+            result.getAsJsonObject("params").entrySet()
+                    .forEach(parameter -> parameters.put(parameter.getKey(), parameter.getValue().getAsString()));
+            name.append(' ').append(parameters);
+        }
+
+        return name.toString();
+    }
+
+    /**
+     * Getting the error of a score which is
+     * missing or NaN for single runs
+     *
+     * @param metric The primary metric of a result
+     * @return The error or 0 if there is none
+     */
+    private static double errorOf(JsonObject metric) {
+        if (!metric.has("scoreError")) {
+            return 0;
+        }
+
+        JsonElement error = metric.get("scoreError");
+        //Gson reads the NaN of jmh as string
+        if (error.isJsonPrimitive() && error.getAsJsonPrimitive().isString()) {
+            return 0;
+        }
+
+        double value = error.getAsDouble();
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+}
@@ -0,0 +1,525 @@
+package de.raik.reporting.server.benchmark;
+
+import de.raik.reporting.server.config.file.CSVConfig;
+import de.raik.reporting.server.launch.ReportServerLauncher;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Load test simulating a network of game servers using the report server
+ * at the same time. The report server is started as own process with a temporary
+ * csv file so the clients don't share the heap and the cpu time of the server
+ *
+ * Every simulated game server is a client with its own http client like the
+ * plugin sending a mix of requests at a fixed rate. The latency is measured
+ * from the time the request should have been sent so a slow server
+ * isn't hidden by clients waiting for it
+ *
+ * Arguments in the format key=value:
+ * servers - The amount of simulated game servers
+ * rate - The requests per second of every game server
+ * mix - The weights of the requests as post:weight,get:weight,list:weight,delete:weight
+ *       post reports a user, get requests the reports of a user,
+ *       list the newest reports and delete removes the reports of a user
+ * users - The amount of reported users the requests choose from
+ * preload - The amount of reports stored before the start
+ * warmup - The seconds before measuring
+ * duration - The seconds of measuring
+ * port - The port of the report server
+ * editor - The editor class of the report server
+ * executor, threads, queueSize - The request executor of the report server
+ * jvmArgs - Space separated arguments of the server process like -Xmx1g
+ * keep - Whether the temporary directory with the csv and the server log is kept
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+    /**
+     * The auth key of the started report server
+     */
+    private static final String AUTH_KEY = "load";
+
+    /**
+     * The requests the game servers send
+     */
+    private enum Operation {
+        POST, GET, LIST, DELETE
+    }
+
+    /**
+     * The arguments of the load test
+     */
+    private final HashMap<String, String> arguments = new HashMap<>();
+
+    /**
+     * The reported users the requests choose from
+     */
+    private final UUID[] reportedUsers;
+
+    /**
+     * The operations weighted by the mix where every
+     * operation is stored as often as its weight
+     */
+    private final Operation[] weightedOperations;
+
+    /**
+     * The directory of the csv file and the server log
+     */
+    private Path directory;
+
+    /**
+     * The process of the report server
+     */
+    private Process serverProcess;
+
+    /**
+     * Main method running the load test
+     *
+     * @param args The arguments in the format key=value
+     */
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(args).run();
+    }
+
+    /**
+     * Constructor parsing the arguments
+     *
+     * @param args The arguments in the format key=value
+     * @throws IllegalArgumentException Thrown when the mix contains an unknown request
+     */
+    private LoadGenerator(String[] args) {
+        //Default arguments which are overwritten by the given ones
+        this.arguments.put("servers", "50");
+        this.arguments.put("rate", "20");
+        this.arguments.put("mix", "post:50,get:30,list:15,delete:5");
+        this.arguments.put("users", "5000");
+        this.arguments.put("preload", "10000");
+        this.arguments.put("warmup", "5");
+        this.arguments.put("duration", "30");
+        this.arguments.put("port", "18338");
+        this.arguments.put("editor", "de.raik.reporting.server.editor.rest.RestEditor");
+        this.arguments.put("executor", "bounded");
+        this.arguments.put("threads", "10");
+        this.arguments.put("queueSize", "100");
+        this.arguments.put("jvmArgs", "");
+        this.arguments.put("keep", "false");
+        Arrays.stream(args).filter(argument -> argument.indexOf('=') > 0)
+                .forEach(argument -> this.arguments.put(argument.split("=", 2)[0], argument.split("=", 2)[1]));
+
+        this.reportedUsers = new UUID[Integer.parseInt(this.arguments.get("users"))];
+        Arrays.setAll(this.reportedUsers, index -> UUID.randomUUID());
+
+        ArrayList<Operation> operations = new ArrayList<>();
+        for (String weight : this.arguments.get("mix").split(",")) {
+            String[] operationWeight = weight.split(":");
+            Operation operation = Operation.valueOf(operationWeight[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(operationWeight[1].trim()); i++) {
+                operations.add(operation);
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one request with a weight");
+        }
+        this.weightedOperations = operations.toArray(new Operation[0]);
+    }
+
+    /**
+     * Starting the server, loading it with the
+     * game servers and printing the results
+     */
+    private void run() throws Exception {
+        this.directory = Files.createTempDirectory("report-load");
+        try {
+            this.preload();
+            this.startServer();
+
+            int servers = Integer.parseInt(this.arguments.get("servers"));
+            int rate = Integer.parseInt(this.arguments.get("rate"));
+            long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(this.arguments.get("warmup")));
+            long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(this.arguments.get("duration")));
+            System.out.printf("%d game servers with %d requests/s each, mix %s, %s s warmup, %s s measured%n", servers,
+                    rate, this.arguments.get("mix"), this.arguments.get("warmup"), this.arguments.get("duration"));
+
+            //Every game server starts at a random offset of its interval to not send in waves
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            List<GameServer> gameServers = new ArrayList<>();
+            for (int i = 0; i < servers; i++) {
+                GameServer gameServer = new GameServer(i, start, start + warmup, start + warmup + duration,
+                        TimeUnit.SECONDS.toNanos(1) / rate);
+                gameServers.add(gameServer);
+                gameServer.start();
+            }
+            for (GameServer gameServer : gameServers) {
+                gameServer.join();
+            }
+
+            this.printResults(gameServers, duration);
+        } finally {
+            this.stopServer();
+            if (!Boolean.parseBoolean(this.arguments.get("keep"))) {
+                try (Stream<Path> files = Files.walk(this.directory)) {
+                    files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            } else {
+                System.out.println("Kept the csv and the server log in " + this.directory);
+            }
+        }
+    }
+
+    /**
+     * Writing the preloaded reports into the csv
+     * file using the csv config of the server
+     */
+    private void preload() {
+        int preload = Integer.parseInt(this.arguments.get("preload"));
+        ArrayList<Report> reports = new ArrayList<>(preload);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < preload; i++) {
+            reports.add(new Report(this.reportedUsers[ThreadLocalRandom.current().nextInt(this.reportedUsers.length)],
+                    "Preloaded reason " + (i % 20), UUID.randomUUID(), now.minusSeconds(preload - i)));
+        }
+        ReportStore store = new ReportStore();
+        store.addAll(reports);
+
+        CSVConfig config = new CSVConfig();
+        HashMap<String, String> configArguments = new HashMap<>();
+        configArguments.put("name", "reports");
+        configArguments.put("path", this.directory.toString());
+        config.loadArguments(configArguments);
+        config.initAccessor(store);
+        config.saveConfig();
+    }
+
+    /**
+     * Starting the report server process with the csv file in
+     * the temporary directory and waiting until it answers
+     *
+     * @throws IOException Thrown when the server can't be started or doesn't answer
+     */
+    private void startServer() throws IOException, InterruptedException {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Arrays.stream(this.arguments.get("jvmArgs").split(" ")).filter(argument -> !argument.isBlank()).forEach(command::add);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), ReportServerLauncher.class.getName(),
+                "file.path=" + this.directory, "file.name=reports.csv",
+                "rest.port=" + this.arguments.get("port"), "rest.authKey=" + AUTH_KEY, "rest.compression=-1",
+                "rest.executor=" + this.arguments.get("executor"), "rest.threads=" + this.arguments.get("threads"),
+                "rest.queueSize=" + this.arguments.get("queueSize"), "editorClass=" + this.arguments.get("editor")));
+
+        File log = this.directory.resolve("server.log").toFile();
+        this.serverProcess = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(log)).start();
+
+        //Waiting for the server to answer
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = this.createRequest("executor").GET().build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline && this.serverProcess.isAlive()) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException exception) {
+                Thread.sleep(200);
+            }
+        }
+
+        throw new IOException("The report server didn't start. See " + log);
+    }
+
+    /**
+     * Closing the server with the close command
+     * and killing it if it doesn't stop
+     */
+    private void stopServer() throws InterruptedException {
+        if (this.serverProcess == null || !this.serverProcess.isAlive()) {
+            return;
+        }
+
+        try (OutputStream input = this.serverProcess.getOutputStream()) {
+            input.write("close\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+        if (!this.serverProcess.waitFor(30, TimeUnit.SECONDS)) {
+            this.serverProcess.destroyForcibly();
+        }
+    }
+
+    /**
+     * Creating a request to the path of the
+     * started server with the authorization
+     *
+     * @param path The path without leading slash
+     * @return The request builder
+     */
+    private HttpRequest.Builder createRequest(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + this.arguments.get("port") + "/" + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Authorization", "Basic " + AUTH_KEY);
+    }
+
+    /**
+     * Printing throughput, latency and errors
+     * of every request and of all together
+     *
+     * @param gameServers The finished game servers
+     * @param duration The measured nanoseconds
+     */
+    private void printResults(List<GameServer> gameServers, long duration) {
+        double seconds = duration / 1e9;
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %8s%n", "Request", "Requests", "Req/s", "p50 ms",
+                "p99 ms", "p999 ms", "max ms", "Errors");
+
+        long[] allLatencies = new long[0];
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            long[] latencies = gameServers.stream().flatMapToLong(gameServer -> gameServer.latencies(operation)).sorted().toArray();
+            long errors = gameServers.stream().mapToLong(gameServer -> gameServer.errorCount(operation)).sum();
+            if (latencies.length == 0 && errors == 0) {
+                continue;
+            }
+
+            this.printRow(operation.name(), latencies, errors, seconds);
+            allLatencies = this.merge(allLatencies, latencies);
+            allErrors += errors;
+        }
+        this.printRow("ALL", allLatencies, allErrors, seconds);
+
+        //Listing what went wrong
+        TreeMap<String, Long> errors = new TreeMap<>();
+        gameServers.forEach(gameServer -> gameServer.errors.forEach((error, amount) -> errors.merge(error, amount, Long::sum)));
+        if (!errors.isEmpty()) {
+            System.out.println("Errors:");
+            errors.forEach((error, amount) -> System.out.printf("  %-60s %d%n", error, amount));
+        }
+    }
+
+    /**
+     * Printing the results of one request
+     *
+     * @param name The name of the request
+     * @param latencies The sorted latencies of the answered requests
+     * @param errors The amount of failed requests
+     * @param seconds The measured seconds
+     */
+    private void printRow(String name, long[] latencies, long errors, double seconds) {
+        System.out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n", name, latencies.length,
+                latencies.length / seconds, this.percentile(latencies, 0.5), this.percentile(latencies, 0.99),
+                this.percentile(latencies, 0.999), this.percentile(latencies, 1), errors);
+    }
+
+    /**
+     * Getting a percentile of the latencies
+     *
+     * @param latencies The sorted latencies in nanoseconds
+     * @param percentile The percentile between 0 and 1
+     * @return The latency in milliseconds
+     */
+    private double percentile(long[] latencies, double percentile) {
+        return latencies.length == 0 ? 0 : latencies[(int) Math.ceil((latencies.length - 1) * percentile)] / 1e6;
+    }
+
+    /**
+     * Merging two sorted arrays
+     *
+     * @param first The first sorted array
+     * @param second The second sorted array
+     * @return The merged sorted array
+     */
+    private long[] merge(long[] first, long[] second) {
+        long[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Simulated game server sending the requests of the
+     * mix at its rate with its own http client like the plugin
+     */
+    private class GameServer extends Thread {
+
+        /**
+         * The client of the game server
+         */
+        private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+
+        /**
+         * The time the first request is sent
+         */
+        private final long start;
+
+        /**
+         * The time measuring starts
+         */
+        private final long measureStart;
+
+        /**
+         * The time no more requests are sent
+         */
+        private final long end;
+
+        /**
+         * The nanoseconds between two requests
+         */
+        private final long interval;
+
+        /**
+         * The latencies of the answered requests per operation
+         */
+        private final long[][] latencies = new long[Operation.values().length][1024];
+
+        /**
+         * The amount of answered requests per operation
+         */
+        private final int[] answered = new int[Operation.values().length];
+
+        /**
+         * The amount of failed requests per operation
+         */
+        private final long[] failed = new long[Operation.values().length];
+
+        /**
+         * The failed requests by the request and the
+         * status or exception
+         */
+        private final HashMap<String, Long> errors = new HashMap<>();
+
+        /**
+         * Constructor to create the game server
+         *
+         * @param number The number of the game server
+         * @param start The time the first request is sent
+         * @param measureStart The time measuring starts
+         * @param end The time no more requests are sent
+         * @param interval The nanoseconds between two requests
+         */
+        GameServer(int number, long start, long measureStart, long end, long interval) {
+            super("load-game-server-" + number);
+            this.start = start + ThreadLocalRandom.current().nextLong(interval);
+            this.measureStart = measureStart;
+            this.end = end;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            for (long intended = this.start; intended < this.end; intended += this.interval) {
+                //Waiting until the request is due. Requests being late because of slow responses are sent at once
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Operation operation = LoadGenerator.this.weightedOperations[ThreadLocalRandom.current()
+                        .nextInt(LoadGenerator.this.weightedOperations.length)];
+                String error = this.send(operation);
+                if (intended < this.measureStart) {
+                    continue;
+                }
+
+                if (error != null) {
+                    this.failed[operation.ordinal()]++;
+                    this.errors.merge(operation + " " + error, 1L, Long::sum);
+                    continue;
+                }
+                this.record(operation, System.nanoTime() - intended);
+            }
+        }
+
+        /**
+         * Sending a request of the operation
+         *
+         * @param operation The operation to send
+         * @return The error or null if the request was answered as expected
+         */
+        private String send(Operation operation) {
+            UUID reported = LoadGenerator.this.reportedUsers[ThreadLocalRandom.current()
+                    .nextInt(LoadGenerator.this.reportedUsers.length)];
+            HttpRequest request = switch (operation) {
+                case POST -> LoadGenerator.this.createRequest("reports/" + reported)
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"reason\":\"Load test\",\"reporter\":\""
+                                + UUID.randomUUID() + "\"}")).build();
+                case GET -> LoadGenerator.this.createRequest("reports/" + reported).GET().build();
+                case LIST -> LoadGenerator.this.createRequest("reports?limit=10").GET().build();
+                case DELETE -> LoadGenerator.this.createRequest("reports/" + reported).DELETE().build();
+            };
+            int expectedStatus = operation == Operation.POST || operation == Operation.DELETE ? 204 : 200;
+
+            try {
+                int status = this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                return status == expectedStatus ? null : "status " + status;
+            } catch (IOException exception) {
+                return exception.getClass().getSimpleName() + " " + exception.getMessage();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            }
+        }
+
+        /**
+         * Storing the latency of an answered request
+         *
+         * @param operation The operation of the request
+         * @param latency The latency in nanoseconds
+         */
+        private void record(Operation operation, long latency) {
+            int index = operation.ordinal();
+            if (this.answered[index] == this.latencies[index].length) {
+                this.latencies[index] = Arrays.copyOf(this.latencies[index], this.latencies[index].length * 2);
+            }
+            this.latencies[index][this.answered[index]++] = latency;
+        }
+
+        /**
+         * Getting the latencies of an operation
+         *
+         * @param operation The operation
+         * @return The stream of the latencies
+         */
+        LongStream latencies(Operation operation) {
+            return Arrays.stream(this.latencies[operation.ordinal()], 0, this.answered[operation.ordinal()]);
+        }
+
+        /**
+         * Getting the amount of failed requests of an operation
+         *
+         * @param operation The operation
+         * @return The amount of failed requests
+         */
+        long errorCount(Operation operation) {
+            return this.failed[operation.ordinal()];
+        }
+
+    }
+
+}
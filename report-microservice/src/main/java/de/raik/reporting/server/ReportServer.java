@@ -4,12 +4,19 @@ import de.raik.reporting.server.accessor.ReportAccessor;
 import de.raik.reporting.server.accessor.ReportAccessorService;
 import de.raik.reporting.server.config.ConfigFactory;
 import de.raik.reporting.server.config.ReportConfig;
+import de.raik.reporting.server.config.SaveScheduler;
 import de.raik.reporting.server.editor.EditorFactory;
 import de.raik.reporting.server.editor.ReportEditor;
 import de.raik.reporting.server.launch.LaunchArgumentParser;
-import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.metrics.Gauge;
+import de.raik.reporting.server.metrics.MetricFamily;
+import de.raik.reporting.server.metrics.MetricsRegistry;
+import de.raik.reporting.server.metrics.StoreMetrics;
+import de.raik.reporting.server.replication.ReplicationNode;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.retention.RetentionPolicy;
+import de.raik.reporting.server.sharding.ShardTopology;
 
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Scanner;
 
@@ -25,9 +32,16 @@ import java.util.Scanner;
 public final class ReportServer {
 
     /**
-     * The collection of the reports to store them
+     * The store of the reports to store them
+     * which is shared between all accessors
      */
-    private final HashSet<Report> reports = new HashSet<>();
+    private ReportStore reports;
+
+    /**
+     * The metrics of the server which are
+     * exposed by the editor
+     */
+    private final MetricsRegistry metrics = new MetricsRegistry();
 
     /**
      * The main configuration of the plugin which should manage saving and loading the data
@@ -39,6 +53,41 @@ public final class ReportServer {
      */
     private ReportEditor editor;
 
+    /**
+     * The policy moving expired reports into the archive
+     */
+    private final RetentionPolicy retention = new RetentionPolicy();
+
+    /**
+     * The node replicating the reports
+     * between the leader and its followers
+     */
+    private final ReplicationNode replication = new ReplicationNode();
+
+    /**
+     * The topology of the shards splitting
+     * the reports across multiple servers
+     */
+    private final ShardTopology shards = new ShardTopology();
+
+    /**
+     * The scheduler saving the config in the background
+     * after the editor changed the reports
+     */
+    private SaveScheduler saveScheduler;
+
+    /**
+     * The maximum time in milliseconds changes
+     * stay unsaved
+     */
+    private long saveInterval;
+
+    /**
+     * The amount of changes which trigger
+     * saving without waiting for the interval
+     */
+    private int saveChanges;
+
     /**
      * Creating the report server
      * with setting up config and editor and
@@ -47,10 +96,13 @@ public final class ReportServer {
      * @param arguments The arguments parsed from the command line
      */
     public ReportServer(String[] arguments) {
-        //Creating parser and setting the configClass and the editor class
+        //Creating parser and setting the configClass, the editor class, the save settings and the store
         LaunchArgumentParser parser = new LaunchArgumentParser(arguments)
                 .supplyArgument("configClass", configClass -> this.config = new ConfigFactory().create(configClass))
-                .supplyArgument("editorClass", editorClass -> this.editor = new EditorFactory().create(editorClass));
+                .supplyArgument("editorClass", editorClass -> this.editor = new EditorFactory().create(editorClass))
+                .supplyArgument("save.interval", interval -> this.saveInterval = Long.parseLong(interval))
+                .supplyArgument("save.changes", changes -> this.saveChanges = Integer.parseInt(changes))
+                .supplyArgument("store.changeLog", changeLogSize -> this.reports = new ReportStore(Integer.parseInt(changeLogSize)));
 
         //Check for none config and editor
         if (this.config == null || this.editor == null) {
@@ -59,7 +111,10 @@ public final class ReportServer {
 
         //Supply to config and editor
         parser.supplyToOneUsageAccessor(this.config)
-                .supplyToOneUsageAccessor(this.editor);
+                .supplyToOneUsageAccessor(this.editor)
+                .supplyToOneUsageAccessor(this.retention)
+                .supplyToOneUsageAccessor(this.replication)
+                .supplyToOneUsageAccessor(this.shards);
 
         /*
          * The accessor having access to the reports to edit them dynamically
@@ -70,17 +125,38 @@ public final class ReportServer {
         LinkedHashSet<ReportAccessor> accessors = new LinkedHashSet<>(new ReportAccessorService<>(ReportAccessor.class).getLoaded());
         accessors.add(this.config);
         accessors.add(this.editor);
-
-        //Set editor callback
-        this.editor.setUpdateCallback(() -> {
-            if (this.config.shouldSaveEverytime()) {
-                this.config.saveConfig();
-            }
+        //Followers get the expired reports from the leader
+        if (!this.replication.isFollower()) {
+            accessors.add(this.retention);
+        }
+        accessors.add(this.replication);
+        accessors.add(this.shards);
+
+        //Set editor callback saving in the background with the configured interval and amount of changes
+        this.saveScheduler = new SaveScheduler(this.config, this.saveInterval, this.saveChanges, this.metrics);
+        this.editor.setUpdateCallback(this.saveScheduler::markDirty);
+        this.editor.setMetrics(this.metrics);
+        this.editor.setArchive(this.retention.getArchive());
+        this.retention.setUpdateCallback(this.saveScheduler::markDirty);
+        this.retention.setMetrics(this.metrics);
+        this.editor.setReadOnly(this.replication.isFollower());
+        this.editor.setLeaderUrl(this.replication.getLeaderUrl());
+        this.editor.setShardRing(this.shards.getRing());
+        this.replication.setUpdateCallback(this.saveScheduler::markDirty);
+        this.replication.setMetrics(this.metrics);
+
+        //Observe the store before the config loads the reports
+        new StoreMetrics(this.reports, this.metrics);
+
+        // Initialize accessors and record how long each of them takes
+        MetricFamily<Gauge> initTimes = this.metrics.gauges("report_accessor_init_seconds",
+                "Duration of initializing the accessor", "accessor");
+        accessors.forEach(accessor -> {
+            long start = System.nanoTime();
+            accessor.initAccessor(this.reports);
+            initTimes.labels(accessor.getClass().getSimpleName()).set((System.nanoTime() - start) / 1e9);
         });
 
-        // Initialize accessors
-        accessors.forEach(accessor -> accessor.initAccessor(this.reports));
-
         //Finished - Wait for close
         this.waitForCloseCommand();
     }
@@ -102,7 +178,14 @@ public final class ReportServer {
         } while (!notClosed);
 
         //Close the editor and save the config
-        this.config.saveConfig();
+        this.replication.shutdown();
+        this.retention.shutdown();
+        this.saveScheduler.shutdown();
+        try {
+            this.saveScheduler.saveConfig();
+        } catch (RuntimeException exception) {
+            exception.printStackTrace();
+        }
         this.editor.shutdown();
     }
 
@@ -1,8 +1,6 @@
 package de.raik.reporting.server.accessor;
 
-import de.raik.reporting.server.report.Report;
-
-import java.util.HashSet;
+import de.raik.reporting.server.report.ReportStore;
 
 /**
  * A report accessor can access the reports
@@ -16,11 +14,11 @@ import java.util.HashSet;
 public interface ReportAccessor {
 
     /**
-     * Method sending the reports hashset
+     * Method sending the report store
      * to let the accessor access the reports
      *
-     * @param reports The collections of the reports which will be sent to the accessor
+     * @param reports The store of the reports which will be sent to the accessor
      */
-    void initAccessor(HashSet<Report> reports);
+    void initAccessor(ReportStore reports);
 
 }
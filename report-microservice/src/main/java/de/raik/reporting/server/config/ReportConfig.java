@@ -29,4 +29,14 @@ public interface ReportConfig extends OneUsageAccessor {
      */
     boolean shouldSaveEverytime();
 
+    /**
+     * Method returning the size of the stored reports
+     * in bytes which is recorded after saving
+     *
+     * @return The stored size or -1 if it's unknown
+     */
+    default long getStoredSize() {
+        return -1;
+    }
+
 }
@@ -0,0 +1,154 @@
+package de.raik.reporting.server.config;
+
+import de.raik.reporting.server.metrics.Gauge;
+import de.raik.reporting.server.metrics.Histogram;
+import de.raik.reporting.server.metrics.MetricsRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduler saving the config on its own thread after the reports
+ * changed so saving never blocks the editor. Changes are coalesced
+ * and the config is saved at most once per interval or as soon as
+ * the maximum amount of unsaved changes is reached
+ *
+ * Configs which should save every time are saved after every change
+ * but still on the scheduler thread
+ * The duration of every save and the stored size afterwards are recorded
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class SaveScheduler {
+
+    /**
+     * The config to save
+     */
+    private final ReportConfig config;
+
+    /**
+     * The maximum time in milliseconds changes
+     * stay unsaved
+     */
+    private final long interval;
+
+    /**
+     * The amount of changes which trigger saving
+     * without waiting for the interval
+     */
+    private final int maxChanges;
+
+    /**
+     * The thread saving the config
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The amount of changes since the last save
+     */
+    private final AtomicInteger changes = new AtomicInteger();
+
+    /**
+     * Whether a save after the interval is scheduled already
+     */
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    /**
+     * Whether an immediate save is queued already
+     */
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+
+    /**
+     * The durations of saving the config
+     */
+    private final Histogram saveDuration;
+
+    /**
+     * The size of the stored reports after the last save
+     */
+    private final Gauge storedSize;
+
+    /**
+     * Constructor to create the scheduler
+     *
+     * @param config The config to save
+     * @param interval The maximum time in milliseconds changes stay unsaved
+     * @param maxChanges The amount of changes which trigger saving immediately
+     * @param metrics The registry to record the saves at
+     */
+    public SaveScheduler(ReportConfig config, long interval, int maxChanges, MetricsRegistry metrics) {
+        this.config = config;
+        this.interval = interval;
+        this.maxChanges = config.shouldSaveEverytime() ? 1 : maxChanges;
+        this.saveDuration = metrics.histograms("report_config_save_duration_seconds", "Duration of saving the config").labels();
+        this.storedSize = metrics.gauges("report_config_stored_bytes", "Size of the stored reports after the last save").labels();
+    }
+
+    /**
+     * Marking the reports as changed to save them later.
+     * Should be called by the editor update callback
+     */
+    public void markDirty() {
+        if (this.changes.incrementAndGet() >= this.maxChanges) {
+            if (this.saveQueued.compareAndSet(false, true)) {
+                this.executor.execute(this::save);
+            }
+            return;
+        }
+
+        if (this.saveScheduled.compareAndSet(false, true)) {
+            this.executor.schedule(this::save, this.interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stopping the scheduler and waiting for a running save.
+     * Unsaved changes need to be saved by the caller afterwards
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Saving the config and recording the duration and the
+     * stored size. Used by the scheduler and for the final save
+     */
+    public void saveConfig() {
+        long start = System.nanoTime();
+        this.config.saveConfig();
+        this.saveDuration.record(System.nanoTime() - start);
+        this.storedSize.set(this.config.getStoredSize());
+    }
+
+    /**
+     * Saving the config if there are unsaved changes.
+     * Changes made while saving will be saved by the next save
+     */
+    private void save() {
+        this.saveScheduled.set(false);
+        this.saveQueued.set(false);
+        if (this.changes.getAndSet(0) == 0) {
+            return;
+        }
+
+        try {
+            this.saveConfig();
+        } catch (RuntimeException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package de.raik.reporting.server.config.file;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * A file config storing the reports in a compact binary
+ * format which can be loaded without parsing any text
+ * It's registered in the services files
+ *
+ * Layout of the file:
+ * Header - magic number, record count and the position of the reason table
+ * Records - fixed width records with the uuids as long pairs, the epoch second,
+ *           the nano of the second and the offset of the reason in the reason table
+ * Reason table - every distinct reason once as length and utf-8 bytes
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class BinaryConfig extends FileConfig {
+
+    /**
+     * Magic number at the start of the file
+     */
+    private static final int MAGIC = 0x52424E31;
+
+    /**
+     * The length of the header containing magic number,
+     * record count and the reason table position
+     */
+    private static final int HEADER_LENGTH = 20;
+
+    /**
+     * The length of one record in bytes
+     */
+    private static final int RECORD_LENGTH = 48;
+
+    /**
+     * The maximum amount of records mapped at once
+     * as one mapping can't be bigger than 2GB
+     */
+    private static final int RECORDS_PER_MAPPING = Integer.MAX_VALUE / RECORD_LENGTH;
+
+    /**
+     * The amount of loaded reports added
+     * to the store at once
+     */
+    private static final int LOAD_BATCH_SIZE = 1 << 20;
+
+    /**
+     * The size of the buffer used to write the file
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The report store stored to access it to save
+     */
+    private ReportStore reports;
+
+    /**
+     * Method sending the report store
+     * to let the accessor access the reports
+     *
+     * @param reports The store of the reports which will be sent to the accessor
+     */
+    @Override
+    public void initAccessor(ReportStore reports) {
+        this.reports = reports;
+        File file = this.getFile();
+        file.getParentFile().mkdirs();
+
+        if (!file.exists()) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Invalid binary report file " + file);
+            }
+            long recordCount = header.getLong();
+            long reasonTablePosition = header.getLong();
+
+            //Decoded reasons by their offset so equal reasons share one string
+            MappedByteBuffer reasonTable = channel.map(FileChannel.MapMode.READ_ONLY, reasonTablePosition,
+                    channel.size() - reasonTablePosition);
+            HashMap<Integer, String> reasons = new HashMap<>();
+            //Adding in batches as adding many reports at once is faster
+            ArrayList<Report> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+
+            for (long loaded = 0; loaded < recordCount; loaded += RECORDS_PER_MAPPING) {
+                int mappedRecords = (int) Math.min(RECORDS_PER_MAPPING, recordCount - loaded);
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_LENGTH + loaded * RECORD_LENGTH, (long) mappedRecords * RECORD_LENGTH);
+
+                for (int i = 0; i < mappedRecords; i++) {
+                    UUID reportedUser = new UUID(records.getLong(), records.getLong());
+                    UUID reporter = new UUID(records.getLong(), records.getLong());
+                    LocalDateTime timestamp = LocalDateTime.ofEpochSecond(records.getLong(), records.getInt(), ZoneOffset.UTC);
+                    String reason = reasons.computeIfAbsent(records.getInt(), offset -> this.readReason(reasonTable, offset));
+
+                    batch.add(new Report(reportedUser, reason, reporter, timestamp));
+                    if (batch.size() == LOAD_BATCH_SIZE) {
+                        reports.addAll(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            reports.addAll(batch);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to save the config when something has changed or
+     * at the end depending on the saving mode
+     * Writes to a temporary file first to never leave a half written file
+     */
+    @Override
+    public void saveConfig() {
+        File file = this.getFile();
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            //Header is written at the end when the count is known
+            channel.position(HEADER_LENGTH);
+
+            //Offsets of the already written reasons in the reason table
+            HashMap<String, Integer> reasonOffsets = new HashMap<>();
+            ByteBuffer reasonTable = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            long recordCount = 0;
+
+            for (Report report : this.reports) {
+                Integer reasonOffset = reasonOffsets.get(report.reportReason());
+                if (reasonOffset == null) {
+                    reasonOffset = reasonTable.position();
+                    reasonOffsets.put(report.reportReason(), reasonOffset);
+                    reasonTable = this.putReason(reasonTable, report.reportReason());
+                }
+
+                if (buffer.remaining() < RECORD_LENGTH) {
+                    this.flush(channel, buffer);
+                }
+                buffer.putLong(report.reportedUser().getMostSignificantBits())
+                        .putLong(report.reportedUser().getLeastSignificantBits())
+                        .putLong(report.reporter().getMostSignificantBits())
+                        .putLong(report.reporter().getLeastSignificantBits())
+                        .putLong(report.timestamp().toEpochSecond(ZoneOffset.UTC))
+                        .putInt(report.timestamp().getNano())
+                        .putInt(reasonOffset);
+                recordCount++;
+            }
+            this.flush(channel, buffer);
+
+            //Append reason table and write header
+            long reasonTablePosition = channel.position();
+            reasonTable.flip();
+            while (reasonTable.hasRemaining()) {
+                channel.write(reasonTable);
+            }
+            buffer.putInt(MAGIC).putLong(recordCount).putLong(reasonTablePosition);
+            buffer.flip();
+            channel.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Getter for the file ending to get the file ending
+     * of the file config later
+     *
+     * @return The file ending e.g .json
+     */
+    @Override
+    public String getFileEnding() {
+        return ".bin";
+    }
+
+    /**
+     * Writing the content of the buffer to the channel
+     * and clearing it to be filled again
+     *
+     * @param channel The channel to write to
+     * @param buffer The buffer to write
+     * @throws IOException Thrown when writing fails
+     */
+    private void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Putting a reason into the reason table
+     * growing it if it's too small
+     *
+     * @param reasonTable The reason table
+     * @param reason The reason to put
+     * @return The reason table which may be a new grown one
+     */
+    private ByteBuffer putReason(ByteBuffer reasonTable, String reason) {
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        if (reasonTable.remaining() < reasonBytes.length + 4) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(reasonTable.capacity() * 2,
+                    reasonTable.position() + reasonBytes.length + 4));
+            reasonTable.flip();
+            reasonTable = grown.put(reasonTable);
+        }
+
+        return reasonTable.putInt(reasonBytes.length).put(reasonBytes);
+    }
+
+    /**
+     * Reading a reason from the mapped reason table
+     *
+     * @param reasonTable The mapped reason table
+     * @param offset The offset of the reason in the table
+     * @return The decoded reason
+     */
+    private String readReason(ByteBuffer reasonTable, int offset) {
+        byte[] reasonBytes = new byte[reasonTable.getInt(offset)];
+        reasonTable.get(offset + 4, reasonBytes);
+        return new String(reasonBytes, StandardCharsets.UTF_8);
+    }
+
+}
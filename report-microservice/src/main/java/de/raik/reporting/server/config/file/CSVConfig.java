@@ -1,11 +1,13 @@
 package de.raik.reporting.server.config.file;
 
 import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCodec;
 import de.raik.reporting.server.report.ReportFactory;
+import de.raik.reporting.server.report.ReportStore;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
-import java.util.HashSet;
 
 /**
  * A file config to get the reports
@@ -24,9 +26,14 @@ public class CSVConfig extends FileConfig {
     private final String headerLine;
 
     /**
-     * The reports set stored to access it to save
+     * The codec to format the uuids and timestamps
      */
-    private HashSet<Report> reports;
+    private final ReportCodec codec = new ReportCodec();
+
+    /**
+     * The report store stored to access it to save
+     */
+    private ReportStore reports;
 
     /**
      * Constructor to create the header line
@@ -45,27 +52,26 @@ public class CSVConfig extends FileConfig {
     }
 
     /**
-     * Method sending the reports hashset
+     * Method sending the report store
      * to let the accessor access the reports
      *
-     * @param reports The collections of the reports which will be sent to the accessor
+     * @param reports The store of the reports which will be sent to the accessor
      */
     @Override
-    public void initAccessor(HashSet<Report> reports) {
+    public void initAccessor(ReportStore reports) {
         this.reports = reports;
-        ReportFactory factory = new ReportFactory();
-        this.setup(reader -> {
-            try {
-                //Read one line because it's the header line
-                reader.readLine();
-                //Use for loop to read lines
-                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                    reports.add(factory.createFromStringData(line.split(",")));
-                }
-            } catch (IOException exception) {
-                exception.printStackTrace();
-            }
-        });
+        //Check directory and file
+        this.getFile().getParentFile().mkdirs();
+        if (!this.getFile().exists()) {
+            return;
+        }
+
+        //Loading the chunks of the file in parallel
+        try {
+            new ParallelCSVLoader(this.getFile(), new ReportFactory()).load(reports);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
     }
 
     /**
@@ -78,13 +84,25 @@ public class CSVConfig extends FileConfig {
             try {
                 //Write header line
                 writer.write(this.headerLine);
+                //Buffer for the formatted uuids and timestamp reused for every line
+                char[] line = new char[ReportCodec.UUID_LENGTH + ReportCodec.MAX_TIMESTAMP_LENGTH + 2];
                 // Add reports as line
                 for (Report report : this.reports) {
-                    writer.append("\n").append(String.join(",", report.reportedUser().toString(), report.reportReason(),
-                            report.reporter().toString(), report.timestamp().toString()));
+                    line[0] = '\n';
+                    int length = this.codec.formatUUID(report.reportedUser(), line, 1);
+                    line[length++] = ',';
+                    writer.write(line, 0, length);
+                    writer.write(report.reportReason());
+
+                    line[0] = ',';
+                    length = this.codec.formatUUID(report.reporter(), line, 1);
+                    line[length++] = ',';
+                    length = this.codec.formatTimestamp(report.timestamp(), line, length);
+                    writer.write(line, 0, length);
                 }
             } catch (IOException exception) {
-                exception.printStackTrace();
+                //Aborting the write so the former file is kept
+                throw new UncheckedIOException(exception);
             }
         });
     }
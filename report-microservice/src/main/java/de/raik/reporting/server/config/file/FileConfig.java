@@ -3,6 +3,9 @@ package de.raik.reporting.server.config.file;
 import de.raik.reporting.server.config.ReportConfig;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.function.Consumer;
 
@@ -35,6 +38,26 @@ public abstract class FileConfig implements ReportConfig {
         return "file";
     }
 
+    /**
+     * Getter for the file of the config
+     * for configs which need to access the file directly
+     *
+     * @return The file of the config
+     */
+    protected File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Getter for the size of the file
+     *
+     * @return The length of the file which is 0 if it doesn't exist
+     */
+    @Override
+    public long getStoredSize() {
+        return this.file.length();
+    }
+
     /**
      * Setting up the folder and file and read the file
      * if exists using the reader consumer to use the reader
@@ -52,7 +75,7 @@ public abstract class FileConfig implements ReportConfig {
         }
 
         //Creating the auto closable reader in try catch and calling the consumer
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.file)))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.file), StandardCharsets.UTF_8))) {
             readerConsumer.accept(reader);
         } catch (IOException exception) {
             exception.printStackTrace();
@@ -62,13 +85,31 @@ public abstract class FileConfig implements ReportConfig {
     /**
      * Writing to the file of file config
      * using consumer again to use whole writer
+     * Writes to a temporary file first which is synced and moved over
+     * the file so a crash never leaves a half written file
      *
      * @param writerConsumer A write consumer to access the writer
-     *                       from outer to write to the file
+     *                       from outer to write to the file. It throws an
+     *                       UncheckedIOException to abort the write
      */
     public void write(Consumer<BufferedWriter> writerConsumer) {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file)))) {
+        File temporaryFile = new File(this.file.getPath() + ".tmp");
+
+        try (FileOutputStream output = new FileOutputStream(temporaryFile);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
             writerConsumer.accept(writer);
+            writer.flush();
+            output.getChannel().force(true);
+        } catch (IOException | UncheckedIOException exception) {
+            //Keep the former file as the new one is incomplete
+            exception.printStackTrace();
+            temporaryFile.delete();
+            return;
+        }
+
+        try {
+            Files.move(temporaryFile.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException exception) {
             exception.printStackTrace();
         }
@@ -0,0 +1,182 @@
+package de.raik.reporting.server.config.file;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportFactory;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loader reading a csv report file in parallel. The file is
+ * split into chunks ending at line breaks which are parsed on
+ * the fork join pool and added to the store when finished
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class ParallelCSVLoader {
+
+    /**
+     * The minimum size of a chunk so small files
+     * aren't split too much
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The maximum size of a chunk to read it
+     * into one array
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+
+    /**
+     * The file to load
+     */
+    private final File file;
+
+    /**
+     * The factory to create the reports with
+     */
+    private final ReportFactory factory;
+
+    /**
+     * The amount of lines which couldn't be parsed
+     */
+    private final AtomicInteger invalidLines = new AtomicInteger();
+
+    /**
+     * Constructor to create the loader
+     *
+     * @param file The csv file to load
+     * @param factory The factory to create the reports with
+     */
+    ParallelCSVLoader(File file, ReportFactory factory) {
+        this.file = file;
+        this.factory = factory;
+    }
+
+    /**
+     * Loading all reports of the file into
+     * the store. The header line is skipped
+     *
+     * @param reports The store to add the reports to
+     * @throws IOException Thrown when reading fails
+     */
+    void load(ReportStore reports) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L)));
+
+            //Splitting the file into chunks starting behind the header line and ending at line breaks
+            ArrayList<Callable<Integer>> tasks = new ArrayList<>();
+            long chunkStart = this.findLineEnd(channel, 0);
+            while (chunkStart < size) {
+                long chunkEnd = this.findLineEnd(channel, Math.min(size, chunkStart + chunkSize));
+                long taskStart = chunkStart;
+                tasks.add(() -> this.loadChunk(channel, taskStart, chunkEnd, reports));
+                chunkStart = chunkEnd;
+            }
+
+            int loaded = 0;
+            for (Future<Integer> future : pool.invokeAll(tasks)) {
+                loaded += future.get();
+            }
+
+            long milliseconds = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.printf("Loaded %d reports from %s in %d ms (%d reports/s, %d MB/s)%n", loaded, this.file.getName(),
+                    milliseconds, loaded * 1000L / milliseconds, size / 1000 / milliseconds);
+            if (this.invalidLines.get() > 0) {
+                System.out.printf("Skipped %d invalid lines in %s%n", this.invalidLines.get(), this.file.getName());
+            }
+        } catch (ExecutionException exception) {
+            throw new IOException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        }
+    }
+
+    /**
+     * Parsing the lines of one chunk and adding
+     * the reports to the store
+     *
+     * @param channel The channel of the file
+     * @param start The start position of the chunk
+     * @param end The end position of the chunk
+     * @param reports The store to add the reports to
+     * @return The amount of loaded reports
+     * @throws IOException Thrown when reading fails
+     */
+    private int loadChunk(FileChannel channel, long start, long end, ReportStore reports) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        String chunk = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+
+        List<Report> chunkReports = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < chunk.length()) {
+            int lineEnd = chunk.indexOf('\n', lineStart);
+            if (lineEnd == -1) {
+                lineEnd = chunk.length();
+            }
+            int contentEnd = lineEnd > lineStart && chunk.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (contentEnd > lineStart) {
+                Report report = this.factory.createFromLine(chunk, lineStart, contentEnd);
+                if (report != null) {
+                    chunkReports.add(report);
+                } else {
+                    this.invalidLines.incrementAndGet();
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        reports.addAll(chunkReports);
+        return chunkReports.size();
+    }
+
+    /**
+     * Finding the position behind the next line break
+     * starting at the position
+     *
+     * @param channel The channel of the file
+     * @param position The position to start searching at
+     * @return The position after the line break or the file size if there is none
+     * @throws IOException Thrown when reading fails
+     */
+    private long findLineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return channel.size();
+    }
+
+}
@@ -0,0 +1,749 @@
+package de.raik.reporting.server.config.file;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.report.ReportStoreListener;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A file config appending every change of the reports to a log
+ * file instead of rewriting all reports. Writers waiting at the same
+ * time are committed together with one fsync (group commit)
+ * It's registered in the services files
+ *
+ * Files used next to each other:
+ * name.log - The active log the changes are appended to
+ * name.log.old - The log which is being compacted at the moment
+ * name.snapshot - All reports of the compacted logs
+ *
+ * When the active log grows over the compaction size it will be rotated and
+ * merged into the snapshot on a background thread. The files start with the
+ * generation of the log so a snapshot never gets a log applied twice.
+ * The log is only rotated again after the old log was compacted
+ *
+ * A failed write is cut off the log and retried with the records still
+ * pending. Saves fail while the retry is outstanding and succeed again once
+ * the failed batch got written and synced
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class WriteAheadLogConfig extends FileConfig implements ReportStoreListener {
+
+    /**
+     * Magic number at the start of a log file
+     */
+    private static final int LOG_MAGIC = 0x5257414C;
+
+    /**
+     * The length of the header of logs and snapshots
+     * containing the magic number and the generation
+     */
+    private static final int HEADER_LENGTH = 12;
+
+    /**
+     * Magic number at the start of a snapshot file
+     */
+    private static final int SNAPSHOT_MAGIC = 0x52534E50;
+
+    /**
+     * Record type of an added report
+     */
+    private static final byte ADD_RECORD = 'A';
+
+    /**
+     * Record type of removed reports of a user
+     */
+    private static final byte DELETE_RECORD = 'D';
+
+    /**
+     * Record type of expired reports of a user
+     * which are older than a cutoff
+     */
+    private static final byte EXPIRE_RECORD = 'E';
+
+    /**
+     * The time in milliseconds to wait before retrying
+     * a failed write or compaction
+     */
+    private static final long RETRY_INTERVAL = 1000;
+
+    /**
+     * Lock guarding the pending records and sequences
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Condition signalled when new records are pending
+     * for the writer thread
+     */
+    private final Condition recordsPending = this.lock.newCondition();
+
+    /**
+     * Condition signalled when records got durable
+     * for the waiting saves
+     */
+    private final Condition recordsDurable = this.lock.newCondition();
+
+    /**
+     * Encoded records waiting to be written by the writer thread
+     */
+    private final ArrayList<byte[]> pendingRecords = new ArrayList<>();
+
+    /**
+     * The sequence of the last record added to the pending records
+     */
+    private long appendedSequence = 0;
+
+    /**
+     * The sequence of the last record which was written and synced
+     */
+    private long durableSequence = 0;
+
+    /**
+     * The first failure of writing the log or null if
+     * no write failed since the last durable batch.
+     * It's reset once the retried batch is synced
+     */
+    private IOException writeFailure = null;
+
+    /**
+     * Whether the log is being compacted at the moment
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * The time in milliseconds after that a failed
+     * compaction may be retried
+     */
+    private volatile long nextCompaction = 0;
+
+    /**
+     * The executor compacting the logs in the background
+     */
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-log-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The size in bytes the active log can grow to
+     * before it will be compacted
+     */
+    private long compactionSize;
+
+    /**
+     * The channel of the active log only used by the writer thread
+     * after the setup
+     */
+    private FileChannel logChannel;
+
+    /**
+     * The generation of the active log
+     */
+    private long generation;
+
+    /**
+     * Method sending the report store
+     * to let the accessor access the reports
+     *
+     * @param reports The store of the reports which will be sent to the accessor
+     * @throws UncheckedIOException Thrown when the snapshot or the logs can't be loaded
+     */
+    @Override
+    public void initAccessor(ReportStore reports) {
+        File logFile = this.getFile();
+        logFile.getParentFile().mkdirs();
+
+        try {
+            //Replay snapshot and logs before listening to the store so replaying will not log again
+            HashMap<UUID, List<Report>> replayed = new HashMap<>();
+            long snapshotGeneration = this.readSnapshot(this.getSnapshotFile(), replayed);
+            File oldLogFile = this.getOldLogFile();
+            long oldGeneration = -1;
+            if (oldLogFile.exists()) {
+                oldGeneration = this.readLogGeneration(oldLogFile);
+                if (oldGeneration > snapshotGeneration) {
+                    this.replayLog(oldLogFile, replayed);
+                } else {
+                    Files.delete(oldLogFile.toPath());
+                }
+            }
+
+            if (logFile.exists() && logFile.length() >= HEADER_LENGTH) {
+                this.generation = this.readLogGeneration(logFile);
+                long validLength = this.replayLog(logFile, replayed);
+                this.logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE);
+                //Cut off a torn record of a crash
+                this.logChannel.truncate(validLength);
+                this.logChannel.position(validLength);
+            } else {
+                this.openLog(Math.max(snapshotGeneration, oldGeneration) + 1);
+            }
+            replayed.values().forEach(reports::addAll);
+
+            //Finish compaction of a crashed run
+            if (oldLogFile.exists()) {
+                this.compacting.set(true);
+                this.compactionExecutor.execute(this::compact);
+            }
+        } catch (IOException exception) {
+            //Running without the log would lose every change
+            throw new UncheckedIOException("Can't load the report log " + logFile, exception);
+        }
+
+        reports.addListener(this);
+
+        Thread writerThread = new Thread(this::runWriter, "report-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Called when a report was added to the store
+     *
+     * @param report The added report
+     */
+    @Override
+    public void reportAdded(Report report) {
+        this.appendRecord(this.encodeAdd(report));
+    }
+
+    /**
+     * Called when all reports of a reported user were removed
+     * from the store
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param removed The reports which were removed
+     */
+    @Override
+    public void reportsRemoved(UUID reportedUser, List<Report> removed) {
+        this.appendRecord(ByteBuffer.allocate(17)
+                .put(DELETE_RECORD)
+                .putLong(reportedUser.getMostSignificantBits())
+                .putLong(reportedUser.getLeastSignificantBits())
+                .array());
+    }
+
+    /**
+     * Called when the reports of a reported user older
+     * than the cutoff were removed from the store
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param cutoff The time every removed report is older than
+     * @param expired The reports which were removed
+     */
+    @Override
+    public void reportsExpired(UUID reportedUser, LocalDateTime cutoff, List<Report> expired) {
+        this.appendRecord(ByteBuffer.allocate(29)
+                .put(EXPIRE_RECORD)
+                .putLong(reportedUser.getMostSignificantBits())
+                .putLong(reportedUser.getLeastSignificantBits())
+                .putLong(cutoff.toEpochSecond(ZoneOffset.UTC))
+                .putInt(cutoff.getNano())
+                .array());
+    }
+
+    /**
+     * Method to save the config when something has changed or
+     * at the end depending on the saving mode
+     * Waits until every change logged before the call is synced to the disk.
+     * Calls at the same time will share one sync
+     *
+     * @throws UncheckedIOException Thrown when writing the log has failed and wasn't retried successfully yet
+     */
+    @Override
+    public void saveConfig() {
+        this.lock.lock();
+        try {
+            long targetSequence = this.appendedSequence;
+            while (this.durableSequence < targetSequence && this.writeFailure == null) {
+                this.recordsDurable.awaitUninterruptibly();
+            }
+            if (this.writeFailure != null) {
+                throw new UncheckedIOException("Writing the report log has failed, changes may not be durable",
+                        this.writeFailure);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Method returning whether the config should be saved any time
+     * the reports update or not. This influences the behavior how often
+     * saveConfig will be called by the Report server
+     *
+     * @return Always true as saving only waits for the log to be synced
+     */
+    @Override
+    public boolean shouldSaveEverytime() {
+        return true;
+    }
+
+    /**
+     * Method to process the arguments loaded from the cli and having the set prefix
+     * Will be called by the argument parser
+     *
+     * @param arguments Map of arguments with key as the attribute and value as its value
+     */
+    @Override
+    public void loadArguments(HashMap<String, String> arguments) {
+        super.loadArguments(arguments);
+        this.compactionSize = Long.parseLong(arguments.get("compactionSize"));
+    }
+
+    /**
+     * Getter for the file ending to get the file ending
+     * of the file config later
+     *
+     * @return The file ending e.g .json
+     */
+    @Override
+    public String getFileEnding() {
+        return ".log";
+    }
+
+    /**
+     * Adding an encoded record to the pending records
+     * and wake up the writer thread
+     *
+     * @param payload The encoded record
+     */
+    private void appendRecord(byte[] payload) {
+        this.lock.lock();
+        try {
+            this.pendingRecords.add(payload);
+            this.appendedSequence++;
+            this.recordsPending.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Loop of the writer thread taking all pending records at once,
+     * writing them and syncing them with one force call.
+     * A failed batch is kept and written again with the next records
+     */
+    private void runWriter() {
+        ArrayList<byte[]> batch = new ArrayList<>();
+        while (true) {
+            long batchSequence;
+            this.lock.lock();
+            try {
+                while (this.pendingRecords.isEmpty() && batch.isEmpty()) {
+                    this.recordsPending.awaitUninterruptibly();
+                }
+                batch.addAll(this.pendingRecords);
+                this.pendingRecords.clear();
+                batchSequence = this.appendedSequence;
+            } finally {
+                this.lock.unlock();
+            }
+
+            long validLength = -1;
+            try {
+                //Only closed when opening the log of a rotation has failed so nothing was written to it
+                if (!this.logChannel.isOpen()) {
+                    this.openLog(this.generation);
+                }
+                validLength = this.logChannel.position();
+                this.writeRecords(this.logChannel, batch);
+                this.logChannel.force(false);
+            } catch (IOException exception) {
+                this.failWrite(exception, validLength);
+                continue;
+            }
+            batch.clear();
+
+            this.lock.lock();
+            try {
+                this.durableSequence = batchSequence;
+                //The batch contains every record of the failed write as it was kept
+                this.writeFailure = null;
+                this.recordsDurable.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+
+            try {
+                if (this.logChannel.size() > this.compactionSize && System.currentTimeMillis() >= this.nextCompaction
+                        && this.compacting.compareAndSet(false, true)) {
+                    //The old log of a failed compaction needs to be compacted before it can be replaced
+                    if (!this.getOldLogFile().exists()) {
+                        this.rotateLog();
+                    }
+                    this.compactionExecutor.execute(this::compact);
+                }
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                this.nextCompaction = System.currentTimeMillis() + RETRY_INTERVAL;
+                this.compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Handling a failed write of the writer thread by cutting the
+     * written part of the batch off the log so the retry doesn't follow
+     * a torn record. The failure is kept for the saves
+     *
+     * @param exception The failure of the write
+     * @param validLength The length of the log before the write or -1 if it's unknown
+     */
+    private void failWrite(IOException exception, long validLength) {
+        exception.printStackTrace();
+        this.lock.lock();
+        try {
+            if (this.writeFailure == null) {
+                this.writeFailure = exception;
+            }
+            this.recordsDurable.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (validLength >= 0) {
+            try {
+                this.logChannel.truncate(validLength);
+                this.logChannel.position(validLength);
+            } catch (IOException truncateException) {
+                truncateException.printStackTrace();
+            }
+        }
+
+        try {
+            Thread.sleep(RETRY_INTERVAL);
+        } catch (InterruptedException interruptedException) {
+            //The writer isn't interrupted so just retry earlier
+        }
+    }
+
+    /**
+     * Writing records with length and checksum
+     * into a log or snapshot
+     *
+     * @param channel The channel to write to
+     * @param batch The records to write
+     * @throws IOException Thrown when writing fails
+     */
+    private void writeRecords(FileChannel channel, List<byte[]> batch) throws IOException {
+        int size = 0;
+        for (byte[] payload : batch) {
+            size += payload.length + 8;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (byte[] payload : batch) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Moving the active log to the old log and opening
+     * a new active log with the next generation
+     * Only called by the writer thread when there is no old log
+     *
+     * @throws IOException Thrown when moving or opening fails
+     */
+    private void rotateLog() throws IOException {
+        this.logChannel.close();
+        try {
+            Files.move(this.getFile().toPath(), this.getOldLogFile().toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            //Continue appending to the active log
+            this.logChannel = FileChannel.open(this.getFile().toPath(), StandardOpenOption.WRITE);
+            this.logChannel.position(this.logChannel.size());
+            throw exception;
+        }
+        this.openLog(this.generation + 1);
+    }
+
+    /**
+     * Creating a new empty active log with
+     * the generation header
+     *
+     * @param generation The generation of the new log
+     * @throws IOException Thrown when creating the log fails
+     */
+    private void openLog(long generation) throws IOException {
+        this.generation = generation;
+        this.logChannel = FileChannel.open(this.getFile().toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(LOG_MAGIC).putLong(generation);
+        header.flip();
+        try {
+            while (header.hasRemaining()) {
+                this.logChannel.write(header);
+            }
+            this.logChannel.force(true);
+        } catch (IOException exception) {
+            //Closed so the writer creates the log again
+            this.logChannel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Merging the old log into the snapshot on the compaction thread.
+     * The reports are rebuilt from the files and not the live store so the
+     * snapshot exactly matches the logs it covers. They are only grouped
+     * in a map as the indexes of a store aren't needed for writing them
+     *
+     * The old log is only deleted after the snapshot was replaced. If compacting
+     * fails it stays and the rotation waits until it was compacted
+     */
+    private void compact() {
+        try {
+            File oldLogFile = this.getOldLogFile();
+            HashMap<UUID, List<Report>> compacted = new HashMap<>();
+            this.readSnapshot(this.getSnapshotFile(), compacted);
+            long oldGeneration = this.readLogGeneration(oldLogFile);
+            this.replayLog(oldLogFile, compacted);
+
+            //Write to temporary file first and replace the snapshot atomically
+            File temporaryFile = new File(this.getFile().getPath() + ".snapshot.tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(SNAPSHOT_MAGIC).putLong(oldGeneration);
+                header.flip();
+                channel.write(header);
+
+                ArrayList<byte[]> batch = new ArrayList<>();
+                for (List<Report> userReports : compacted.values()) {
+                    for (Report report : userReports) {
+                        batch.add(this.encodeAdd(report));
+                        if (batch.size() == 4096) {
+                            this.writeRecords(channel, batch);
+                            batch.clear();
+                        }
+                    }
+                }
+                this.writeRecords(channel, batch);
+                channel.force(true);
+            }
+            Files.move(temporaryFile.toPath(), this.getSnapshotFile().toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(oldLogFile.toPath());
+        } catch (IOException exception) {
+            exception.printStackTrace();
+            this.nextCompaction = System.currentTimeMillis() + RETRY_INTERVAL;
+        } finally {
+            this.compacting.set(false);
+        }
+    }
+
+    /**
+     * Reading the snapshot into the reports grouped by user
+     *
+     * @param snapshotFile The snapshot file
+     * @param reports The reports by reported user to add to
+     * @return The generation of the last log covered by the snapshot or -1 if there is no snapshot
+     * @throws IOException Thrown when reading fails
+     */
+    private long readSnapshot(File snapshotFile, HashMap<UUID, List<Report>> reports) throws IOException {
+        if (!snapshotFile.exists()) {
+            return -1;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Invalid snapshot file " + snapshotFile);
+            }
+            long generation = input.readLong();
+            this.replayRecords(input, reports);
+            return generation;
+        }
+    }
+
+    /**
+     * Reading the generation from the header of a log
+     *
+     * @param logFile The log file to read
+     * @return The generation of the log
+     * @throws IOException Thrown when the header is invalid
+     */
+    private long readLogGeneration(File logFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(logFile))) {
+            if (input.readInt() != LOG_MAGIC) {
+                throw new IOException("Invalid log file " + logFile);
+            }
+            return input.readLong();
+        }
+    }
+
+    /**
+     * Applying all valid records of a log to the reports
+     *
+     * @param logFile The log file to replay
+     * @param reports The reports by reported user to apply the records to
+     * @return The length of the valid part of the log
+     * @throws IOException Thrown when reading fails
+     */
+    private long replayLog(File logFile, HashMap<UUID, List<Report>> reports) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+            //Skip header
+            input.readInt();
+            input.readLong();
+            return HEADER_LENGTH + this.replayRecords(input, reports);
+        }
+    }
+
+    /**
+     * Applying records to the reports until the end or the
+     * first torn or corrupted record
+     *
+     * @param input The input positioned at the first record
+     * @param reports The reports by reported user to apply the records to
+     * @return The amount of bytes of the valid records
+     * @throws IOException Thrown when reading fails
+     */
+    private long replayRecords(DataInputStream input, HashMap<UUID, List<Report>> reports) throws IOException {
+        long validLength = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] payload;
+            try {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length <= 0) {
+                    return validLength;
+                }
+                payload = new byte[length];
+                input.readFully(payload);
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return validLength;
+                }
+            } catch (EOFException exception) {
+                return validLength;
+            }
+
+            this.applyRecord(payload, reports);
+            validLength += payload.length + 8;
+        }
+    }
+
+    /**
+     * Applying one decoded record to the reports
+     * the same way the store applied the change
+     *
+     * @param payload The payload of the record
+     * @param reports The reports by reported user to apply the record to
+     * @throws IOException Thrown when the record is invalid
+     */
+    private void applyRecord(byte[] payload, HashMap<UUID, List<Report>> reports) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte type = buffer.get();
+        UUID reportedUser = new UUID(buffer.getLong(), buffer.getLong());
+
+        switch (type) {
+            case ADD_RECORD -> {
+                UUID reporter = new UUID(buffer.getLong(), buffer.getLong());
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+                String reason = new String(payload, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+                reports.computeIfAbsent(reportedUser, user -> new ArrayList<>())
+                        .add(new Report(reportedUser, reason, reporter, timestamp));
+            }
+            case DELETE_RECORD -> reports.remove(reportedUser);
+            case EXPIRE_RECORD -> {
+                LocalDateTime cutoff = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+                reports.computeIfPresent(reportedUser, (user, userReports) -> {
+                    userReports.removeIf(report -> report.timestamp().isBefore(cutoff));
+                    //Returning null removes the user like the store does
+                    return userReports.isEmpty() ? null : userReports;
+                });
+            }
+            default -> throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * Encoding an added report as record payload
+     *
+     * @param report The report to encode
+     * @return The payload
+     */
+    private byte[] encodeAdd(Report report) {
+        byte[] reason = report.reportReason().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(45 + reason.length)
+                .put(ADD_RECORD)
+                .putLong(report.reportedUser().getMostSignificantBits())
+                .putLong(report.reportedUser().getLeastSignificantBits())
+                .putLong(report.reporter().getMostSignificantBits())
+                .putLong(report.reporter().getLeastSignificantBits())
+                .putLong(report.timestamp().toEpochSecond(ZoneOffset.UTC))
+                .putInt(report.timestamp().getNano())
+                .put(reason)
+                .array();
+    }
+
+    /**
+     * Getter for the size of the log, the old log
+     * and the snapshot which store the reports together
+     *
+     * @return The length of the files
+     */
+    @Override
+    public long getStoredSize() {
+        return super.getStoredSize() + this.getOldLogFile().length() + this.getSnapshotFile().length();
+    }
+
+    /**
+     * Getter for the log which is being compacted
+     *
+     * @return The old log file
+     */
+    private File getOldLogFile() {
+        return new File(this.getFile().getPath() + ".old");
+    }
+
+    /**
+     * Getter for the snapshot file
+     *
+     * @return The snapshot file
+     */
+    private File getSnapshotFile() {
+        String path = this.getFile().getPath();
+        return new File(path.substring(0, path.length() - this.getFileEnding().length()) + ".snapshot");
+    }
+
+}
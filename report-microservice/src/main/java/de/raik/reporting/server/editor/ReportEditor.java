@@ -1,6 +1,9 @@
 package de.raik.reporting.server.editor;
 
 import de.raik.reporting.server.accessor.oneussage.OneUsageAccessor;
+import de.raik.reporting.server.metrics.MetricsRegistry;
+import de.raik.reporting.server.retention.ReportArchive;
+import de.raik.reporting.server.sharding.ShardRing;
 
 /**
  * Abstract class represent the editors which should
@@ -28,6 +31,76 @@ public abstract class ReportEditor implements OneUsageAccessor {
         return this.updateCallback;
     }
 
+    /**
+     * The registry the editor records its metrics at
+     * which is set by the report server before the initialization
+     */
+    private MetricsRegistry metrics = new MetricsRegistry();
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    protected MetricsRegistry getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * The archive of the expired reports which is set by
+     * the report server before the initialization or null if there is none
+     */
+    private ReportArchive archive = null;
+
+    public void setArchive(ReportArchive archive) {
+        this.archive = archive;
+    }
+
+    protected ReportArchive getArchive() {
+        return this.archive;
+    }
+
+    /**
+     * Whether the editor only serves reading requests because the
+     * reports are replicated from a leader which is set by the report server
+     */
+    private boolean readOnly = false;
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    protected boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /**
+     * The url of the leader writes are redirected to if the
+     * editor is read only or an empty string to reject them
+     */
+    private String leaderUrl = "";
+
+    public void setLeaderUrl(String leaderUrl) {
+        this.leaderUrl = leaderUrl;
+    }
+
+    protected String getLeaderUrl() {
+        return this.leaderUrl;
+    }
+
+    /**
+     * The ring of the shards which is set by the report
+     * server before the initialization or null if there are none
+     */
+    private ShardRing shardRing = null;
+
+    public void setShardRing(ShardRing shardRing) {
+        this.shardRing = shardRing;
+    }
+
+    protected ShardRing getShardRing() {
+        return this.shardRing;
+    }
+
     /**
      * Method called by the report server when the whole thing gets closed to
      * disable the editor service if needed
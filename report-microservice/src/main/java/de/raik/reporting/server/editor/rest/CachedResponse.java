@@ -0,0 +1,18 @@
+package de.raik.reporting.server.editor.rest;
+
+import java.util.Map;
+
+/**
+ * A record representing a serialized response stored in
+ * the response cache to send it again without serializing
+ *
+ * Attributes:
+ * version - The version of the report store the response was created at
+ * headers - Additional headers of the response
+ * body - The serialized body of the response
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record CachedResponse(long version, Map<String, String> headers, byte[] body) {
+}
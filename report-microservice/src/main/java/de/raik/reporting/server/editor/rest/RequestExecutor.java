@@ -0,0 +1,228 @@
+package de.raik.reporting.server.editor.rest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor of the http server running the requests
+ * either on a virtual thread per request or on a bounded pool
+ * with a bounded queue
+ *
+ * Requests which don't fit into the full queue of the pool are
+ * handed to a single rejection thread. Requests running on it should
+ * only be answered with 503 which is checked with isRejecting
+ * Virtual threads need Java 21 so the bounded pool is used on older versions
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class RequestExecutor implements Executor {
+
+    /**
+     * The name of the mode running every
+     * request on its own virtual thread
+     */
+    public static final String VIRTUAL_MODE = "virtual";
+
+    /**
+     * The name of the mode running the requests
+     * on the bounded pool
+     */
+    public static final String BOUNDED_MODE = "bounded";
+
+    /**
+     * The executor running the requests
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The pool of the bounded mode or null
+     * when virtual threads are used
+     */
+    private final ThreadPoolExecutor threadPool;
+
+    /**
+     * The executor answering rejected requests
+     * or null when virtual threads are used
+     */
+    private final ThreadPoolExecutor rejectionExecutor;
+
+    /**
+     * The thread of the rejection executor
+     */
+    private volatile Thread rejectionThread;
+
+    /**
+     * The amount of requests which are queued or running
+     */
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+
+    /**
+     * The amount of requests rejected because
+     * the queue was full
+     */
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    /**
+     * Constructor creating the executor of the mode
+     *
+     * @param mode The mode which is either virtual or bounded
+     * @param threads The amount of threads of the bounded pool
+     * @param queueSize The amount of requests waiting for a thread of the bounded pool
+     * @throws IllegalArgumentException Thrown when the mode is unknown
+     */
+    public RequestExecutor(String mode, int threads, int queueSize) {
+        ExecutorService virtualExecutor = switch (mode.toLowerCase()) {
+            case VIRTUAL_MODE -> this.createVirtualExecutor();
+            case BOUNDED_MODE -> null;
+            default -> throw new IllegalArgumentException("Unknown executor mode " + mode);
+        };
+
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.threadPool = null;
+            this.rejectionExecutor = null;
+            return;
+        }
+
+        //Rejected requests are answered on the rejection thread which has a bounded queue as well
+        this.rejectionExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    this.rejectionThread = new Thread(runnable, "report-rest-rejection");
+                    this.rejectionThread.setDaemon(true);
+                    return this.rejectionThread;
+                });
+        this.threadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), this.createThreadFactory(), (runnable, pool) -> {
+                    this.rejectedRequests.increment();
+                    this.rejectionExecutor.execute(runnable);
+                });
+        this.executor = this.threadPool;
+    }
+
+    /**
+     * Running the request on the executor
+     *
+     * @param command The request to run
+     * @throws RejectedExecutionException Thrown when even the rejection queue is full
+     *                                    so the http server closes the connection
+     */
+    @Override
+    public void execute(Runnable command) {
+        this.requestsInFlight.incrementAndGet();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    this.requestsInFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            this.requestsInFlight.decrementAndGet();
+            throw exception;
+        }
+    }
+
+    /**
+     * Whether the current thread is the rejection thread
+     * so the request should only be answered with 503
+     *
+     * @return Whether the request was rejected
+     */
+    public boolean isRejecting() {
+        return Thread.currentThread() == this.rejectionThread;
+    }
+
+    /**
+     * Getting the mode of the executor
+     * which may differ from the configured one
+     *
+     * @return The mode of the executor
+     */
+    public String getMode() {
+        return this.threadPool == null ? VIRTUAL_MODE : BOUNDED_MODE;
+    }
+
+    /**
+     * Getting the amount of requests waiting
+     * for a thread of the bounded pool
+     *
+     * @return The queue depth which is 0 for virtual threads
+     */
+    public int getQueueDepth() {
+        return this.threadPool == null ? 0 : this.threadPool.getQueue().size();
+    }
+
+    /**
+     * Getting the amount of requests waiting
+     * or running
+     *
+     * @return The amount of requests in flight
+     */
+    public int getRequestsInFlight() {
+        return this.requestsInFlight.get();
+    }
+
+    /**
+     * Getting the amount of requests rejected
+     * since the start
+     *
+     * @return The amount of rejected requests
+     */
+    public long getRejectedRequests() {
+        return this.rejectedRequests.sum();
+    }
+
+    /**
+     * Stopping the executor and waiting
+     * for the running requests
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        if (this.rejectionExecutor != null) {
+            this.rejectionExecutor.shutdown();
+        }
+
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creating the factory of the numbered threads
+     * of the bounded pool
+     *
+     * @return The thread factory
+     */
+    private ThreadFactory createThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> new Thread(runnable, "report-rest-" + threadNumber.incrementAndGet());
+    }
+
+    /**
+     * Creating an executor starting a virtual thread per task
+     * using reflection as the method only exists since Java 21
+     *
+     * @return The executor or null if virtual threads aren't available
+     */
+    private ExecutorService createVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            System.out.println("Virtual threads need Java 21. Using the bounded executor instead.");
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.raik.reporting.server.editor.rest;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of serialized responses mapped by a key like the
+ * query of the request. Responses are only returned while the
+ * store still has the version they were created at
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ResponseCache {
+
+    /**
+     * The maximum amount of cached responses before
+     * the cache will be cleared
+     */
+    private static final int MAX_ENTRIES = 256;
+
+    /**
+     * The cached responses mapped by their key
+     */
+    private final ConcurrentHashMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Getting a cached response if it was created
+     * at the given version
+     *
+     * @param key The key of the response
+     * @param version The current version of the store
+     * @return The cached response or null if there is no up to date one
+     */
+    public CachedResponse get(String key, long version) {
+        CachedResponse response = this.responses.get(key);
+        return response != null && response.version() == version ? response : null;
+    }
+
+    /**
+     * Putting a response into the cache
+     * replacing older responses of the key
+     *
+     * @param key The key of the response
+     * @param response The response to cache
+     */
+    public void put(String key, CachedResponse response) {
+        //Clearing everything is enough as the cache gets cleared on every change anyway
+        if (this.responses.size() >= MAX_ENTRIES) {
+            this.responses.clear();
+        }
+
+        this.responses.put(key, response);
+    }
+
+    /**
+     * Removing all cached responses
+     * when the reports have changed
+     */
+    public void invalidate() {
+        this.responses.clear();
+    }
+
+}
@@ -1,24 +1,59 @@
 package de.raik.reporting.server.editor.rest;
 
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import de.raik.reporting.server.editor.ReportEditor;
+import de.raik.reporting.server.editor.rest.compression.CompressingExchange;
+import de.raik.reporting.server.editor.rest.compression.DeflaterPool;
+import de.raik.reporting.server.editor.rest.events.EventBroadcaster;
+import de.raik.reporting.server.editor.rest.handlers.ArchivedReportsHandler;
+import de.raik.reporting.server.editor.rest.handlers.BatchReportsHandler;
+import de.raik.reporting.server.editor.rest.handlers.ChangedReportsHandler;
 import de.raik.reporting.server.editor.rest.handlers.EditReportsHandler;
 import de.raik.reporting.server.editor.rest.handlers.GetReportsHandler;
-import de.raik.reporting.server.editor.rest.handlers.ReportHttpHandler;
-import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.editor.rest.handlers.ShardedReportsHandler;
+import de.raik.reporting.server.editor.rest.handlers.StreamReportsHandler;
+import de.raik.reporting.server.editor.rest.handlers.TopReportsHandler;
+import de.raik.reporting.server.editor.rest.ingestion.DuplicateFilter;
+import de.raik.reporting.server.editor.rest.ingestion.ReporterRateLimiter;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.editor.rest.sharding.DeletedUsers;
+import de.raik.reporting.server.editor.rest.sharding.ShardClient;
+import de.raik.reporting.server.metrics.Counter;
+import de.raik.reporting.server.metrics.Histogram;
+import de.raik.reporting.server.metrics.MetricFamily;
+import de.raik.reporting.server.report.ReportStore;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.concurrent.Executors;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * A rest
  */
 public class RestEditor extends ReportEditor {
 
+    /**
+     * The methods used as metric label. Others are
+     * counted as OTHER to keep the amount of labels small
+     */
+    private static final Set<String> METRIC_METHODS = Set.of("GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS");
+
+    /**
+     * The route label of requests which
+     * were answered before matching a route
+     */
+    private static final String UNMATCHED_ROUTE = "unmatched";
+
     /**
      * The http server used for the rest client
      * there will be one main handler in here
@@ -27,10 +62,10 @@ public class RestEditor extends ReportEditor {
     private HttpServer httpServer;
 
     /**
-     * The collection of the reports to
+     * The store of the reports to
      * access them
      */
-    private HashSet<Report> reports;
+    private ReportStore reports;
 
     /**
      * The port of the web rest server
@@ -45,38 +80,200 @@ public class RestEditor extends ReportEditor {
     private String authKey;
 
     /**
-     * List of report handlers to add handlers for the functionality
+     * The mode of the executor running the requests
+     * which is either virtual or bounded
+     */
+    private String executorMode;
+
+    /**
+     * The amount of threads of the bounded executor
+     */
+    private int threads;
+
+    /**
+     * The amount of requests waiting for a thread
+     * of the bounded executor before they get rejected
+     */
+    private int queueSize;
+
+    /**
+     * The seconds rejected clients should wait
+     * before retrying sent as Retry-After
+     */
+    private String retryAfter;
+
+    /**
+     * The filter collapsing duplicate reports
+     * of the same reporter about the same user
+     */
+    private DuplicateFilter duplicateFilter;
+
+    /**
+     * The limiter of the reports per reporter
+     */
+    private ReporterRateLimiter rateLimiter;
+
+    /**
+     * The broadcaster streaming the changes
+     * of the reports as events
+     */
+    private EventBroadcaster broadcaster;
+
+    /**
+     * Whether /metrics needs the auth key
+     * like every other route
+     */
+    private boolean metricsAuth;
+
+    /**
+     * The durations of the requests by route and method
+     */
+    private MetricFamily<Histogram> requestDurations;
+
+    /**
+     * The amount of responses by status code
+     */
+    private MetricFamily<Counter> responseCodes;
+
+    /**
+     * The executor running the requests
+     */
+    private RequestExecutor requestExecutor;
+
+    /**
+     * Cache of the serialized responses of the
+     * report listings
      */
-    private final HashSet<ReportHttpHandler> reportHandlers = new HashSet<>();
+    private final ResponseCache responseCache = new ResponseCache();
 
     /**
-     * Method sending the reports hashset
+     * The minimum length of a response to compress it
+     * or -1 if responses shouldn't be compressed
+     */
+    private int compressionThreshold;
+
+    /**
+     * Pool of deflaters writing raw deflate data for gzip
+     */
+    private final DeflaterPool gzipDeflaters = new DeflaterPool(16, true);
+
+    /**
+     * Pool of deflaters writing zlib wrapped data for deflate
+     */
+    private final DeflaterPool deflateDeflaters = new DeflaterPool(16, false);
+
+    /**
+     * The router dispatching the requests to the
+     * routes of the report handlers
+     */
+    private final RequestRouter router = new RequestRouter();
+
+    /**
+     * The router dispatching the requests of clients which depend
+     * on other shards or null if the reports aren't sharded
+     */
+    private RequestRouter shardRouter = null;
+
+    /**
+     * Method sending the report store
      * to let the accessor access the reports
      *
-     * @param reports The collections of the reports which will be sent to the accessor
+     * @param reports The store of the reports which will be sent to the accessor
      */
     @Override
-    public void initAccessor(HashSet<Report> reports) {
+    public void initAccessor(ReportStore reports) {
         this.reports = reports;
 
-        //Add handlers
-        this.reportHandlers.add(new GetReportsHandler(this.reports));
-        this.reportHandlers.add(new EditReportsHandler(this.reports, this.getUpdateCallback()));
+        //Add handlers and clear the cached responses where reports get updated
+        Runnable updateCallback = this.getUpdateCallback();
+        Runnable invalidatingCallback = () -> {
+            this.responseCache.invalidate();
+            updateCallback.run();
+        };
+        DeletedUsers deletedUsers = this.getShardRing() != null ? new DeletedUsers() : null;
+        new GetReportsHandler(this.reports, this.responseCache).registerRoutes(this.router);
+        new EditReportsHandler(this.reports, invalidatingCallback, this.duplicateFilter, this.rateLimiter, deletedUsers)
+                .registerRoutes(this.router);
+        BatchReportsHandler batchHandler = new BatchReportsHandler(this.reports, invalidatingCallback, this.duplicateFilter,
+                this.rateLimiter);
+        batchHandler.registerRoutes(this.router);
+        new TopReportsHandler(this.reports).registerRoutes(this.router);
+        new ChangedReportsHandler(this.reports).registerRoutes(this.router);
+        this.reports.addListener(this.broadcaster);
+        new StreamReportsHandler(this.reports, this.broadcaster, this.retryAfter).registerRoutes(this.router);
+        if (this.getArchive() != null) {
+            new ArchivedReportsHandler(this.reports, this.getArchive()).registerRoutes(this.router);
+        }
+        this.router.route("GET", "/executor", this::sendExecutorStatus)
+                .route("GET", "/metrics", this::sendMetrics);
+        if (this.getShardRing() != null) {
+            this.shardRouter = new RequestRouter();
+            ShardedReportsHandler shardedHandler = new ShardedReportsHandler(this.reports, this.getShardRing(),
+                    new ShardClient(this.getShardRing().getSelf(), this.authKey), this.router, batchHandler, deletedUsers,
+                    invalidatingCallback);
+            shardedHandler.registerRoutes(this.shardRouter);
+            shardedHandler.registerShardRoutes(this.router);
+        }
 
-        //Setting up http server
+        //Setting up the executor of the configured mode and the http server
+        this.requestExecutor = new RequestExecutor(this.executorMode, this.threads, this.queueSize);
+        this.registerMetrics();
         try {
-            this.httpServer = HttpServer.create(new InetSocketAddress(this.port), 0);
-            //Creating one context handler to do uri handling manually
-            this.httpServer.createContext("/", this::handle);
-            //Setting 10 threads pool should be enough for this little microservice
-            this.httpServer.setExecutor(Executors.newFixedThreadPool(10));
-
-            this.httpServer.start();
+            this.startServer(this.port, this.requestExecutor);
         } catch (IOException exception) {
             exception.printStackTrace();
         }
     }
 
+    /**
+     * Registering the metrics of the requests
+     * and the request executor
+     */
+    private void registerMetrics() {
+        this.requestDurations = this.getMetrics().histograms("report_http_request_duration_seconds",
+                "Duration of the http requests", "route", "method");
+        this.responseCodes = this.getMetrics().counters("report_http_responses_total",
+                "Amount of http responses by status code", "code");
+        this.getMetrics().gauge("report_http_requests_in_flight", "Requests waiting or running",
+                this.requestExecutor::getRequestsInFlight);
+        this.getMetrics().gauge("report_http_queue_depth", "Requests waiting for a thread",
+                this.requestExecutor::getQueueDepth);
+        this.getMetrics().gauge("report_http_rejected_requests", "Requests rejected because the queue was full",
+                this.requestExecutor::getRejectedRequests);
+        this.getMetrics().gauge("report_ingestion_duplicates", "Reports collapsed as duplicates in the window",
+                this.duplicateFilter::getSuppressed);
+        this.getMetrics().gauge("report_ingestion_rate_limited", "Reports rejected because the reporter was over the limit",
+                this.rateLimiter::getLimited);
+        this.getMetrics().gauge("report_stream_subscribers", "Clients connected to the event stream",
+                this.broadcaster::getSubscriberCount);
+        this.getMetrics().gauge("report_stream_overflows", "Stream clients disconnected because they were too slow",
+                this.broadcaster::getOverflows);
+    }
+
+    /**
+     * Starting the http server which passes every request to
+     * the handle method. Can be overridden to use another server
+     *
+     * @param port The port to listen on
+     * @param executor The executor to run the requests on
+     * @throws IOException Thrown when the server can't be started
+     */
+    protected void startServer(int port, RequestExecutor executor) throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        //Creating one context handler to do uri handling manually
+        this.httpServer.createContext("/", this::handle);
+        this.httpServer.setExecutor(executor);
+
+        this.httpServer.start();
+    }
+
+    /**
+     * Stopping the http server started by startServer
+     */
+    protected void stopServer() {
+        this.httpServer.stop(1);
+    }
+
     /**
      * Getter for the prefix for arguments in the command line
      * to parse arguments to the accessor argument: prefix.argument=value
@@ -99,6 +296,17 @@ public class RestEditor extends ReportEditor {
     public void loadArguments(HashMap<String, String> arguments) {
         this.port = Integer.parseInt(arguments.get("port"));
         this.authKey = arguments.get("authKey");
+        this.compressionThreshold = Integer.parseInt(arguments.get("compression"));
+        this.executorMode = arguments.get("executor");
+        this.threads = Integer.parseInt(arguments.get("threads"));
+        this.queueSize = Integer.parseInt(arguments.get("queueSize"));
+        this.retryAfter = arguments.get("retryAfter");
+        this.metricsAuth = Boolean.parseBoolean(arguments.get("metricsAuth"));
+        this.duplicateFilter = new DuplicateFilter(Long.parseLong(arguments.get("duplicateWindow")));
+        this.rateLimiter = new ReporterRateLimiter(Integer.parseInt(arguments.get("reporterLimit")),
+                Integer.parseInt(arguments.get("reporterBurst")));
+        this.broadcaster = new EventBroadcaster(Integer.parseInt(arguments.get("streamBuffer")),
+                Integer.parseInt(arguments.get("streamRetained")), Integer.parseInt(arguments.get("streamSubscribers")));
     }
 
     /**
@@ -107,49 +315,171 @@ public class RestEditor extends ReportEditor {
      */
     @Override
     public void shutdown() {
-        this.httpServer.stop(1);
+        this.broadcaster.shutdown();
+        this.stopServer();
+        this.requestExecutor.shutdown();
     }
 
     /**
      * Handle http request to use the right urls
      * and handle the right requests
      * It will get called by the http server
+     * The duration and the status code of every request are recorded
      *
      * @param httpExchange The http exchange state to access the http values
      */
     public void handle(HttpExchange httpExchange) throws IOException {
-        //Check for Authentication
-        if (!this.authKey.isEmpty()) {
+        long start = System.nanoTime();
+        String route = UNMATCHED_ROUTE;
+        try {
+            //Sending service unavailable fast if the queue was full
+            if (this.requestExecutor.isRejecting()) {
+                httpExchange.getResponseHeaders().add("Retry-After", this.retryAfter);
+                httpExchange.sendResponseHeaders(503, -1);
+                httpExchange.close();
+                return;
+            }
+
+            //Events are sent one by one so the stream can't be compressed
+            boolean streamRequest = StreamReportsHandler.ROUTE.equals(this.router.findRoute(httpExchange));
+            route = this.handleRequest(streamRequest ? httpExchange : this.negotiateCompression(httpExchange));
+        } finally {
+            String method = httpExchange.getRequestMethod().toUpperCase(Locale.ROOT);
+            this.requestDurations.labels(route, METRIC_METHODS.contains(method) ? method : "OTHER")
+                    .record(System.nanoTime() - start);
+            this.responseCodes.labels(String.valueOf(httpExchange.getResponseCode())).increment();
+        }
+    }
+
+    /**
+     * Handle the request after the exchange was wrapped
+     * for compression by checking the authentication and
+     * using the matching handler
+     *
+     * @param httpExchange The http exchange state to access the http values
+     * @return The matched route or unmatched if no route was used
+     */
+    private String handleRequest(HttpExchange httpExchange) throws IOException {
+        //Check for Authentication which can be skipped for the metrics
+        boolean metricsRequest = !this.metricsAuth && httpExchange.getRequestURI().getPath().equals("/metrics");
+        if (!this.authKey.isEmpty() && !metricsRequest) {
             // Send Unauthorized if no Authorization is available
             if (!httpExchange.getRequestHeaders().containsKey("Authorization")) {
                 httpExchange.sendResponseHeaders(401, 0);
                 httpExchange.close();
-                return;
+                return UNMATCHED_ROUTE;
             }
 
             //Check for the right token and send Permission denied if token is invalid
             if (!httpExchange.getRequestHeaders().getFirst("Authorization").equals("Basic " + this.authKey)) {
                 httpExchange.sendResponseHeaders(403, 0);
                 httpExchange.close();
-                return;
+                return UNMATCHED_ROUTE;
+            }
+        }
+
+        //Redirecting writes to the leader or rejecting them if the reports are replicated
+        String method = httpExchange.getRequestMethod();
+        if (this.isReadOnly() && !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")) {
+            if (this.getLeaderUrl().isEmpty()) {
+                httpExchange.sendResponseHeaders(403, -1);
+            } else {
+                String query = httpExchange.getRequestURI().getRawQuery();
+                httpExchange.getResponseHeaders().add("Location", this.getLeaderUrl()
+                        + httpExchange.getRequestURI().getRawPath() + (query != null ? "?" + query : ""));
+                httpExchange.sendResponseHeaders(307, -1);
             }
+            httpExchange.close();
+            return UNMATCHED_ROUTE;
+        }
+
+        //Routing requests of clients over the shards while requests of other shards use the own reports
+        boolean shardRequest = httpExchange.getRequestHeaders().containsKey(ShardClient.SHARD_HEADER);
+        RequestRouter router = this.shardRouter != null && !shardRequest && this.shardRouter.matches(httpExchange)
+                ? this.shardRouter : this.router;
+        String route = router.dispatch(httpExchange);
+        return route != null ? route : UNMATCHED_ROUTE;
+    }
+
+    /**
+     * Sending the state of the request executor as json
+     * to watch the queue depth and the rejected requests
+     *
+     * @param httpExchange The http exchange of the request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void sendExecutorStatus(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            writer.beginObject()
+                    .name("mode").value(this.requestExecutor.getMode())
+                    .name("queueDepth").value(this.requestExecutor.getQueueDepth())
+                    .name("queueSize").value(this.queueSize)
+                    .name("inFlight").value(this.requestExecutor.getRequestsInFlight())
+                    .name("rejected").value(this.requestExecutor.getRejectedRequests())
+                    .endObject();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Sending all metrics of the server
+     * in the prometheus text format
+     *
+     * @param httpExchange The http exchange of the request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void sendMetrics(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        httpExchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8))) {
+            this.getMetrics().write(writer);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Wrapping the exchange to compress the response if the
+     * client accepts gzip or deflate and compression is enabled
+     *
+     * @param httpExchange The exchange of the request
+     * @return The compressing exchange or the exchange itself if nothing is accepted
+     */
+    private HttpExchange negotiateCompression(HttpExchange httpExchange) {
+        String acceptEncoding = httpExchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (this.compressionThreshold < 0 || acceptEncoding == null) {
+            return httpExchange;
+        }
+
+        //Collecting the accepted encodings without the ones having quality 0
+        HashSet<String> encodings = new HashSet<>();
+        for (String encoding : acceptEncoding.toLowerCase().split(",")) {
+            String[] encodingParameters = encoding.split(";");
+            boolean rejected = Arrays.stream(encodingParameters).skip(1).map(String::trim)
+                    .anyMatch(parameter -> parameter.matches("q=0(\\.0*)?"));
+            if (!rejected) {
+                encodings.add(encodingParameters[0].trim());
+            }
+        }
+
+        if (encodings.contains("gzip") || encodings.contains("*")) {
+            return new CompressingExchange(httpExchange, this.gzipDeflaters, true, this.compressionThreshold);
+        }
+        if (encodings.contains("deflate")) {
+            return new CompressingExchange(httpExchange, this.deflateDeflaters, false, this.compressionThreshold);
         }
 
-        this.reportHandlers.stream().filter(handler -> handler.matches(httpExchange.getRequestURI().toString()))
-                .findAny().ifPresentOrElse(handler -> {
-                    try {
-                        handler.handle(httpExchange);
-                    } catch (IOException exception) {
-                        exception.printStackTrace();
-                    }
-                }, () -> {
-                    //Sending 404 if not found
-                    try {
-                        httpExchange.sendResponseHeaders(404, 0);
-                    } catch (IOException exception) {
-                        exception.printStackTrace();
-                    }
-                    httpExchange.close();
-                });
+        return httpExchange;
     }
 }
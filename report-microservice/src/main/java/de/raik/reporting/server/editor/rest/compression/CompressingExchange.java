@@ -0,0 +1,187 @@
+package de.raik.reporting.server.editor.rest.compression;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * Http exchange wrapping another exchange to compress
+ * the response body. Responses with a known length below the
+ * threshold and responses without body are sent uncompressed
+ * Responses with unknown length are always compressed
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class CompressingExchange extends HttpExchange {
+
+    /**
+     * The wrapped exchange
+     */
+    private final HttpExchange exchange;
+
+    /**
+     * The pool to borrow the deflater from
+     */
+    private final DeflaterPool pool;
+
+    /**
+     * Whether to compress with gzip or deflate
+     */
+    private final boolean gzip;
+
+    /**
+     * The minimum length of a response to compress it
+     */
+    private final int threshold;
+
+    /**
+     * The compressing stream of the response body
+     * if the response gets compressed
+     */
+    private CompressingOutputStream compressingStream = null;
+
+    /**
+     * Constructor to wrap the exchange
+     *
+     * @param exchange The exchange to wrap
+     * @param pool The deflater pool matching the encoding
+     * @param gzip Whether to compress with gzip or deflate
+     * @param threshold The minimum length of a response to compress it
+     */
+    public CompressingExchange(HttpExchange exchange, DeflaterPool pool, boolean gzip, int threshold) {
+        this.exchange = exchange;
+        this.pool = pool;
+        this.gzip = gzip;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sending the response headers and setting up the compression
+     * if the response should be compressed
+     *
+     * @param responseCode The response code
+     * @param responseLength The length of the response, 0 for unknown or -1 for no body
+     * @throws IOException Thrown when sending fails
+     */
+    @Override
+    public void sendResponseHeaders(int responseCode, long responseLength) throws IOException {
+        if (responseLength < 0 || (responseLength > 0 && responseLength < this.threshold) || responseCode == 204
+                || responseCode == 304 || this.exchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+            this.exchange.sendResponseHeaders(responseCode, responseLength);
+            return;
+        }
+
+        //Length is unknown after compressing
+        this.exchange.getResponseHeaders().set("Content-Encoding", this.gzip ? "gzip" : "deflate");
+        this.exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        this.exchange.sendResponseHeaders(responseCode, 0);
+        this.compressingStream = new CompressingOutputStream(this.exchange.getResponseBody(), this.pool, this.gzip);
+    }
+
+    /**
+     * Getter for the response body which compresses
+     * if the response gets compressed
+     *
+     * @return The stream of the response body
+     */
+    @Override
+    public OutputStream getResponseBody() {
+        return this.compressingStream != null ? this.compressingStream : this.exchange.getResponseBody();
+    }
+
+    /**
+     * Closing the exchange after finishing the
+     * compressed body
+     */
+    @Override
+    public void close() {
+        if (this.compressingStream != null) {
+            try {
+                this.compressingStream.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        }
+
+        this.exchange.close();
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return this.exchange.getRequestHeaders();
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return this.exchange.getResponseHeaders();
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return this.exchange.getRequestURI();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return this.exchange.getRequestMethod();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return this.exchange.getHttpContext();
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return this.exchange.getRequestBody();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return this.exchange.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return this.exchange.getResponseCode();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return this.exchange.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return this.exchange.getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return this.exchange.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        this.exchange.setAttribute(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream inputStream, OutputStream outputStream) {
+        this.exchange.setStreams(inputStream, outputStream);
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return this.exchange.getPrincipal();
+    }
+
+}
@@ -0,0 +1,120 @@
+package de.raik.reporting.server.editor.rest.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Output stream compressing with a pooled deflater
+ * either as gzip or deflate. The deflater is given back to
+ * the pool when the stream is closed
+ *
+ * GZIPOutputStream can't be used as it always creates its own deflater
+ * so the gzip header and trailer are written here
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class CompressingOutputStream extends DeflaterOutputStream {
+
+    /**
+     * The gzip header without file name, time and extra fields
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /**
+     * The pool the deflater is from
+     */
+    private final DeflaterPool pool;
+
+    /**
+     * The checksum of the uncompressed data for the gzip trailer
+     * or null when writing deflate
+     */
+    private final CRC32 crc;
+
+    /**
+     * Whether the stream has been closed already
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructor to create the stream and writing the
+     * gzip header if needed
+     *
+     * @param outputStream The stream to write the compressed data to
+     * @param pool The pool to borrow the deflater from
+     * @param gzip Whether to write gzip instead of deflate. The pool needs to have no wrap
+     *             deflaters for gzip
+     * @throws IOException Thrown when writing the header fails
+     */
+    public CompressingOutputStream(OutputStream outputStream, DeflaterPool pool, boolean gzip) throws IOException {
+        super(outputStream, pool.borrow(), 8192);
+        this.pool = pool;
+        this.crc = gzip ? new CRC32() : null;
+
+        if (gzip) {
+            outputStream.write(GZIP_HEADER);
+        }
+    }
+
+    /**
+     * Writing bytes to compress them
+     *
+     * @param bytes The data
+     * @param offset The start offset in the data
+     * @param length The amount of bytes to write
+     * @throws IOException Thrown when writing fails
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        super.write(bytes, offset, length);
+        if (this.crc != null) {
+            this.crc.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Finishing the compressed data and writing
+     * the gzip trailer if needed
+     *
+     * @throws IOException Thrown when writing fails
+     */
+    @Override
+    public void finish() throws IOException {
+        if (this.def.finished()) {
+            return;
+        }
+
+        super.finish();
+        if (this.crc != null) {
+            int crcValue = (int) this.crc.getValue();
+            int size = this.def.getTotalIn();
+            this.out.write(new byte[]{(byte) crcValue, (byte) (crcValue >> 8), (byte) (crcValue >> 16), (byte) (crcValue >> 24),
+                    (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)});
+        }
+    }
+
+    /**
+     * Finishing and closing the stream and giving
+     * the deflater back to the pool
+     *
+     * @throws IOException Thrown when writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.finish();
+            this.out.close();
+        } finally {
+            this.pool.giveBack(this.def);
+        }
+    }
+
+}
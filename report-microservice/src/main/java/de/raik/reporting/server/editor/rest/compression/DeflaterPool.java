@@ -0,0 +1,62 @@
+package de.raik.reporting.server.editor.rest.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of deflaters to reuse them between responses
+ * as every deflater holds a native zlib context which is
+ * expensive to create and only freed when ending it
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class DeflaterPool {
+
+    /**
+     * The deflaters which are not used at the moment
+     */
+    private final ArrayBlockingQueue<Deflater> deflaters;
+
+    /**
+     * Whether the deflaters write raw deflate data
+     * without zlib header as needed for gzip
+     */
+    private final boolean noWrap;
+
+    /**
+     * Constructor to create the pool
+     *
+     * @param size The maximum amount of idle deflaters kept in the pool
+     * @param noWrap Whether the deflaters should write raw data without zlib header
+     */
+    public DeflaterPool(int size, boolean noWrap) {
+        this.deflaters = new ArrayBlockingQueue<>(size);
+        this.noWrap = noWrap;
+    }
+
+    /**
+     * Taking a deflater from the pool or creating
+     * a new one if the pool is empty
+     *
+     * @return The deflater to use
+     */
+    public Deflater borrow() {
+        Deflater deflater = this.deflaters.poll();
+        return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, this.noWrap);
+    }
+
+    /**
+     * Giving back a deflater to the pool. It will be
+     * ended if the pool is full already
+     *
+     * @param deflater The deflater which isn't used anymore
+     */
+    public void giveBack(Deflater deflater) {
+        deflater.reset();
+        if (!this.deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,331 @@
+package de.raik.reporting.server.editor.rest.events;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCodec;
+import de.raik.reporting.server.report.ReportStoreListener;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broadcaster pushing the changes of the store as server-sent events
+ * to every subscriber of the stream
+ *
+ * Every event is formatted once when the store changes and the same frame
+ * is added to the buffers of all subscribers. The last events are retained
+ * so a client reconnecting with the id of the last event it received gets the
+ * missed ones first. If they aren't retained anymore the client gets a
+ * resync event and should get all reports again
+ *
+ * Events:
+ * add - The added report
+ * delete - The uuid of the user whose reports were removed and their amount.
+ *          Expired reports are deleted with the time they were older than
+ * resync - Sent instead of the missed events if they aren't retained
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class EventBroadcaster implements ReportStoreListener {
+
+    /**
+     * The seconds between two comments keeping
+     * the streams open and finding closed ones
+     */
+    private static final long HEARTBEAT_INTERVAL = 15;
+
+    /**
+     * The comment sent as heartbeat
+     */
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The first frame of every stream setting the reconnect delay of the client.
+     * Some servers only send the headers with the first bytes of the body
+     */
+    private static final byte[] OPENING = ": connected\nretry: 5000\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The maximum amount of frames of a subscriber
+     * which weren't written yet
+     */
+    private final int bufferSize;
+
+    /**
+     * The amount of the last events retained
+     * for reconnecting clients
+     */
+    private final int retainedEvents;
+
+    /**
+     * The maximum amount of subscribers
+     */
+    private final int maxSubscribers;
+
+    /**
+     * The codec to format the uuids and timestamps
+     */
+    private final ReportCodec codec = new ReportCodec();
+
+    /**
+     * The frames of the last events
+     * ordered by their id
+     */
+    private final ArrayDeque<byte[]> retained = new ArrayDeque<>();
+
+    /**
+     * The id of the last event. Starting at the time of the start
+     * so the ids of a former run are always older and an id of it
+     * gets a resync instead of replaying the wrong events
+     */
+    private long lastEventId = System.currentTimeMillis() * 1_000_000;
+
+    /**
+     * The connected subscribers
+     */
+    private final Set<EventSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The amount of subscribers disconnected
+     * because their buffer was full
+     */
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * The threads writing the events. A thread is only used while
+     * a subscriber has events so there are never more threads than subscribers
+     */
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "report-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The thread sending the heartbeats
+     */
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor to create the broadcaster
+     *
+     * @param bufferSize The maximum amount of events of a subscriber which weren't written yet
+     * @param retainedEvents The amount of the last events retained for reconnecting clients
+     * @param maxSubscribers The maximum amount of subscribers
+     */
+    public EventBroadcaster(int bufferSize, int retainedEvents, int maxSubscribers) {
+        this.bufferSize = bufferSize;
+        this.retainedEvents = retainedEvents;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat.scheduleWithFixedDelay(() -> this.subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)),
+                HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Subscribing an exchange which sent its headers already
+     * to the events after the last event id
+     *
+     * @param exchange The exchange of the stream
+     * @param lastEventId The id of the last event the client received or null for new clients
+     * @return Whether the exchange was subscribed which fails if there are too many subscribers
+     */
+    public boolean subscribe(HttpExchange exchange, Long lastEventId) {
+        if (this.subscribers.size() >= this.maxSubscribers) {
+            return false;
+        }
+
+        EventSubscriber subscriber;
+        synchronized (this) {
+            //Replaying the missed events or asking for a resync if they aren't retained
+            List<byte[]> replay = new ArrayList<>();
+            replay.add(OPENING);
+            if (lastEventId != null && lastEventId != this.lastEventId) {
+                long firstRetained = this.lastEventId - this.retained.size() + 1;
+                if (lastEventId < firstRetained - 1 || lastEventId > this.lastEventId) {
+                    replay.add(this.frame(this.lastEventId, "resync", "{}"));
+                } else {
+                    this.retained.stream().skip(lastEventId - firstRetained + 1).forEach(replay::add);
+                }
+            }
+
+            subscriber = new EventSubscriber(exchange, replay, this.bufferSize, this.writers, this);
+            this.subscribers.add(subscriber);
+        }
+
+        //Writing the opening and the missed events right away
+        subscriber.schedule();
+        return true;
+    }
+
+    /**
+     * Counting a subscriber disconnected
+     * because its buffer was full
+     */
+    void overflowed() {
+        this.overflows.increment();
+    }
+
+    /**
+     * Removing a disconnected subscriber
+     *
+     * @param subscriber The subscriber to remove
+     */
+    void remove(EventSubscriber subscriber) {
+        this.subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void reportAdded(Report report) {
+        char[] buffer = new char[Math.max(ReportCodec.UUID_LENGTH, ReportCodec.MAX_TIMESTAMP_LENGTH)];
+        this.publish("add", this.json(writer -> writer.beginObject()
+                .name("uuid").value(new String(buffer, 0, this.codec.formatUUID(report.reportedUser(), buffer, 0)))
+                .name("reason").value(report.reportReason())
+                .name("reporter").value(new String(buffer, 0, this.codec.formatUUID(report.reporter(), buffer, 0)))
+                .name("date").value(new String(buffer, 0, this.codec.formatTimestamp(report.timestamp(), buffer, 0)))
+                .endObject()));
+    }
+
+    @Override
+    public void reportsRemoved(UUID reportedUser, List<Report> removed) {
+        this.publish("delete", this.json(writer -> writer.beginObject()
+                .name("uuid").value(reportedUser.toString())
+                .name("reports").value(removed.size())
+                .endObject()));
+    }
+
+    @Override
+    public void reportsExpired(UUID reportedUser, LocalDateTime cutoff, List<Report> expired) {
+        char[] buffer = new char[ReportCodec.MAX_TIMESTAMP_LENGTH];
+        this.publish("delete", this.json(writer -> writer.beginObject()
+                .name("uuid").value(reportedUser.toString())
+                .name("reports").value(expired.size())
+                .name("before").value(new String(buffer, 0, this.codec.formatTimestamp(cutoff, buffer, 0)))
+                .endObject()));
+    }
+
+    /**
+     * Publishing an event to every subscriber
+     * and retaining it for reconnecting clients
+     *
+     * @param type The type of the event
+     * @param data The json data of the event
+     */
+    private synchronized void publish(String type, String data) {
+        byte[] frame = this.frame(++this.lastEventId, type, data);
+        this.retained.addLast(frame);
+        if (this.retained.size() > this.retainedEvents) {
+            this.retained.removeFirst();
+        }
+
+        this.subscribers.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    /**
+     * Formatting an event as frame of the stream
+     *
+     * @param id The id of the event
+     * @param type The type of the event
+     * @param data The data of the event which is one line
+     * @return The frame
+     */
+    private byte[] frame(long id, String type, String data) {
+        return ("id: " + id + "\nevent: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writing json into a string
+     *
+     * @param content The writing of the json
+     * @return The json
+     */
+    private String json(JsonContent content) {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(stringWriter)) {
+            content.write(writer);
+        } catch (IOException exception) {
+            //A string writer doesn't throw
+            exception.printStackTrace();
+        }
+
+        return stringWriter.toString();
+    }
+
+    /**
+     * Getter for the amount of connected subscribers
+     *
+     * @return The amount of subscribers
+     */
+    public int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    /**
+     * Getter for the maximum amount of subscribers
+     *
+     * @return The maximum amount of subscribers
+     */
+    public int getMaxSubscribers() {
+        return this.maxSubscribers;
+    }
+
+    /**
+     * Getter for the amount of subscribers disconnected
+     * because they were too slow
+     *
+     * @return The amount of disconnected subscribers
+     */
+    public long getOverflows() {
+        return this.overflows.sum();
+    }
+
+    /**
+     * Disconnecting every subscriber and
+     * stopping the threads
+     */
+    public void shutdown() {
+        this.heartbeat.shutdownNow();
+        this.subscribers.forEach(EventSubscriber::close);
+        this.writers.shutdown();
+        try {
+            this.writers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Interface for writing json
+     * which can throw
+     */
+    private interface JsonContent {
+
+        /**
+         * Writing the json
+         *
+         * @param writer The writer to write to
+         * @throws IOException Thrown when writing fails
+         */
+        void write(JsonWriter writer) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,184 @@
+package de.raik.reporting.server.editor.rest.events;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscriber of the event stream holding the open exchange and
+ * a bounded buffer of the events which weren't written yet
+ *
+ * The events are written by a task of the executor which is only scheduled
+ * while there are events so no thread waits for an idle subscriber.
+ * A subscriber whose buffer overflows is disconnected and
+ * can resume with the id of the last event it received
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class EventSubscriber implements Runnable {
+
+    /**
+     * The exchange of the stream
+     */
+    private final HttpExchange exchange;
+
+    /**
+     * The body of the stream
+     */
+    private final OutputStream body;
+
+    /**
+     * The frames of the missed events which
+     * are written before the buffered ones
+     */
+    private List<byte[]> replay;
+
+    /**
+     * The frames which weren't written yet
+     */
+    private final ArrayBlockingQueue<byte[]> buffer;
+
+    /**
+     * The executor to write the frames on
+     */
+    private final Executor executor;
+
+    /**
+     * The broadcaster to remove the subscriber from
+     * when it's disconnected
+     */
+    private final EventBroadcaster broadcaster;
+
+    /**
+     * Whether a task writing the frames is scheduled
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Whether the exchange was closed already
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Whether the subscriber should be disconnected
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor to create the subscriber
+     *
+     * @param exchange The exchange of the stream which sent its headers already
+     * @param replay The frames of the missed events
+     * @param bufferSize The maximum amount of frames which weren't written yet
+     * @param executor The executor to write the frames on
+     * @param broadcaster The broadcaster to remove the subscriber from when it's disconnected
+     */
+    EventSubscriber(HttpExchange exchange, List<byte[]> replay, int bufferSize, Executor executor,
+                    EventBroadcaster broadcaster) {
+        this.exchange = exchange;
+        this.body = exchange.getResponseBody();
+        this.replay = replay;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Adding a frame to the buffer. Disconnects the
+     * subscriber if the buffer is full
+     *
+     * @param frame The frame to write
+     */
+    void offer(byte[] frame) {
+        if (this.closed) {
+            return;
+        }
+        if (!this.buffer.offer(frame)) {
+            //Removing it right away as its write might wait for the client
+            this.closed = true;
+            this.broadcaster.remove(this);
+            this.broadcaster.overflowed();
+        }
+
+        this.schedule();
+    }
+
+    /**
+     * Disconnecting the subscriber after the
+     * running write is done
+     */
+    void close() {
+        this.closed = true;
+        this.schedule();
+    }
+
+    /**
+     * Scheduling a task writing the frames
+     * if none is scheduled already
+     */
+    void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this);
+            } catch (RejectedExecutionException exception) {
+                //The broadcaster was shut down
+                this.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writing the missed and the buffered frames
+     * and closing the exchange if disconnected
+     */
+    @Override
+    public void run() {
+        try {
+            if (this.replay != null) {
+                for (byte[] frame : this.replay) {
+                    this.body.write(frame);
+                }
+                this.replay = null;
+            }
+
+            byte[] frame;
+            while (!this.closed && (frame = this.buffer.poll()) != null) {
+                this.body.write(frame);
+            }
+            this.body.flush();
+        } catch (IOException exception) {
+            //The client went away
+            this.closed = true;
+        }
+
+        this.scheduled.set(false);
+        if (this.closed) {
+            this.finish();
+        } else if (!this.buffer.isEmpty()) {
+            //Writing frames which were added after the loop
+            this.schedule();
+        }
+    }
+
+    /**
+     * Closing the exchange once and removing
+     * the subscriber from the broadcaster
+     */
+    private void finish() {
+        if (!this.finished.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.broadcaster.remove(this);
+        this.buffer.clear();
+        this.exchange.close();
+    }
+
+}
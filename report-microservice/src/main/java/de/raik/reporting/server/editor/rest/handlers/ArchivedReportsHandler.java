@@ -0,0 +1,102 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.retention.ReportArchive;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This handler handles the request to get expired reports
+ * from the archive at /reports/archive using GET requests only
+ *
+ * The archive is read from the disk for every request so it's
+ * slower than the other handlers. Query parameters:
+ * reported - The uuid of the reported user to get the reports of
+ * from - The timestamp the reports start at which is inclusive
+ * to - The timestamp the reports end at which is exclusive and now by default
+ * limit - The maximum amount of reports which is 1000 by default and at most 10000
+ * pretty - Pretty prints the json
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ArchivedReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The amount of reports if no limit is given
+     */
+    private static final int DEFAULT_LIMIT = 1000;
+
+    /**
+     * The maximum amount of reports in one response
+     */
+    private static final int MAX_LIMIT = 10000;
+
+    /**
+     * The archive to read the reports from
+     */
+    private final ReportArchive archive;
+
+    /**
+     * Constructor to set the report store and the archive
+     *
+     * @param reports The report store to access
+     * @param archive The archive to read the reports from
+     */
+    public ArchivedReportsHandler(ReportStore reports, ReportArchive archive) {
+        super(reports);
+        this.archive = archive;
+    }
+
+    /**
+     * Registering GET /reports/archive
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports/archive", this::handle);
+    }
+
+    /**
+     * Handle method to return the archived reports
+     * as json ordered by their timestamp
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing query and sending bad request if something is invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        UUID reportedUser;
+        LocalDateTime from;
+        LocalDateTime to;
+        int limit;
+        try {
+            reportedUser = parameters.containsKey("reported") ? this.getCodec().parseUUID(parameters.get("reported")) : null;
+            from = parameters.containsKey("from") ? this.getCodec().parseTimestamp(parameters.get("from")) : LocalDateTime.MIN;
+            to = parameters.containsKey("to") ? this.getCodec().parseTimestamp(parameters.get("to")) : LocalDateTime.now();
+            limit = parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : DEFAULT_LIMIT;
+        } catch (IllegalArgumentException | DateTimeException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (limit <= 0 || !from.isBefore(to)) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        List<Report> reports = this.archive.read(reportedUser, from, to, Math.min(limit, MAX_LIMIT));
+        this.sendReports(httpExchange, reports.iterator(), parameters.containsKey("pretty"));
+    }
+
+}
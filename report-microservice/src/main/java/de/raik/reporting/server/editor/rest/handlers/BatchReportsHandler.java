@@ -0,0 +1,300 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.ingestion.DuplicateFilter;
+import de.raik.reporting.server.editor.rest.ingestion.ReporterRateLimiter;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportFactory;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This handler handles the request to add many reports
+ * at once to /reports/batch/ using POST requests only
+ *
+ * The body is either a json array or newline delimited json objects
+ * with reported, reporter, reason and the optional timestamp. It is parsed
+ * as stream and all valid reports are added with one store operation.
+ * The response contains a result for every object with its index and status
+ *
+ * Every report is checked like a single report. A report of a reporter over
+ * the limit gets 429 with retryAfter in seconds and a duplicate in the window
+ * gets 200 with its count as duplicates instead of 201 and isn't stored
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class BatchReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The maximum amount of reports in one batch
+     */
+    static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * The callback which should be called when
+     * something has updated
+     */
+    private final Runnable updateCallback;
+
+    /**
+     * The report factory to create reports
+     */
+    private final ReportFactory factory = new ReportFactory();
+
+    /**
+     * The filter collapsing duplicate reports
+     * of the same reporter about the same user
+     */
+    private final DuplicateFilter duplicateFilter;
+
+    /**
+     * The limiter of the reports per reporter
+     */
+    private final ReporterRateLimiter rateLimiter;
+
+    /**
+     * Constructor to set the report store,
+     * the update callback and the ingestion limits
+     *
+     * @param reports The report store to access
+     * @param updateCallback The update callback to update
+     * @param duplicateFilter The filter collapsing duplicate reports
+     * @param rateLimiter The limiter of the reports per reporter
+     */
+    public BatchReportsHandler(ReportStore reports, Runnable updateCallback, DuplicateFilter duplicateFilter,
+                               ReporterRateLimiter rateLimiter) {
+        super(reports);
+        this.updateCallback = updateCallback;
+        this.duplicateFilter = duplicateFilter;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Registering POST /reports/batch
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("POST", "/reports/batch", this::handle);
+    }
+
+    /**
+     * Handle method to add all reports of the batch
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Report of every object or null if the object was invalid
+        ArrayList<Report> parsedReports = new ArrayList<>();
+        //Error of every object or null if the object was valid
+        ArrayList<String> errors = new ArrayList<>();
+
+        //Read json objects from request and send bad request if the json itself is broken
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(httpExchange.getRequestBody(),
+                StandardCharsets.UTF_8)))) {
+            //Lenient to read multiple top level objects for newline delimited json
+            reader.setLenient(true);
+            boolean array = reader.peek() == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                reader.beginArray();
+            }
+
+            while (array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT) {
+                if (errors.size() == MAX_BATCH_SIZE) {
+                    httpExchange.sendResponseHeaders(413, 0);
+                    httpExchange.close();
+                    return;
+                }
+
+                this.parseReport(JsonParser.parseReader(reader), parsedReports, errors);
+            }
+        } catch (IllegalStateException | JsonParseException | IOException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        List<ItemResult> results = this.addReports(parsedReports, errors);
+
+        //Send result of every object
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            writer.beginArray();
+            for (int i = 0; i < results.size(); i++) {
+                ItemResult result = results.get(i);
+                writer.beginObject().name("index").value(i).name("status").value(result.status());
+                if (result.error() != null) {
+                    writer.name("error").value(result.error());
+                }
+                if (result.retryAfter() > 0) {
+                    writer.name("retryAfter").value(result.retryAfter());
+                }
+                if (result.duplicates() > 0) {
+                    writer.name("duplicates").value(result.duplicates());
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Adding the reports of objects of a batch which were read already
+     * e.g. the part of a batch owned by this shard
+     *
+     * @param elements The json elements of the batch
+     * @return The result of every object with its index in the elements
+     */
+    JsonArray addBatch(List<JsonElement> elements) {
+        ArrayList<Report> parsedReports = new ArrayList<>();
+        ArrayList<String> errors = new ArrayList<>();
+        elements.forEach(element -> this.parseReport(element, parsedReports, errors));
+
+        List<ItemResult> results = this.addReports(parsedReports, errors);
+        JsonArray resultArray = new JsonArray();
+        for (int i = 0; i < results.size(); i++) {
+            ItemResult result = results.get(i);
+            JsonObject resultObject = new JsonObject();
+            resultObject.addProperty("index", i);
+            resultObject.addProperty("status", result.status());
+            if (result.error() != null) {
+                resultObject.addProperty("error", result.error());
+            }
+            if (result.retryAfter() > 0) {
+                resultObject.addProperty("retryAfter", result.retryAfter());
+            }
+            if (result.duplicates() > 0) {
+                resultObject.addProperty("duplicates", result.duplicates());
+            }
+            resultArray.add(resultObject);
+        }
+
+        return resultArray;
+    }
+
+    /**
+     * Limiting the reporters in the order of the batch
+     * and adding the valid reports at once
+     *
+     * @param parsedReports The report of every object or null if it was invalid
+     * @param errors The error of every object or null if it was valid
+     * @return The result of every object
+     */
+    private List<ItemResult> addReports(List<Report> parsedReports, List<String> errors) {
+        ArrayList<Report> reports = new ArrayList<>();
+        ArrayList<ItemResult> results = new ArrayList<>(errors.size());
+        for (int i = 0; i < errors.size(); i++) {
+            results.add(errors.get(i) == null ? this.checkReport(parsedReports.get(i), reports)
+                    : new ItemResult(400, errors.get(i), 0, 0));
+        }
+
+        //Adding all reports at once and only updating once
+        if (!reports.isEmpty()) {
+            this.getReports().addAll(reports);
+            this.updateCallback.run();
+        }
+
+        return results;
+    }
+
+    /**
+     * Checking the limit of the reporter and duplicates
+     * of a valid report of the batch
+     *
+     * @param report The report to check
+     * @param reports The list to add the report to if it should be stored
+     * @return The result of the report
+     */
+    private ItemResult checkReport(Report report, ArrayList<Report> reports) {
+        long retryNanos = this.rateLimiter.tryAcquire(report.reporter());
+        if (retryNanos > 0) {
+            return new ItemResult(429, "Too many reports of the reporter",
+                    TimeUnit.NANOSECONDS.toSeconds(retryNanos - 1) + 1, 0);
+        }
+
+        //Only storing the first report of the pair in the window
+        int duplicates = this.duplicateFilter.check(report.reporter(), report.reportedUser());
+        if (duplicates > 0) {
+            return new ItemResult(200, null, 0, duplicates);
+        }
+
+        reports.add(report);
+        return new ItemResult(201, null, 0, 0);
+    }
+
+    /**
+     * Creating a report from one json object of the batch
+     *
+     * @param element The json element of the batch
+     * @param reports The list to add the report to which is null for an invalid object
+     * @param errors The list to add the error to which is null for a valid report
+     */
+    private void parseReport(JsonElement element, ArrayList<Report> reports, ArrayList<String> errors) {
+        if (!(element instanceof JsonObject reportObject)) {
+            reports.add(null);
+            errors.add("Not an object");
+            return;
+        }
+
+        //Check keys json
+        if (!reportObject.has("reported") || !reportObject.has("reporter") || !reportObject.has("reason")) {
+            reports.add(null);
+            errors.add("Missing reported, reporter or reason");
+            return;
+        }
+
+        try {
+            String reported = reportObject.get("reported").getAsString();
+            String reason = reportObject.get("reason").getAsString();
+            String reporter = reportObject.get("reporter").getAsString();
+
+            reports.add(reportObject.has("timestamp")
+                    ? this.factory.createFromStringData(new String[]{reported, reason, reporter, reportObject.get("timestamp").getAsString()})
+                    : this.factory.createNewFromSpecified(reported, reason, reporter));
+            errors.add(null);
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException | DateTimeParseException exception) {
+            reports.add(null);
+            errors.add("Invalid uuid or timestamp");
+        }
+    }
+
+    /**
+     * The result of one object of the batch
+     *
+     * @param status The status of the object
+     * @param error The error of the object or null if there is none
+     * @param retryAfter The seconds a limited reporter should wait or 0
+     * @param duplicates The amount of duplicates of a collapsed report or 0
+     */
+    private record ItemResult(int status, String error, long retryAfter, int duplicates) {
+    }
+
+}
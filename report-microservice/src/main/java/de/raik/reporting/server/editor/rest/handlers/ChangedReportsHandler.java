@@ -0,0 +1,172 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.report.ReportChange;
+import de.raik.reporting.server.report.ReportCodec;
+import de.raik.reporting.server.report.ReportSnapshot;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This handler handles the request to get the changes of the reports
+ * after a sequence number at /reports/changes using GET requests only
+ *
+ * Clients keeping a copy of the reports apply the changes in their order and ask
+ * for the changes after the returned sequence next time. If the changes aren't kept
+ * anymore the response is 410 and the client gets every report with GET /reports/snapshot
+ * again continuing with the sequence of its ETag. The snapshot contains exactly the
+ * changes up to that sequence. Its reports aren't in any order
+ * Query parameters:
+ * since - The sequence number of the last known change
+ * limit - The maximum amount of changes which is 1000 by default and at most 10000
+ * pretty - Pretty prints the json
+ *
+ * Changes:
+ * add - The added report
+ * delete - Every report of the user was removed
+ * expire - The reports of the user older than before were removed
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ChangedReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The amount of changes if no limit is given
+     */
+    private static final int DEFAULT_LIMIT = 1000;
+
+    /**
+     * The maximum amount of changes in one response
+     */
+    private static final int MAX_LIMIT = 10000;
+
+    /**
+     * Constructor to set the report store
+     *
+     * @param reports The report store to access
+     */
+    public ChangedReportsHandler(ReportStore reports) {
+        super(reports);
+    }
+
+    /**
+     * Registering GET /reports/changes and
+     * GET /reports/snapshot
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports/changes", this::handle)
+                .route("GET", "/reports/snapshot", this::sendSnapshot);
+    }
+
+    /**
+     * Sending a snapshot of every report with the sequence
+     * of its last change as ETag to continue with the changes
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void sendSnapshot(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        ReportSnapshot snapshot = this.getReports().snapshot();
+        httpExchange.getResponseHeaders().add("ETag", "\"" + snapshot.sequence() + "\"");
+        this.sendReports(httpExchange, snapshot.reports().iterator(), this.getQueryParameters(httpExchange).containsKey("pretty"));
+    }
+
+    /**
+     * Handle method to return the changes after
+     * the sequence number as json
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing query and sending bad request if something is invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        long since;
+        int limit;
+        try {
+            since = Long.parseLong(parameters.get("since"));
+            limit = parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : DEFAULT_LIMIT;
+        } catch (NumberFormatException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (limit <= 0) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        long latest = this.getReports().getVersion();
+        List<ReportChange> changes = this.getReports().getChanges(since, Math.min(limit, MAX_LIMIT));
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(changes == null ? 410 : 200, 0);
+
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            if (parameters.containsKey("pretty")) {
+                writer.setIndent("  ");
+            }
+
+            //Telling the client to get every report again
+            if (changes == null) {
+                writer.beginObject()
+                        .name("resync").value(true)
+                        .name("sequence").value(latest)
+                        .endObject();
+                return;
+            }
+
+            long sequence = changes.isEmpty() ? since : changes.get(changes.size() - 1).sequence();
+            writer.beginObject()
+                    .name("resync").value(false)
+                    .name("sequence").value(sequence)
+                    .name("more").value(sequence < this.getReports().getVersion())
+                    .name("changes").beginArray();
+            char[] buffer = new char[ReportCodec.UUID_LENGTH + ReportCodec.MAX_TIMESTAMP_LENGTH];
+            for (ReportChange change : changes) {
+                writer.beginObject()
+                        .name("sequence").value(change.sequence())
+                        .name("type").value(change.type().name().toLowerCase())
+                        .name("uuid").value(this.format(buffer, this.getCodec().formatUUID(change.reportedUser(), buffer, 0)));
+                if (change.report() != null) {
+                    writer.name("reason").value(change.report().reportReason())
+                            .name("reporter").value(this.format(buffer, this.getCodec().formatUUID(change.report().reporter(), buffer, 0)))
+                            .name("date").value(this.format(buffer, this.getCodec().formatTimestamp(change.report().timestamp(), buffer, 0)));
+                }
+                if (change.before() != null) {
+                    writer.name("before").value(this.format(buffer, this.getCodec().formatTimestamp(change.before(), buffer, 0)));
+                }
+                writer.endObject();
+            }
+            writer.endArray().endObject();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    /**
+     * Creating a string of the formatted chars
+     *
+     * @param buffer The buffer the chars were formatted in
+     * @param length The amount of formatted chars
+     * @return The string
+     */
+    private String format(char[] buffer, int length) {
+        return new String(buffer, 0, length);
+    }
+
+}
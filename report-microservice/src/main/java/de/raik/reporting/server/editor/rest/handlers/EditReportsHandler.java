@@ -4,13 +4,21 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.ingestion.DuplicateFilter;
+import de.raik.reporting.server.editor.rest.ingestion.ReporterRateLimiter;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.editor.rest.sharding.DeletedUsers;
 import de.raik.reporting.server.report.Report;
 import de.raik.reporting.server.report.ReportFactory;
+import de.raik.reporting.server.report.ReportStore;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class EditReportsHandler extends ReportHttpHandler {
 
@@ -26,70 +34,133 @@ public class EditReportsHandler extends ReportHttpHandler {
     private final ReportFactory factory = new ReportFactory();
 
     /**
-     * Constructor to set the regex pattern
-     * with a string
+     * The filter collapsing duplicate reports
+     * of the same reporter about the same user
+     */
+    private final DuplicateFilter duplicateFilter;
+
+    /**
+     * The limiter of the reports per reporter
+     */
+    private final ReporterRateLimiter rateLimiter;
+
+    /**
+     * The users deleted on this shard or null
+     * if the reports aren't sharded
+     */
+    private final DeletedUsers deletedUsers;
+
+    /**
+     * Constructor to set the report store,
+     * the update callback and the ingestion limits
      *
-     * @param reports The report hash set to access
+     * @param reports The report store to access
      * @param updateCallback The update callback to update
+     * @param duplicateFilter The filter collapsing duplicate reports
+     * @param rateLimiter The limiter of the reports per reporter
+     * @param deletedUsers The users deleted on this shard or null if the reports aren't sharded
      */
-    public EditReportsHandler(HashSet<Report> reports, Runnable updateCallback) {
-        super("^\\/[rR][eE][pP][oO][rR][tT][sS]\\/[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}?(\\/?)$", reports);
+    public EditReportsHandler(ReportStore reports, Runnable updateCallback, DuplicateFilter duplicateFilter,
+                              ReporterRateLimiter rateLimiter, DeletedUsers deletedUsers) {
+        super(reports);
         this.updateCallback = updateCallback;
+        this.duplicateFilter = duplicateFilter;
+        this.rateLimiter = rateLimiter;
+        this.deletedUsers = deletedUsers;
     }
 
     /**
-     * Handle method to edit the list with adding or deleting
-     * using POST or DELETE requests
+     * Registering the routes of /reports/{uuid} to edit the list with adding
+     * or deleting using POST or DELETE requests. GET returns the reports
+     * of the user and HEAD only their count in the X-Report-Count header
      *
-     * @param httpExchange The http exchange to modify the http request
+     * @param router The router to add the routes to
      */
     @Override
-    public void handle(HttpExchange httpExchange) throws IOException {
-        String reportedUUID = httpExchange.getRequestURI().toString();
-        reportedUUID = reportedUUID.endsWith("/")
-                ? reportedUUID.substring(reportedUUID.indexOf("/", 2) + 1, reportedUUID.length() - 1)
-                : reportedUUID.substring(reportedUUID.indexOf("/", 2) + 1);
-
-        switch (httpExchange.getRequestMethod().toUpperCase()) {
-            case "POST" -> {
-                JsonObject reportObject;
-
-                //Read json from request and send bad request if required
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(httpExchange.getRequestBody()))) {
-                    reportObject = (JsonObject) JsonParser.parseReader(reader);
-                } catch (ClassCastException | JsonParseException exception) {
-                    this.sendBadRequest(httpExchange);
-                    return;
-                }
-
-                //Check keys json
-                if (!reportObject.has("reason") || !reportObject.has("reporter")) {
-                    this.sendBadRequest(httpExchange);
-                    return;
-                }
-
-                //Create new report and send bad request if the uuid is wrong somehow
-                try {
-                    this.getReports().add(this.factory.createNewFromSpecified(reportedUUID, reportObject.get("reason").getAsString(),
-                            reportObject.get("reporter").getAsString()));
-                } catch (IllegalArgumentException exception) {
-                    this.sendBadRequest(httpExchange);
-                    return;
-                }
-                //Run update callback
-                this.updateCallback.run();
-            }
-            case "DELETE" -> {
-                String finalReportedUUID = reportedUUID;
-                this.getReports().removeIf(report -> report.reportedUser().toString().equalsIgnoreCase(finalReportedUUID));
-                this.updateCallback.run();
-            }
-            default -> {
-                //Send method not allowed on default
-                httpExchange.sendResponseHeaders(405, 0);
-                httpExchange.close();
-                return;
-            }
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports/{reported:uuid}", this::sendUserReports)
+                .route("HEAD", "/reports/{reported:uuid}", this::sendUserReports)
+                .route("POST", "/reports/{reported:uuid}", this::addReport)
+                .route("DELETE", "/reports/{reported:uuid}", this::removeReports);
+    }
+
+    /**
+     * Sending the reports of the user or only
+     * their count on HEAD requests
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path containing the reported uuid
+     */
+    private void sendUserReports(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Only the reports of the user from the index
+        List<Report> reports = this.getReports().getReports(pathParameters.get("reported", UUID.class));
+
+        httpExchange.getResponseHeaders().add("X-Report-Count", String.valueOf(reports.size()));
+        //Head only sends the count without body
+        if (httpExchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+            httpExchange.sendResponseHeaders(200, -1);
+            httpExchange.close();
+            return;
+        }
+
+        this.sendReports(httpExchange, reports.iterator(), this.getQueryParameters(httpExchange).containsKey("pretty"));
+    }
+
+    /**
+     * Adding a report for the user with the reason and
+     * reporter of the json body
+     * Reporters over their limit get 429 with Retry-After. Duplicates
+     * of a report in the window get 204 as well but aren't stored
+     * and have their count in the X-Duplicate-Count header
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path containing the reported uuid
+     */
+    private void addReport(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        JsonObject reportObject;
+
+        //Read json from request and send bad request if required
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(httpExchange.getRequestBody()))) {
+            reportObject = (JsonObject) JsonParser.parseReader(reader);
+        } catch (ClassCastException | JsonParseException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Check keys json
+        if (!reportObject.has("reason") || !reportObject.has("reporter")) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Create new report and send bad request if the uuid is wrong somehow
+        Report report;
+        try {
+            report = this.factory.createNewFromSpecified(pathParameters.get("reported", UUID.class),
+                    reportObject.get("reason").getAsString(), reportObject.get("reporter").getAsString());
+        } catch (IllegalArgumentException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Limiting the reporter before anything is stored
+        long retryNanos = this.rateLimiter.tryAcquire(report.reporter());
+        if (retryNanos > 0) {
+            long retrySeconds = TimeUnit.NANOSECONDS.toSeconds(retryNanos - 1) + 1;
+            httpExchange.getResponseHeaders().add("Retry-After", String.valueOf(retrySeconds));
+            httpExchange.sendResponseHeaders(429, -1);
+            httpExchange.close();
+            return;
+        }
+
+        //Only storing the first report of the pair in the window
+        int duplicates = this.duplicateFilter.check(report.reporter(), report.reportedUser());
+        if (duplicates > 0) {
+            httpExchange.getResponseHeaders().add("X-Duplicate-Count", String.valueOf(duplicates));
+        } else {
+            this.getReports().add(report);
+            //Run update callback
+            this.updateCallback.run();
         }
 
         //Send request with no content
@@ -98,13 +169,24 @@ public class EditReportsHandler extends ReportHttpHandler {
     }
 
     /**
-     * Send bad request when something has failed.
-     * It will send 400 status code and close the exchane
+     * Removing all reports of the user. With shards the deletion is
+     * remembered so reports still moved from the former owner are dropped
      *
-     * @param httpExchange The exchange to access
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path containing the reported uuid
      */
-    private void sendBadRequest(HttpExchange httpExchange) throws IOException {
-        httpExchange.sendResponseHeaders(400, 0);
+    private void removeReports(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        UUID reportedUser = pathParameters.get("reported", UUID.class);
+        if (this.deletedUsers != null) {
+            this.deletedUsers.markDeleted(reportedUser);
+        }
+
+        //Only touching the reports of the user
+        this.getReports().removeReports(reportedUser);
+        this.updateCallback.run();
+
+        //Send request with no content
+        httpExchange.sendResponseHeaders(204, 0);
         httpExchange.close();
     }
 
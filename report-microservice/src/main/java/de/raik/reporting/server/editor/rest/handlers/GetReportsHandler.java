@@ -1,20 +1,48 @@
 package de.raik.reporting.server.editor.rest.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.CachedResponse;
+import de.raik.reporting.server.editor.rest.ResponseCache;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
 import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCursor;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.report.TimelineIterator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * This handler handles the request to get
  * all reports from /reports/
  * it will use GET requests only
+ * The json is compact by default and pretty printed
+ * with the pretty query parameter
+ *
+ * The reports are returned newest first. Query parameters:
+ * limit - The maximum amount of reports to return which is capped at 1000.
+ *         The cursor to the next page is sent with the X-Next-Cursor header
+ * cursor - The cursor of a former response to continue at
+ * order - Either newest or oldest to change the order
+ *
+ * Every response has the version of the store as ETag so requests
+ * with a matching If-None-Match get 304 without body. Small responses
+ * are cached until the reports change
  *
  * @author Raik
  * @version 1.0
@@ -22,61 +50,186 @@ import java.util.HashSet;
 public class GetReportsHandler extends ReportHttpHandler {
 
     /**
-     * The GSON to print the json later
+     * The maximum amount of reports a response can have
+     * to be cached. Bigger responses are always streamed
+     */
+    private static final int MAX_CACHED_REPORTS = 1000;
+
+    /**
+     * The maximum amount of reports of a limited page.
+     * Pages are collected in memory so bigger limits are capped
+     */
+    static final int MAX_LIMIT = 1000;
+
+    /**
+     * The cache of the serialized responses
+     */
+    private final ResponseCache cache;
+
+    /**
+     * Constructor to set the report store
+     * and the cache
+     *
+     * @param reports The report store to access
+     * @param cache The cache to store serialized responses in
      */
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    public GetReportsHandler(ReportStore reports, ResponseCache cache) {
+        super(reports);
+        this.cache = cache;
+    }
 
     /**
-     * Constructor to set the regex pattern
-     * with a string
+     * Registering GET /reports
      *
-     * @param reports The report hash set to access
+     * @param router The router to add the routes to
      */
-    public GetReportsHandler(HashSet<Report> reports) {
-        super("^\\/[rR][eE][pP][oO][rR][tT][sS]?(\\/?)$", reports);
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports", this::handle);
     }
 
     /**
      * Handle method to return the list of reports
-     * as json will check for get request
+     * as json
      *
      * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
      */
-    @Override
-    public void handle(HttpExchange httpExchange) throws IOException {
-        //Checking for get request only and sending Method not allowed
-        if (!httpExchange.getRequestMethod().equalsIgnoreCase("GET")) {
-            httpExchange.sendResponseHeaders(405, 0);
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Checking the version before anything else to not serialize unchanged reports
+        long version = this.getReports().getVersion();
+        String entityTag = "\"" + version + "\"";
+        httpExchange.getResponseHeaders().add("ETag", entityTag);
+        String noneMatch = httpExchange.getRequestHeaders().getFirst("If-None-Match");
+        if (noneMatch != null && (noneMatch.trim().equals("*") || Arrays.stream(noneMatch.split(","))
+                .map(String::trim).anyMatch(entityTag::equals))) {
+            httpExchange.sendResponseHeaders(304, -1);
             httpExchange.close();
             return;
         }
 
-        //Creating json array to return
-        JsonArray array = new JsonArray();
-        this.getReports().forEach(report -> {
-            JsonObject reportObject = new JsonObject();
-            //Adding properties
-            reportObject.addProperty("uuid", report.reportedUser().toString());
-            reportObject.addProperty("reason", report.reportReason());
-            reportObject.addProperty("reporter", report.reporter().toString());
-            reportObject.addProperty("date", report.timestamp().toString());
+        //Sending the cached response of the query if available
+        String cacheKey = Objects.requireNonNullElse(httpExchange.getRequestURI().getRawQuery(), "");
+        CachedResponse cachedResponse = this.cache.get(cacheKey, version);
+        if (cachedResponse != null) {
+            this.sendCached(httpExchange, cachedResponse);
+            return;
+        }
+
+        //Parsing query and sending bad request if something is invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        String order = parameters.getOrDefault("order", "newest").toLowerCase();
+        int limit;
+        ReportCursor cursor;
+        try {
+            limit = parameters.containsKey("limit") ? Math.min(Integer.parseInt(parameters.get("limit")), MAX_LIMIT)
+                    : Integer.MAX_VALUE;
+            cursor = parameters.containsKey("cursor") ? decodeCursor(parameters.get("cursor")) : null;
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (limit <= 0 || !(order.equals("newest") || order.equals("oldest"))) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        TimelineIterator timeline = this.getReports().timeline(cursor, order.equals("newest"));
+        /*
+         * A limited page is collected first to know the cursor for the header
+         * Without a limit every report is streamed so there is no next page
+         */
+        Iterator<Report> reports = timeline;
+        HashMap<String, String> headers = new HashMap<>();
+        int reportAmount = this.getReports().size();
+        if (limit != Integer.MAX_VALUE) {
+            ArrayList<Report> page = new ArrayList<>(limit);
+            while (page.size() < limit && timeline.hasNext()) {
+                page.add(timeline.next());
+            }
+            if (timeline.hasNext()) {
+                headers.put("X-Next-Cursor", encodeCursor(timeline.getCursor()));
+            }
+            reports = page.iterator();
+            reportAmount = page.size();
+        }
+
+        //Streaming big responses and caching small ones if the reports didn't change while serializing
+        if (reportAmount > MAX_CACHED_REPORTS) {
+            headers.forEach(httpExchange.getResponseHeaders()::add);
+            this.sendReports(httpExchange, reports, parameters.containsKey("pretty"));
+            return;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        this.writeReports(body, reports, parameters.containsKey("pretty"));
+        cachedResponse = new CachedResponse(version, headers, body.toByteArray());
+        if (this.getReports().getVersion() == version) {
+            this.cache.put(cacheKey, cachedResponse);
+        }
 
-            array.add(reportObject);
-        });
+        this.sendCached(httpExchange, cachedResponse);
+    }
 
-        //Setting content type and codes
+    /**
+     * Sending a serialized response with its headers
+     *
+     * @param httpExchange The exchange to send the response with
+     * @param response The serialized response
+     */
+    private void sendCached(HttpExchange httpExchange, CachedResponse response) throws IOException {
+        response.headers().forEach(httpExchange.getResponseHeaders()::add);
         httpExchange.getResponseHeaders().add("Content-Type", "application/json");
-        httpExchange.sendResponseHeaders(200, 0);
+        httpExchange.sendResponseHeaders(200, response.body().length);
 
-        //Sending json
-        try {
-            httpExchange.getResponseBody().write(GSON.toJson(array).getBytes(StandardCharsets.UTF_8));
+        try (OutputStream body = httpExchange.getResponseBody()) {
+            body.write(response.body());
         } catch (IOException exception) {
             exception.printStackTrace();
         }
 
-
         httpExchange.close();
     }
 
+    /**
+     * Encoding a cursor as opaque url safe string
+     *
+     * @param cursor The cursor to encode
+     * @return The encoded cursor
+     */
+    static String encodeCursor(ReportCursor cursor) {
+        Report position = cursor.position();
+        byte[] reason = position.reportReason().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(48 + reason.length)
+                .putLong(position.timestamp().toEpochSecond(ZoneOffset.UTC))
+                .putInt(position.timestamp().getNano())
+                .putLong(position.reportedUser().getMostSignificantBits())
+                .putLong(position.reportedUser().getLeastSignificantBits())
+                .putLong(position.reporter().getMostSignificantBits())
+                .putLong(position.reporter().getLeastSignificantBits())
+                .putInt(cursor.skip())
+                .put(reason);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decoding a cursor encoded by encodeCursor
+     *
+     * @param encoded The encoded cursor
+     * @return The decoded cursor
+     * @throws IllegalArgumentException Thrown when the cursor is not valid base64
+     * @throws BufferUnderflowException Thrown when the cursor is too short
+     */
+    static ReportCursor decodeCursor(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded));
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        UUID reportedUser = new UUID(buffer.getLong(), buffer.getLong());
+        UUID reporter = new UUID(buffer.getLong(), buffer.getLong());
+        int skip = buffer.getInt();
+        String reason = new String(buffer.array(), buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+
+        return new ReportCursor(new Report(reportedUser, reason, reporter, timestamp), skip);
+    }
+
 }
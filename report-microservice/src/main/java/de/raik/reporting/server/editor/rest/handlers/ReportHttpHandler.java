@@ -1,60 +1,248 @@
 package de.raik.reporting.server.editor.rest.handlers;
 
-import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
 import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCodec;
+import de.raik.reporting.server.report.ReportStore;
 
-import java.util.HashSet;
-import java.util.regex.Pattern;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
 
 /**
  * Specific http handler to use for the reports
  * it's the parent class for the http handlers
  * it handles every /reports endpoint
+ * The handlers register their routes at the router
  *
  * @author Raik
  * @version 1.0
  */
-public abstract class ReportHttpHandler implements HttpHandler {
+public abstract class ReportHttpHandler {
 
     /**
-     * The regex pattern to test for uris
-     * it will indicate which url will be triggered
-     * by the handler
-     * it will be set in the constructor
+     * The store holding the reports
+     * to access them
      */
-    private final Pattern pattern;
+    private final ReportStore reports;
 
     /**
-     * The hash set storing reports
-     * to access them
+     * The codec to parse and format the uuids
+     * and timestamps of reports
      */
-    private final HashSet<Report> reports;
+    private final ReportCodec codec = new ReportCodec();
 
     /**
-     * Constructor to set the regex pattern
-     * with a string
+     * Constructor to set the report store
      *
-     * @param regexString The regex pattern as a string
-     * @param reports The report hash set to access
+     * @param reports The report store to access
      */
-    public ReportHttpHandler(String regexString, HashSet<Report> reports) {
+    public ReportHttpHandler(ReportStore reports) {
         this.reports = reports;
-        this.pattern = Pattern.compile(regexString);
     }
 
-    protected HashSet<Report> getReports() {
+    /**
+     * Registering the routes of the handler
+     * at the router of the editor
+     *
+     * @param router The router to add the routes to
+     */
+    public abstract void registerRoutes(RequestRouter router);
+
+    protected ReportStore getReports() {
         return this.reports;
     }
 
+    protected ReportCodec getCodec() {
+        return this.codec;
+    }
+
+    /**
+     * Parsing the query of the requested uri
+     * into its parameters
+     *
+     * @param httpExchange The http exchange to get the uri from
+     * @return Map of the parameter names and their decoded values
+     */
+    protected HashMap<String, String> getQueryParameters(HttpExchange httpExchange) {
+        HashMap<String, String> parameters = new HashMap<>();
+        String query = httpExchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            parameters.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+                    keyValue.length == 2 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "");
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Sending reports as json array with status 200.
+     * Every report is written directly into the body without
+     * building the whole json first
+     *
+     * @param httpExchange The exchange to send the reports with
+     * @param reports The reports to send
+     * @param pretty Whether the json should be pretty printed
+     */
+    protected void sendReports(HttpExchange httpExchange, Iterator<Report> reports, boolean pretty) throws IOException {
+        //Setting content type and codes and streaming the length unknown json
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try {
+            this.writeReports(httpExchange.getResponseBody(), reports, pretty);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Writing reports as json array into an output stream
+     * which will be closed afterwards. The json is written by hand
+     * so uuids and timestamps are formatted into one reused buffer
+     * instead of creating strings for every report
+     *
+     * @param outputStream The stream to write to
+     * @param reports The reports to write
+     * @param pretty Whether the json should be pretty printed
+     * @throws IOException Thrown when writing fails
+     */
+    protected void writeReports(OutputStream outputStream, Iterator<Report> reports, boolean pretty) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            char[] buffer = new char[Math.max(ReportCodec.UUID_LENGTH, ReportCodec.MAX_TIMESTAMP_LENGTH)];
+
+            writer.write('[');
+            boolean first = true;
+            while (reports.hasNext()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                this.writeReport(writer, reports.next(), pretty, buffer);
+            }
+            //Empty arrays stay on one line like gson prints them
+            if (pretty && !first) {
+                writer.write('\n');
+            }
+            writer.write(']');
+        }
+    }
+
+    /**
+     * Writing one report as json object
+     *
+     * @param writer The writer to write to
+     * @param report The report to write
+     * @param pretty Whether the json should be pretty printed
+     * @param buffer The buffer to format the uuids and timestamp in
+     * @throws IOException Thrown when writing to the body fails
+     */
+    protected void writeReport(Writer writer, Report report, boolean pretty, char[] buffer) throws IOException {
+        writer.write(pretty ? "\n  {" : "{");
+        this.writeName(writer, "uuid", pretty);
+        this.writeChars(writer, buffer, this.codec.formatUUID(report.reportedUser(), buffer, 0));
+        writer.write(',');
+        this.writeName(writer, "reason", pretty);
+        this.writeString(writer, report.reportReason());
+        writer.write(',');
+        this.writeName(writer, "reporter", pretty);
+        this.writeChars(writer, buffer, this.codec.formatUUID(report.reporter(), buffer, 0));
+        writer.write(',');
+        this.writeName(writer, "date", pretty);
+        this.writeChars(writer, buffer, this.codec.formatTimestamp(report.timestamp(), buffer, 0));
+        writer.write(pretty ? "\n  }" : "}");
+    }
+
+    /**
+     * Writing the name of a json member
+     *
+     * @param writer The writer to write to
+     * @param name The name of the member
+     * @param pretty Whether the json should be pretty printed
+     * @throws IOException Thrown when writing to the body fails
+     */
+    private void writeName(Writer writer, String name, boolean pretty) throws IOException {
+        writer.write(pretty ? "\n    \"" : "\"");
+        writer.write(name);
+        writer.write(pretty ? "\": " : "\":");
+    }
+
+    /**
+     * Writing chars which don't need escaping
+     * as json string
+     *
+     * @param writer The writer to write to
+     * @param chars The chars to write
+     * @param length The amount of chars to write
+     * @throws IOException Thrown when writing to the body fails
+     */
+    private void writeChars(Writer writer, char[] chars, int length) throws IOException {
+        writer.write('"');
+        writer.write(chars, 0, length);
+        writer.write('"');
+    }
+
+    /**
+     * Writing a string as json string escaping
+     * the same chars as gson does
+     *
+     * @param writer The writer to write to
+     * @param string The string to write
+     * @throws IOException Thrown when writing to the body fails
+     */
+    private void writeString(Writer writer, String string) throws IOException {
+        writer.write('"');
+        int written = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            String replacement;
+            if (character == '"' || character == '\\') {
+                replacement = "\\" + character;
+            } else if (character < 0x20 || character == '\u2028' || character == '\u2029') {
+                replacement = switch (character) {
+                    case '\t' -> "\\t";
+                    case '\b' -> "\\b";
+                    case '\n' -> "\\n";
+                    case '\r' -> "\\r";
+                    case '\f' -> "\\f";
+                    default -> String.format("\\u%04x", (int) character);
+                };
+            } else {
+                continue;
+            }
+
+            //Writing the chars up to the escaped one at once
+            writer.write(string, written, i - written);
+            writer.write(replacement);
+            written = i + 1;
+        }
+        writer.write(string, written, string.length() - written);
+        writer.write('"');
+    }
+
     /**
-     * Method indicating whether the requested uri matches the string to
-     * to handle the request as wanted
+     * Send bad request when something has failed.
+     * It will send 400 status code and close the exchane
      *
-     * @param uri The uri to check
-     * @return Whether the uri matches
+     * @param httpExchange The exchange to access
      */
-    public boolean matches(String uri) {
-        return this.pattern.matcher(uri).matches();
+    protected void sendBadRequest(HttpExchange httpExchange) throws IOException {
+        httpExchange.sendResponseHeaders(400, 0);
+        httpExchange.close();
     }
 
 }
@@ -0,0 +1,642 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.editor.rest.sharding.DeletedUsers;
+import de.raik.reporting.server.editor.rest.sharding.MergedReports;
+import de.raik.reporting.server.editor.rest.sharding.RemoteReports;
+import de.raik.reporting.server.editor.rest.sharding.ShardClient;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCount;
+import de.raik.reporting.server.report.ReportCursor;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.sharding.Shard;
+import de.raik.reporting.server.sharding.ShardRing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This handler routes the requests of clients over the shards. Requests
+ * sent by other shards aren't routed but handled with the own reports
+ *
+ * Routes:
+ * /reports/{uuid} - Forwarded to the shard owning the user or handled by this server
+ * GET /reports - The listings of all shards merged in the order of the timeline with the same
+ *                query parameters. The cursor is a position in the timeline which is the same
+ *                for every shard. There is no ETag as every shard has its own version
+ * GET /reports/top - The most reported users of all shards merged
+ * POST /reports/batch - The reports sent to their owning shards with the
+ *                       results in the order of the batch
+ * POST /reports/rebalance - The reports of users owned by other shards moved to their owners.
+ *                           Returns the amount of moved users and reports and of users which
+ *                           failed and need another rebalance
+ *
+ * Route only handling requests of other shards:
+ * POST /reports/merge - The moved reports of whole users which aren't stored yet added so
+ *                       a retried move doesn't store them twice. Reports created before their user
+ *                       was deleted on this shard are dropped. Returns the amount of added reports
+ *
+ * If a shard can't be reached the response is 502
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ShardedReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The ring assigning the users to the shards
+     */
+    private final ShardRing ring;
+
+    /**
+     * The client sending requests to other shards
+     */
+    private final ShardClient client;
+
+    /**
+     * The router handling requests with the own reports
+     */
+    private final RequestRouter localRouter;
+
+    /**
+     * The handler adding the part of a batch
+     * owned by this server
+     */
+    private final BatchReportsHandler batchHandler;
+
+    /**
+     * The users deleted on this shard whose moved
+     * reports created before are dropped
+     */
+    private final DeletedUsers deletedUsers;
+
+    /**
+     * The callback which should be called when
+     * something has updated
+     */
+    private final Runnable updateCallback;
+
+    /**
+     * Constructor to set the report store, the shards
+     * and the update callback
+     *
+     * @param reports The report store to access
+     * @param ring The ring assigning the users to the shards
+     * @param client The client sending requests to other shards
+     * @param localRouter The router handling requests with the own reports
+     * @param batchHandler The handler adding the part of a batch owned by this server
+     * @param deletedUsers The users deleted on this shard
+     * @param updateCallback The update callback to update
+     */
+    public ShardedReportsHandler(ReportStore reports, ShardRing ring, ShardClient client, RequestRouter localRouter,
+                                 BatchReportsHandler batchHandler, DeletedUsers deletedUsers, Runnable updateCallback) {
+        super(reports);
+        this.ring = ring;
+        this.client = client;
+        this.localRouter = localRouter;
+        this.batchHandler = batchHandler;
+        this.deletedUsers = deletedUsers;
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Registering the routes which depend
+     * on the reports of other shards
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports/{reported:uuid}", this::routeUserRequest)
+                .route("HEAD", "/reports/{reported:uuid}", this::routeUserRequest)
+                .route("POST", "/reports/{reported:uuid}", this::routeUserRequest)
+                .route("DELETE", "/reports/{reported:uuid}", this::routeUserRequest)
+                .route("GET", "/reports", this::sendMergedReports)
+                .route("GET", "/reports/top", this::sendMergedTop)
+                .route("POST", "/reports/batch", this::splitBatch)
+                .route("POST", "/reports/rebalance", this::rebalance);
+    }
+
+    /**
+     * Registering the routes only used by other shards
+     * to the router handling the requests of other shards
+     *
+     * @param router The router handling requests with the own reports
+     */
+    public void registerShardRoutes(RequestRouter router) {
+        router.route("POST", "/reports/merge", this::mergeReports);
+    }
+
+    /**
+     * Forwarding a request for one user to its
+     * shard or handling it if it's owned by this server
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path containing the reported uuid
+     */
+    private void routeUserRequest(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        Shard owner = this.ring.getOwner(pathParameters.get("reported", UUID.class));
+        if (owner.equals(this.ring.getSelf())) {
+            this.localRouter.dispatch(httpExchange);
+            return;
+        }
+
+        this.client.forward(httpExchange, owner);
+    }
+
+    /**
+     * Sending the listings of all shards merged
+     * with the parameters of GET /reports
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void sendMergedReports(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing query and sending bad request if something is invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        String order = parameters.getOrDefault("order", "newest").toLowerCase();
+        int limit;
+        ReportCursor cursor;
+        try {
+            limit = parameters.containsKey("limit")
+                    ? Math.min(Integer.parseInt(parameters.get("limit")), GetReportsHandler.MAX_LIMIT) : Integer.MAX_VALUE;
+            cursor = parameters.containsKey("cursor") ? GetReportsHandler.decodeCursor(parameters.get("cursor")) : null;
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (limit <= 0 || !(order.equals("newest") || order.equals("oldest"))) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Every shard returns at most the whole page so the merged page is complete
+        boolean newestFirst = order.equals("newest");
+        String query = "/reports?order=" + order + (limit != Integer.MAX_VALUE ? "&limit=" + limit : "")
+                + (cursor != null ? "&cursor=" + GetReportsHandler.encodeCursor(cursor) : "");
+        MergedReports merged = new MergedReports(newestFirst ? ReportStore.TIMELINE_ORDER.reversed() : ReportStore.TIMELINE_ORDER);
+        ArrayList<RemoteReports> remoteListings = new ArrayList<>();
+        try {
+            merged.addSource(this.getReports().timeline(cursor, newestFirst), false);
+            for (Shard shard : this.ring.getShards()) {
+                if (shard.equals(this.ring.getSelf())) {
+                    continue;
+                }
+
+                HttpResponse<InputStream> response = this.sendToShard(shard, "GET", query, HttpRequest.BodyPublishers.noBody());
+                RemoteReports remoteListing = new RemoteReports(response.body(), this.getCodec());
+                remoteListings.add(remoteListing);
+                merged.addSource(remoteListing, response.headers().firstValue("X-Next-Cursor").isPresent());
+            }
+
+            if (limit == Integer.MAX_VALUE) {
+                this.streamMergedReports(httpExchange, merged, parameters.containsKey("pretty"));
+                return;
+            }
+
+            ArrayList<Report> page = new ArrayList<>(limit);
+            while (page.size() < limit && merged.hasNext()) {
+                page.add(merged.next());
+            }
+            if (!page.isEmpty() && merged.hasMore()) {
+                //Equal reports are always on the same shard so the cursor counts them like the timeline does
+                Report last = page.get(page.size() - 1);
+                int skip = (int) page.stream().filter(last::equals).count();
+                if (cursor != null && cursor.position().equals(last)) {
+                    skip += cursor.skip();
+                }
+                httpExchange.getResponseHeaders().add("X-Next-Cursor", GetReportsHandler.encodeCursor(new ReportCursor(last, skip)));
+            }
+            this.sendReports(httpExchange, page.iterator(), parameters.containsKey("pretty"));
+        } catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException exception) {
+            this.sendBadGateway(httpExchange, exception);
+        } finally {
+            for (RemoteReports remoteListing : remoteListings) {
+                remoteListing.close();
+            }
+        }
+    }
+
+    /**
+     * Streaming the merged reports without limit. The response is
+     * cut off if a shard fails after the headers were sent
+     *
+     * @param httpExchange The exchange to send the reports with
+     * @param merged The merged reports
+     * @param pretty Whether the json should be pretty printed
+     */
+    private void streamMergedReports(HttpExchange httpExchange, MergedReports merged, boolean pretty) throws IOException {
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try {
+            this.writeReports(httpExchange.getResponseBody(), merged, pretty);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException exception) {
+            exception.printStackTrace();
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    /**
+     * Sending the most reported users of all shards. Every user
+     * belongs to one shard so the merged ranking is exact
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void sendMergedTop(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing the amount and sending bad request if it's invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        int amount;
+        try {
+            amount = parameters.containsKey("n") ? Integer.parseInt(parameters.get("n")) : TopReportsHandler.DEFAULT_AMOUNT;
+        } catch (NumberFormatException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (amount <= 0) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        amount = Math.min(amount, TopReportsHandler.MAX_AMOUNT);
+
+        ArrayList<ReportCount> mostReported = new ArrayList<>(this.getReports().getMostReported(amount));
+        try {
+            for (Shard shard : this.ring.getShards()) {
+                if (shard.equals(this.ring.getSelf())) {
+                    continue;
+                }
+
+                HttpResponse<InputStream> response = this.sendToShard(shard, "GET", "/reports/top?n=" + amount,
+                        HttpRequest.BodyPublishers.noBody());
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                    for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray()) {
+                        JsonObject count = element.getAsJsonObject();
+                        mostReported.add(new ReportCount(this.getCodec().parseUUID(count.get("uuid").getAsString()),
+                                count.get("reports").getAsInt()));
+                    }
+                }
+            }
+        } catch (IOException | JsonParseException | IllegalArgumentException | IllegalStateException
+                | UnsupportedOperationException | NullPointerException exception) {
+            this.sendBadGateway(httpExchange, exception);
+            return;
+        }
+        mostReported.sort(Comparator.comparingInt(ReportCount::reports).reversed().thenComparing(ReportCount::reportedUser));
+
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            if (parameters.containsKey("pretty")) {
+                writer.setIndent("  ");
+            }
+
+            writer.beginArray();
+            for (ReportCount count : mostReported.subList(0, Math.min(amount, mostReported.size()))) {
+                writer.beginObject()
+                        .name("uuid").value(count.reportedUser().toString())
+                        .name("reports").value(count.reports())
+                        .endObject();
+            }
+            writer.endArray();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Sending the objects of a batch to their owning shards
+     * and combining the results in the order of the batch.
+     * The objects owned by this server are added directly
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void splitBatch(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        ArrayList<JsonElement> elements = new ArrayList<>();
+
+        //Read json objects from request and send bad request if the json itself is broken
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(httpExchange.getRequestBody(),
+                StandardCharsets.UTF_8)))) {
+            //Lenient to read multiple top level objects for newline delimited json
+            reader.setLenient(true);
+            boolean array = reader.peek() == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                reader.beginArray();
+            }
+
+            while (array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT) {
+                if (elements.size() == BatchReportsHandler.MAX_BATCH_SIZE) {
+                    httpExchange.sendResponseHeaders(413, 0);
+                    httpExchange.close();
+                    return;
+                }
+
+                elements.add(JsonParser.parseReader(reader));
+            }
+        } catch (IllegalStateException | JsonParseException | IOException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Grouping the indexes by shard. Invalid objects are sent to this server to get their error
+        LinkedHashMap<Shard, ArrayList<Integer>> indexesByShard = new LinkedHashMap<>();
+        for (int i = 0; i < elements.size(); i++) {
+            indexesByShard.computeIfAbsent(this.getOwner(elements.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+
+        JsonObject[] results = new JsonObject[elements.size()];
+        indexesByShard.forEach((shard, indexes) -> {
+            ArrayList<JsonElement> batch = new ArrayList<>();
+            indexes.forEach(index -> batch.add(elements.get(index)));
+            try {
+                JsonArray shardResults;
+                if (shard.equals(this.ring.getSelf())) {
+                    shardResults = this.batchHandler.addBatch(batch);
+                } else {
+                    JsonArray body = new JsonArray();
+                    batch.forEach(body::add);
+                    HttpResponse<InputStream> response = this.sendToShard(shard, "POST", "/reports/batch",
+                            HttpRequest.BodyPublishers.ofString(body.toString()), "Content-Type", "application/json");
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                        shardResults = JsonParser.parseReader(reader).getAsJsonArray();
+                    }
+                }
+
+                for (JsonElement element : shardResults) {
+                    //Changing the index of the shard batch to the index in the whole batch
+                    JsonObject result = element.getAsJsonObject();
+                    int index = indexes.get(result.get("index").getAsInt());
+                    result.addProperty("index", index);
+                    results[index] = result;
+                }
+            } catch (IOException | JsonParseException | IllegalStateException | UnsupportedOperationException
+                    | IndexOutOfBoundsException | NullPointerException exception) {
+                System.out.println("Request to shard " + shard.name() + " failed: " + exception);
+            }
+
+            //Every object without result failed because of the shard
+            for (int index : indexes) {
+                if (results[index] == null) {
+                    JsonObject result = new JsonObject();
+                    result.addProperty("index", index);
+                    result.addProperty("status", 502);
+                    result.addProperty("error", "Shard " + shard.name() + " unavailable");
+                    results[index] = result;
+                }
+            }
+        });
+
+        JsonArray response = new JsonArray();
+        for (JsonObject result : results) {
+            response.add(result);
+        }
+        byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = httpExchange.getResponseBody()) {
+            responseBody.write(body);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Getting the shard owning the report of a batch object
+     *
+     * @param element The object of the batch
+     * @return The owning shard or this server if the object is invalid
+     */
+    private Shard getOwner(JsonElement element) {
+        if (!(element instanceof JsonObject reportObject) || !reportObject.has("reported")) {
+            return this.ring.getSelf();
+        }
+
+        try {
+            return this.ring.getOwner(this.getCodec().parseUUID(reportObject.get("reported").getAsString()));
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException exception) {
+            return this.ring.getSelf();
+        }
+    }
+
+    /**
+     * Moving the reports of users owned by other shards to their owners
+     * with batches of whole users and removing them afterwards. The owners
+     * only add the reports they don't store yet so a failed rebalance can
+     * be repeated. Reports added while moving stay here until the next rebalance
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void rebalance(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Grouping the users owned by other shards by their owner
+        LinkedHashMap<Shard, LinkedHashSet<UUID>> usersByShard = new LinkedHashMap<>();
+        this.getReports().stream().map(Report::reportedUser)
+                .filter(reportedUser -> !this.ring.isOwnedBySelf(reportedUser))
+                .forEach(reportedUser -> usersByShard.computeIfAbsent(this.ring.getOwner(reportedUser),
+                        shard -> new LinkedHashSet<>()).add(reportedUser));
+
+        int movedUsers = 0;
+        int movedReports = 0;
+        int failedUsers = 0;
+        for (Map.Entry<Shard, LinkedHashSet<UUID>> entry : usersByShard.entrySet()) {
+            //Filling batches with whole users
+            ArrayList<LinkedHashMap<UUID, List<Report>>> batches = new ArrayList<>();
+            LinkedHashMap<UUID, List<Report>> batch = new LinkedHashMap<>();
+            int batchSize = 0;
+            for (UUID reportedUser : entry.getValue()) {
+                List<Report> reports = this.getReports().getReports(reportedUser);
+                if (!batch.isEmpty() && batchSize + reports.size() > BatchReportsHandler.MAX_BATCH_SIZE) {
+                    batches.add(batch);
+                    batch = new LinkedHashMap<>();
+                    batchSize = 0;
+                }
+                batch.put(reportedUser, reports);
+                batchSize += reports.size();
+            }
+            batches.add(batch);
+
+            for (LinkedHashMap<UUID, List<Report>> usersBatch : batches) {
+                if (!this.moveReports(entry.getKey(), usersBatch.values())) {
+                    failedUsers += usersBatch.size();
+                    continue;
+                }
+
+                //Removing the moved reports and keeping the ones added since
+                for (Map.Entry<UUID, List<Report>> user : usersBatch.entrySet()) {
+                    ArrayList<Report> addedSince = new ArrayList<>(this.getReports().removeReports(user.getKey()));
+                    user.getValue().forEach(addedSince::remove);
+                    movedReports += user.getValue().size();
+                    if (addedSince.isEmpty()) {
+                        movedUsers++;
+                    } else {
+                        this.getReports().addAll(addedSince);
+                        failedUsers++;
+                    }
+                }
+            }
+        }
+        if (movedReports > 0) {
+            this.updateCallback.run();
+        }
+
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            writer.beginObject()
+                    .name("movedUsers").value(movedUsers)
+                    .name("movedReports").value(movedReports)
+                    .name("failedUsers").value(failedUsers)
+                    .endObject();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Adding the reports of whole users to their owning shard if it doesn't
+     * store them yet. Sending them again after a failure doesn't add them twice
+     *
+     * @param shard The owning shard
+     * @param reportLists The reports of every user to add
+     * @return Whether every report is stored by the owner
+     */
+    private boolean moveReports(Shard shard, Collection<List<Report>> reportLists) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            this.writeReports(body, reportLists.stream().flatMap(List::stream).iterator(), false);
+            HttpResponse<InputStream> response = this.sendToShard(shard, "POST", "/reports/merge",
+                    HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()), "Content-Type", "application/json");
+            response.body().close();
+            return true;
+        } catch (IOException exception) {
+            System.out.println("Request to shard " + shard.name() + " failed: " + exception);
+            return false;
+        }
+    }
+
+    /**
+     * Adding the moved reports of another shard which aren't
+     * stored yet. The reports of a user are added at once and
+     * the ones created before the user was deleted here are dropped
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void mergeReports(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        if (!httpExchange.getRequestHeaders().containsKey(ShardClient.SHARD_HEADER)) {
+            httpExchange.sendResponseHeaders(403, -1);
+            httpExchange.close();
+            return;
+        }
+
+        //Reading the whole body first so a broken body doesn't add anything
+        LinkedHashMap<UUID, ArrayList<Report>> reportsByUser = new LinkedHashMap<>();
+        try (RemoteReports movedReports = new RemoteReports(httpExchange.getRequestBody(), this.getCodec())) {
+            movedReports.forEachRemaining(report -> reportsByUser.computeIfAbsent(report.reportedUser(),
+                    reportedUser -> new ArrayList<>()).add(report));
+        } catch (IOException | UncheckedIOException | IllegalStateException | IllegalArgumentException
+                | DateTimeException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        int addedReports = 0;
+        for (Map.Entry<UUID, ArrayList<Report>> user : reportsByUser.entrySet()) {
+            user.getValue().removeIf(this.deletedUsers::isDeleted);
+            addedReports += this.getReports().addMissing(user.getKey(), user.getValue()).size();
+        }
+        if (addedReports > 0) {
+            this.updateCallback.run();
+        }
+
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            writer.beginObject()
+                    .name("addedReports").value(addedReports)
+                    .endObject();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+    /**
+     * Sending a request to another shard
+     *
+     * @param shard The shard to send to
+     * @param method The method of the request
+     * @param pathAndQuery The raw path with the query
+     * @param body The body of the request
+     * @param headers The headers of the request as names and values after each other
+     * @return The response with status 200
+     * @throws IOException Thrown when the shard can't be reached or didn't answer with 200
+     */
+    private HttpResponse<InputStream> sendToShard(Shard shard, String method, String pathAndQuery,
+                                                  HttpRequest.BodyPublisher body, String... headers) throws IOException {
+        HttpResponse<InputStream> response = this.client.send(shard, method, pathAndQuery, body, headers);
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Shard " + shard.name() + " answered " + response.statusCode());
+        }
+
+        return response;
+    }
+
+    /**
+     * Sending bad gateway because
+     * a shard failed
+     *
+     * @param httpExchange The exchange to send with
+     * @param exception The failure of the shard
+     */
+    private void sendBadGateway(HttpExchange httpExchange, Exception exception) throws IOException {
+        System.out.println("Request to a shard failed: " + exception);
+        httpExchange.sendResponseHeaders(502, -1);
+        httpExchange.close();
+    }
+
+}
@@ -0,0 +1,105 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.events.EventBroadcaster;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * This handler handles the request to stream the changes
+ * of the reports at /reports/stream using GET requests only
+ *
+ * The connection stays open and the changes are sent as server-sent events
+ * by the broadcaster. A reconnecting client sends the id of the last event
+ * it received with the Last-Event-ID header or the lastEventId
+ * query parameter to get the missed events first
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class StreamReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The route of the stream
+     */
+    public static final String ROUTE = "/reports/stream";
+
+    /**
+     * The broadcaster sending the events
+     */
+    private final EventBroadcaster broadcaster;
+
+    /**
+     * The seconds a rejected client should wait
+     */
+    private final String retryAfter;
+
+    /**
+     * Constructor to set the report store and the broadcaster
+     *
+     * @param reports The report store to access
+     * @param broadcaster The broadcaster sending the events
+     * @param retryAfter The seconds a client rejected because of too many subscribers should wait
+     */
+    public StreamReportsHandler(ReportStore reports, EventBroadcaster broadcaster, String retryAfter) {
+        super(reports);
+        this.broadcaster = broadcaster;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Registering GET /reports/stream
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", ROUTE, this::handle);
+    }
+
+    /**
+     * Handle method to start the event stream. The exchange
+     * isn't closed here but when the subscriber is disconnected
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing the last event id and sending bad request if it's invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        String lastEventIdValue = httpExchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (lastEventIdValue == null) {
+            lastEventIdValue = parameters.get("lastEventId");
+        }
+        Long lastEventId;
+        try {
+            lastEventId = lastEventIdValue != null && !lastEventIdValue.isBlank() ? Long.valueOf(lastEventIdValue.trim()) : null;
+        } catch (NumberFormatException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        //Sending service unavailable if there are too many subscribers
+        if (this.broadcaster.getSubscriberCount() >= this.broadcaster.getMaxSubscribers()) {
+            httpExchange.getResponseHeaders().add("Retry-After", this.retryAfter);
+            httpExchange.sendResponseHeaders(503, -1);
+            httpExchange.close();
+            return;
+        }
+
+        httpExchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+        httpExchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        //Proxies shouldn't wait for more events before sending them
+        httpExchange.getResponseHeaders().add("X-Accel-Buffering", "no");
+        httpExchange.sendResponseHeaders(200, 0);
+        if (!this.broadcaster.subscribe(httpExchange, lastEventId)) {
+            //Subscribers connected at the same time took the last places
+            httpExchange.close();
+        }
+    }
+
+}
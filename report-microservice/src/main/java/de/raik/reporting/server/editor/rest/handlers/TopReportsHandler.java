@@ -0,0 +1,107 @@
+package de.raik.reporting.server.editor.rest.handlers;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.editor.rest.routing.PathParameters;
+import de.raik.reporting.server.editor.rest.routing.RequestRouter;
+import de.raik.reporting.server.report.ReportCount;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This handler handles the request to get the most
+ * reported users from /reports/top using GET requests only
+ *
+ * The users are read from the ranking of the store so the reports
+ * aren't counted for every request. Query parameters:
+ * n - The amount of users which is 10 by default and at most 1000
+ * pretty - Pretty prints the json
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class TopReportsHandler extends ReportHttpHandler {
+
+    /**
+     * The amount of users if none is given
+     */
+    static final int DEFAULT_AMOUNT = 10;
+
+    /**
+     * The maximum amount of users in one response
+     */
+    static final int MAX_AMOUNT = 1000;
+
+    /**
+     * Constructor to set the report store
+     *
+     * @param reports The report store to access
+     */
+    public TopReportsHandler(ReportStore reports) {
+        super(reports);
+    }
+
+    /**
+     * Registering GET /reports/top
+     *
+     * @param router The router to add the routes to
+     */
+    @Override
+    public void registerRoutes(RequestRouter router) {
+        router.route("GET", "/reports/top", this::handle);
+    }
+
+    /**
+     * Handle method to return the most reported users
+     * with the amount of their reports as json
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param pathParameters The parameters of the path which are none
+     */
+    private void handle(HttpExchange httpExchange, PathParameters pathParameters) throws IOException {
+        //Parsing the amount and sending bad request if it's invalid
+        HashMap<String, String> parameters = this.getQueryParameters(httpExchange);
+        int amount;
+        try {
+            amount = parameters.containsKey("n") ? Integer.parseInt(parameters.get("n")) : DEFAULT_AMOUNT;
+        } catch (NumberFormatException exception) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+        if (amount <= 0) {
+            this.sendBadRequest(httpExchange);
+            return;
+        }
+
+        List<ReportCount> mostReported = this.getReports().getMostReported(Math.min(amount, MAX_AMOUNT));
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(httpExchange.getResponseBody(),
+                StandardCharsets.UTF_8)))) {
+            if (parameters.containsKey("pretty")) {
+                writer.setIndent("  ");
+            }
+
+            writer.beginArray();
+            for (ReportCount count : mostReported) {
+                writer.beginObject()
+                        .name("uuid").value(count.reportedUser().toString())
+                        .name("reports").value(count.reports())
+                        .endObject();
+            }
+            writer.endArray();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        httpExchange.close();
+    }
+
+}
@@ -0,0 +1,144 @@
+package de.raik.reporting.server.editor.rest.ingestion;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filter collapsing reports of the same reporter about the same
+ * user within a window. Only the first report of the window is stored
+ * and the later ones are counted on its entry
+ *
+ * The entries are kept in a concurrent map so reporters don't block each other.
+ * Expired entries are replaced when the pair reports again and swept from
+ * time to time so the map only holds the pairs of the last window
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class DuplicateFilter {
+
+    /**
+     * The amount of checks between two sweeps
+     * of the expired entries
+     */
+    private static final int SWEEP_INTERVAL = 4096;
+
+    /**
+     * The window in nanoseconds in which reports
+     * of the same pair are duplicates
+     */
+    private final long windowNanos;
+
+    /**
+     * The entries of the pairs reported in the window
+     */
+    private final ConcurrentHashMap<ReportPair, WindowEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The amount of checks since the last sweep
+     */
+    private final AtomicInteger checksSinceSweep = new AtomicInteger();
+
+    /**
+     * The amount of suppressed duplicates since the start
+     */
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Constructor to create the filter
+     *
+     * @param windowSeconds The seconds in which reports of the same pair are duplicates.
+     *                      0 disables the filter
+     */
+    public DuplicateFilter(long windowSeconds) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    /**
+     * Checking a report and counting it if it's
+     * a duplicate of the first report in the window
+     *
+     * @param reporter The uuid of the reporter
+     * @param reportedUser The uuid of the reported user
+     * @return The amount of duplicates of the first report in the window
+     *         which is 0 if the report is the first and should be stored
+     */
+    public int check(UUID reporter, UUID reportedUser) {
+        if (this.windowNanos <= 0) {
+            return 0;
+        }
+        if (this.checksSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            this.checksSinceSweep.set(0);
+            this.sweep();
+        }
+
+        long now = System.nanoTime();
+        //Replacing expired entries so the report starts a new window
+        WindowEntry newEntry = new WindowEntry(now);
+        WindowEntry entry = this.entries.compute(new ReportPair(reporter, reportedUser), (pair, existing) ->
+                existing == null || now - existing.start >= this.windowNanos ? newEntry : existing);
+        if (entry == newEntry) {
+            return 0;
+        }
+
+        this.suppressed.increment();
+        return entry.duplicates.incrementAndGet();
+    }
+
+    /**
+     * Getting the amount of suppressed duplicates
+     * since the start
+     *
+     * @return The amount of suppressed duplicates
+     */
+    public long getSuppressed() {
+        return this.suppressed.sum();
+    }
+
+    /**
+     * Removing the entries of expired windows
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        this.entries.values().removeIf(entry -> now - entry.start >= this.windowNanos);
+    }
+
+    /**
+     * The reporter and the reported user of a report
+     *
+     * @param reporter The uuid of the reporter
+     * @param reportedUser The uuid of the reported user
+     */
+    private record ReportPair(UUID reporter, UUID reportedUser) {
+    }
+
+    /**
+     * The window started by the first report of a pair
+     */
+    private static class WindowEntry {
+
+        /**
+         * The time of the first report
+         */
+        private final long start;
+
+        /**
+         * The amount of duplicates of the first report
+         */
+        private final AtomicInteger duplicates = new AtomicInteger();
+
+        /**
+         * Constructor to create the entry
+         *
+         * @param start The time of the first report
+         */
+        private WindowEntry(long start) {
+            this.start = start;
+        }
+
+    }
+
+}
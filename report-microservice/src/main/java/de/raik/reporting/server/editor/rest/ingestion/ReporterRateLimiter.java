@@ -0,0 +1,119 @@
+package de.raik.reporting.server.editor.rest.ingestion;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets limiting the reports of every reporter. A bucket
+ * holds the burst as tokens and gets a token back every interval
+ *
+ * Every bucket is one atomic long storing the time the bucket is full
+ * again. Taking a token moves this time one interval forward with
+ * compare and set so reporters are limited without locks. Buckets which
+ * are full again are swept from time to time
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ReporterRateLimiter {
+
+    /**
+     * The amount of acquisitions between two sweeps
+     * of the full buckets
+     */
+    private static final int SWEEP_INTERVAL = 4096;
+
+    /**
+     * The nanoseconds until a token is refilled
+     */
+    private final long intervalNanos;
+
+    /**
+     * The nanoseconds the full time of a bucket can be
+     * ahead of now which is the burst without one token
+     */
+    private final long burstNanos;
+
+    /**
+     * The time every bucket is full again by its reporter
+     */
+    private final ConcurrentHashMap<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * The amount of acquisitions since the last sweep
+     */
+    private final AtomicInteger acquisitionsSinceSweep = new AtomicInteger();
+
+    /**
+     * The amount of limited reports since the start
+     */
+    private final LongAdder limited = new LongAdder();
+
+    /**
+     * Constructor to create the limiter
+     *
+     * @param reportsPerMinute The tokens refilled per minute. 0 disables the limiter
+     * @param burst The maximum amount of tokens of a bucket
+     */
+    public ReporterRateLimiter(int reportsPerMinute, int burst) {
+        this.intervalNanos = reportsPerMinute <= 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / reportsPerMinute;
+        this.burstNanos = this.intervalNanos * (Math.max(1, burst) - 1);
+    }
+
+    /**
+     * Taking a token from the bucket of the reporter
+     *
+     * @param reporter The uuid of the reporter
+     * @return 0 if the report is allowed or the nanoseconds
+     *         until the next token is available
+     */
+    public long tryAcquire(UUID reporter) {
+        if (this.intervalNanos <= 0) {
+            return 0;
+        }
+        if (this.acquisitionsSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            this.acquisitionsSinceSweep.set(0);
+            this.sweep();
+        }
+
+        long now = System.nanoTime();
+        AtomicLong fullTime = this.buckets.computeIfAbsent(reporter, key -> new AtomicLong(now - this.intervalNanos));
+        while (true) {
+            long currentFullTime = fullTime.get();
+            //An empty bucket can't get further ahead than the burst
+            long newFullTime = Math.max(currentFullTime, now) + this.intervalNanos;
+            long ahead = newFullTime - now - this.intervalNanos;
+            if (ahead > this.burstNanos) {
+                this.limited.increment();
+                return ahead - this.burstNanos;
+            }
+            if (fullTime.compareAndSet(currentFullTime, newFullTime)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Getting the amount of limited reports
+     * since the start
+     *
+     * @return The amount of limited reports
+     */
+    public long getLimited() {
+        return this.limited.sum();
+    }
+
+    /**
+     * Removing the buckets which are full again
+     * as they are the same as new ones
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        this.buckets.values().removeIf(fullTime -> fullTime.get() <= now);
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of direct buffers of the same size to reuse them
+ * between connections and responses as allocating direct
+ * memory is expensive and only freed by the garbage collector
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class BufferPool {
+
+    /**
+     * The buffers which are not used at the moment
+     */
+    private final ArrayBlockingQueue<ByteBuffer> buffers;
+
+    /**
+     * The size of every buffer
+     */
+    private final int bufferSize;
+
+    /**
+     * Constructor to create the pool
+     *
+     * @param size The maximum amount of idle buffers kept in the pool
+     * @param bufferSize The size of every buffer
+     */
+    public BufferPool(int size, int bufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(size);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Taking a cleared buffer from the pool or
+     * allocating a new one if the pool is empty
+     *
+     * @return The buffer to use
+     */
+    public ByteBuffer borrow() {
+        ByteBuffer buffer = this.buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(this.bufferSize);
+    }
+
+    /**
+     * Giving a buffer back to the pool. It's dropped
+     * if the pool is full already
+     *
+     * @param buffer The buffer which isn't used anymore
+     */
+    public void giveBack(ByteBuffer buffer) {
+        buffer.clear();
+        this.buffers.offer(buffer);
+    }
+
+    /**
+     * Getter for the size of the buffers
+     *
+     * @return The size of every buffer
+     */
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+}
@@ -0,0 +1,699 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connection of the nio http server parsing its requests
+ * and writing the queued responses
+ *
+ * Reading, parsing and writing only happens on the selector thread.
+ * Workers only queue the buffers of their response. Only one request
+ * is handled at a time and reading stops until its response is written
+ * so pipelined requests are answered in order
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class NioConnection {
+
+    /**
+     * The maximum size of a request body
+     */
+    private static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The size of the buffer a body starts with. It grows with
+     * the bytes which arrive so a declared length isn't allocated upfront
+     */
+    private static final int INITIAL_BODY_SIZE = 1024;
+
+    /**
+     * The amount of queued response bytes after which
+     * the worker waits for them to be written
+     */
+    private static final long MAX_QUEUED_BYTES = 256 * 1024;
+
+    /**
+     * The end of the request head
+     */
+    private static final byte[] HEAD_END = {'\r', '\n', '\r', '\n'};
+
+    /**
+     * The states of parsing the request
+     */
+    private enum State {
+        HEAD, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS
+    }
+
+    /**
+     * The server of the connection
+     */
+    private final NioHttpServer server;
+
+    /**
+     * The channel of the connection
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The key of the channel at the selector
+     */
+    private final SelectionKey key;
+
+    /**
+     * The buffer the requests are read into
+     */
+    private final ByteBuffer readBuffer;
+
+    /**
+     * The response buffers waiting to be written
+     */
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+    /**
+     * Whether a flush is scheduled on the selector thread already
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * The amount of queued response bytes
+     */
+    private long queuedBytes = 0;
+
+    /**
+     * The current state of parsing
+     */
+    private State state = State.HEAD;
+
+    /**
+     * The exchange of the request which is read or handled
+     */
+    private NioExchange exchange;
+
+    /**
+     * The body of the request which is read
+     */
+    private byte[] body;
+
+    /**
+     * The amount of body bytes read
+     */
+    private int bodyLength;
+
+    /**
+     * The declared length of a body which isn't chunked
+     */
+    private int contentLength;
+
+    /**
+     * The bytes left of the current chunk
+     */
+    private int chunkRemaining;
+
+    /**
+     * Whether a request is handled and reading is paused
+     */
+    private boolean handlingRequest = false;
+
+    /**
+     * Whether the response of the handled request is complete
+     * and only needs to be written
+     */
+    private boolean responseComplete = false;
+
+    /**
+     * Whether the connection should be closed after
+     * writing the current response
+     */
+    private boolean closeAfterResponse = false;
+
+    /**
+     * The time of the last activity
+     */
+    private long lastActive = System.currentTimeMillis();
+
+    /**
+     * Whether the connection is closed
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor to create the connection
+     *
+     * @param server The server of the connection
+     * @param channel The channel of the connection
+     * @param key The key of the channel at the selector
+     */
+    NioConnection(NioHttpServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+        this.readBuffer = server.getBufferPool().borrow();
+    }
+
+    /**
+     * Reading from the channel and parsing
+     * the read requests
+     */
+    void read() {
+        try {
+            if (this.channel.read(this.readBuffer) < 0) {
+                this.close();
+                return;
+            }
+        } catch (IOException exception) {
+            this.close();
+            return;
+        }
+
+        this.lastActive = System.currentTimeMillis();
+        this.parse();
+    }
+
+    /**
+     * Parsing the read bytes until a request is complete
+     * or more bytes are needed
+     */
+    private void parse() {
+        this.readBuffer.flip();
+        boolean progressed = true;
+        while (progressed && !this.handlingRequest && !this.closed) {
+            progressed = switch (this.state) {
+                case HEAD -> this.parseHead();
+                case BODY -> this.parseBody();
+                case CHUNK_SIZE -> this.parseChunkSize();
+                case CHUNK_DATA -> this.parseChunkData();
+                case CHUNK_END -> this.parseChunkEnd();
+                case TRAILERS -> this.parseTrailers();
+            };
+        }
+
+        if (!this.closed) {
+            this.readBuffer.compact();
+        }
+    }
+
+    /**
+     * Parsing the request line and the headers
+     *
+     * @return Whether the head was complete
+     */
+    private boolean parseHead() {
+        //Skipping line breaks between pipelined requests
+        while (this.readBuffer.hasRemaining() && (this.readBuffer.get(this.readBuffer.position()) == '\r'
+                || this.readBuffer.get(this.readBuffer.position()) == '\n')) {
+            this.readBuffer.get();
+        }
+
+        int headEnd = this.indexOf(HEAD_END, this.readBuffer.position());
+        if (headEnd == -1) {
+            //The head doesn't fit into the buffer
+            if (this.readBuffer.position() == 0 && this.readBuffer.limit() == this.readBuffer.capacity()) {
+                this.sendErrorAndClose(431, "Request Header Fields Too Large");
+            }
+            return false;
+        }
+
+        byte[] headBytes = new byte[headEnd - this.readBuffer.position()];
+        this.readBuffer.get(headBytes).position(headEnd + HEAD_END.length);
+        String[] lines = new String(headBytes, StandardCharsets.ISO_8859_1).split("\r\n");
+
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+        Headers headers = new Headers();
+        for (int i = 1; i < lines.length; i++) {
+            int separator = lines[i].indexOf(':');
+            if (separator <= 0) {
+                this.sendErrorAndClose(400, "Bad Request");
+                return false;
+            }
+            headers.add(lines[i].substring(0, separator).trim(), lines[i].substring(separator + 1).trim());
+        }
+
+        URI uri;
+        try {
+            uri = new URI(requestLine[1]);
+        } catch (URISyntaxException exception) {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+
+        //HTTP/1.1 keeps connections alive by default and HTTP/1.0 only when asked
+        String connection = headers.getFirst("Connection");
+        boolean keepAlive = requestLine[2].equals("HTTP/1.0")
+                ? connection != null && connection.toLowerCase().contains("keep-alive")
+                : connection == null || !connection.toLowerCase().contains("close");
+        this.exchange = new NioExchange(this, requestLine[0], uri, requestLine[2], headers, keepAlive);
+
+        return this.startBody(headers);
+    }
+
+    /**
+     * Preparing to read the body depending on the
+     * transfer encoding and content length
+     *
+     * @param headers The headers of the request
+     * @return Whether parsing can continue
+     */
+    private boolean startBody(Headers headers) {
+        String transferEncoding = headers.getFirst("Transfer-Encoding");
+        String contentLength = headers.getFirst("Content-Length");
+        boolean chunked = transferEncoding != null && transferEncoding.toLowerCase().contains("chunked");
+
+        long length;
+        try {
+            length = chunked || contentLength == null ? 0 : Long.parseLong(contentLength);
+        } catch (NumberFormatException exception) {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+        if (length < 0) {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+        if (length > MAX_BODY_SIZE) {
+            this.sendErrorAndClose(413, "Payload Too Large");
+            return false;
+        }
+
+        if (!chunked && length == 0) {
+            this.body = new byte[0];
+            this.bodyLength = 0;
+            this.dispatch();
+            return true;
+        }
+
+        //Letting the client send the body
+        String expect = headers.getFirst("Expect");
+        if (expect != null && expect.equalsIgnoreCase("100-continue")) {
+            this.queueBytes("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        this.body = new byte[chunked ? INITIAL_BODY_SIZE : (int) Math.min(length, INITIAL_BODY_SIZE)];
+        this.bodyLength = 0;
+        this.contentLength = (int) length;
+        this.state = chunked ? State.CHUNK_SIZE : State.BODY;
+        return true;
+    }
+
+    /**
+     * Reading the body with the known length
+     *
+     * @return Whether the body is complete
+     */
+    private boolean parseBody() {
+        int amount = Math.min(this.readBuffer.remaining(), this.contentLength - this.bodyLength);
+        if (this.body.length < this.bodyLength + amount) {
+            this.body = Arrays.copyOf(this.body, Math.min(this.contentLength,
+                    Math.max(this.body.length * 2, this.bodyLength + amount)));
+        }
+        this.readBuffer.get(this.body, this.bodyLength, amount);
+        this.bodyLength += amount;
+        if (this.bodyLength < this.contentLength) {
+            return false;
+        }
+
+        this.dispatch();
+        return true;
+    }
+
+    /**
+     * Reading the size line of a chunk
+     *
+     * @return Whether the line was complete
+     */
+    private boolean parseChunkSize() {
+        int lineEnd = this.indexOf(HEAD_END, 2, this.readBuffer.position());
+        if (lineEnd == -1) {
+            return false;
+        }
+
+        byte[] lineBytes = new byte[lineEnd - this.readBuffer.position()];
+        this.readBuffer.get(lineBytes).position(lineEnd + 2);
+        String line = new String(lineBytes, StandardCharsets.ISO_8859_1);
+        //Ignoring chunk extensions
+        int extensionStart = line.indexOf(';');
+        try {
+            this.chunkRemaining = Integer.parseInt((extensionStart == -1 ? line : line.substring(0, extensionStart)).trim(), 16);
+        } catch (NumberFormatException exception) {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+        if (this.chunkRemaining < 0 || (long) this.bodyLength + this.chunkRemaining > MAX_BODY_SIZE) {
+            this.sendErrorAndClose(413, "Payload Too Large");
+            return false;
+        }
+
+        if (this.chunkRemaining == 0) {
+            this.state = State.TRAILERS;
+            return true;
+        }
+        this.state = State.CHUNK_DATA;
+        return true;
+    }
+
+    /**
+     * Reading the data of a chunk
+     *
+     * @return Whether the chunk is complete
+     */
+    private boolean parseChunkData() {
+        int amount = Math.min(this.readBuffer.remaining(), this.chunkRemaining);
+        if (this.body.length < this.bodyLength + amount) {
+            this.body = Arrays.copyOf(this.body, Math.max(this.body.length * 2, this.bodyLength + amount));
+        }
+        this.readBuffer.get(this.body, this.bodyLength, amount);
+        this.bodyLength += amount;
+        this.chunkRemaining -= amount;
+        if (this.chunkRemaining > 0) {
+            return false;
+        }
+
+        this.state = State.CHUNK_END;
+        return true;
+    }
+
+    /**
+     * Reading the line break after the data of a chunk
+     *
+     * @return Whether the line break was read
+     */
+    private boolean parseChunkEnd() {
+        if (this.readBuffer.remaining() < 2) {
+            return false;
+        }
+        if (this.readBuffer.get() != '\r' || this.readBuffer.get() != '\n') {
+            this.sendErrorAndClose(400, "Bad Request");
+            return false;
+        }
+
+        this.state = State.CHUNK_SIZE;
+        return true;
+    }
+
+    /**
+     * Skipping the trailers after the last chunk
+     *
+     * @return Whether a trailer line was read
+     */
+    private boolean parseTrailers() {
+        int lineEnd = this.indexOf(HEAD_END, 2, this.readBuffer.position());
+        if (lineEnd == -1) {
+            return false;
+        }
+
+        boolean emptyLine = lineEnd == this.readBuffer.position();
+        this.readBuffer.position(lineEnd + 2);
+        if (emptyLine) {
+            this.dispatch();
+        }
+        return true;
+    }
+
+    /**
+     * Handing the complete request to the server
+     * and pausing reading until it's answered
+     */
+    private void dispatch() {
+        this.exchange.setRequestBody(new ByteArrayInputStream(this.body, 0, this.bodyLength));
+        this.body = null;
+        this.state = State.HEAD;
+        this.handlingRequest = true;
+        this.setInterest(SelectionKey.OP_READ, false);
+
+        this.server.dispatch(this.exchange);
+    }
+
+    /**
+     * Sending an error response from the selector thread
+     * and closing the connection afterwards
+     *
+     * @param code The status code
+     * @param reason The reason phrase
+     */
+    private void sendErrorAndClose(int code, String reason) {
+        this.handlingRequest = true;
+        this.closeAfterResponse = true;
+        this.setInterest(SelectionKey.OP_READ, false);
+        this.queueBytes(("HTTP/1.1 " + code + " " + reason + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+        this.responseComplete = true;
+        this.flush();
+    }
+
+    /**
+     * Queuing bytes from the selector thread which
+     * never waits for them to be written
+     *
+     * @param bytes The bytes to write
+     */
+    private void queueBytes(byte[] bytes) {
+        synchronized (this) {
+            this.writeQueue.add(ByteBuffer.wrap(bytes));
+            this.queuedBytes += bytes.length;
+        }
+        this.setInterest(SelectionKey.OP_WRITE, true);
+    }
+
+    /**
+     * Queuing buffers of the response to write them on the selector
+     * thread. Waits while too many bytes are queued already
+     *
+     * @param buffers The buffers ready to be read
+     * @throws IOException Thrown when the connection is closed
+     */
+    void enqueue(ByteBuffer... buffers) throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                for (ByteBuffer buffer : buffers) {
+                    if (buffer.isDirect()) {
+                        this.server.getBufferPool().giveBack(buffer);
+                    }
+                }
+                throw new IOException("Connection closed");
+            }
+            for (ByteBuffer buffer : buffers) {
+                this.writeQueue.add(buffer);
+                this.queuedBytes += buffer.remaining();
+            }
+        }
+        this.scheduleFlush();
+
+        //Waiting for slow clients so responses don't fill up the memory
+        synchronized (this) {
+            while (this.queuedBytes > MAX_QUEUED_BYTES && !this.closed) {
+                try {
+                    this.wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while writing", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marking the response as complete so the next request
+     * is read after it's written
+     *
+     * @param keepAlive Whether the connection stays open
+     */
+    void completeResponse(boolean keepAlive) {
+        this.server.runOnLoop(() -> {
+            this.responseComplete = true;
+            this.closeAfterResponse |= !keepAlive;
+            this.flush();
+        });
+    }
+
+    /**
+     * Closing the connection from any thread
+     * after a failed response
+     */
+    void abort() {
+        this.server.runOnLoop(this::close);
+    }
+
+    /**
+     * Writing the queued buffers to the channel. Finishes the
+     * response if everything is written and it's complete
+     */
+    void flush() {
+        this.flushScheduled.set(false);
+        if (this.closed) {
+            return;
+        }
+
+        boolean empty;
+        try {
+            synchronized (this) {
+                if (!this.writeQueue.isEmpty()) {
+                    long written = this.channel.write(this.writeQueue.toArray(new ByteBuffer[0]));
+                    this.queuedBytes -= written;
+                    while (!this.writeQueue.isEmpty() && !this.writeQueue.peek().hasRemaining()) {
+                        ByteBuffer buffer = this.writeQueue.poll();
+                        if (buffer.isDirect()) {
+                            this.server.getBufferPool().giveBack(buffer);
+                        }
+                    }
+                    this.notifyAll();
+                }
+                empty = this.writeQueue.isEmpty();
+            }
+        } catch (IOException exception) {
+            this.close();
+            return;
+        }
+
+        this.lastActive = System.currentTimeMillis();
+        this.setInterest(SelectionKey.OP_WRITE, !empty);
+        if (empty && this.responseComplete) {
+            this.finishResponse();
+        }
+    }
+
+    /**
+     * Continuing with the next request after the
+     * response was written completely
+     */
+    private void finishResponse() {
+        if (this.closeAfterResponse) {
+            this.close();
+            return;
+        }
+
+        this.responseComplete = false;
+        this.handlingRequest = false;
+        this.exchange = null;
+        this.setInterest(SelectionKey.OP_READ, true);
+        //Handling requests which were pipelined already
+        this.parse();
+    }
+
+    /**
+     * Closing the channel and giving the
+     * buffers back to the pool
+     */
+    void close() {
+        if (this.closed) {
+            return;
+        }
+
+        synchronized (this) {
+            this.closed = true;
+            this.writeQueue.stream().filter(ByteBuffer::isDirect).forEach(this.server.getBufferPool()::giveBack);
+            this.writeQueue.clear();
+            this.notifyAll();
+        }
+        this.server.getBufferPool().giveBack(this.readBuffer);
+        this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Whether no request was handled since the time
+     *
+     * @param time The time to check
+     * @return Whether the connection is idle
+     */
+    boolean isIdleSince(long time) {
+        return !this.handlingRequest && this.lastActive < time;
+    }
+
+    /**
+     * Getter for the server of the connection
+     *
+     * @return The server
+     */
+    NioHttpServer getServer() {
+        return this.server;
+    }
+
+    /**
+     * Getter for the channel of the connection
+     *
+     * @return The channel
+     */
+    SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Scheduling a flush on the selector thread
+     * if none is scheduled already
+     */
+    private void scheduleFlush() {
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.server.runOnLoop(this::flush);
+        }
+    }
+
+    /**
+     * Enabling or disabling an operation of the key
+     *
+     * @param operation The operation
+     * @param enabled Whether to enable it
+     */
+    private void setInterest(int operation, boolean enabled) {
+        if (!this.key.isValid()) {
+            return;
+        }
+
+        int operations = this.key.interestOps();
+        this.key.interestOps(enabled ? operations | operation : operations & ~operation);
+    }
+
+    /**
+     * Finding bytes in the readable part of the read buffer
+     *
+     * @param bytes The bytes to find
+     * @param from The position to start at
+     * @return The index of the bytes or -1 if they aren't there
+     */
+    private int indexOf(byte[] bytes, int from) {
+        return this.indexOf(bytes, bytes.length, from);
+    }
+
+    /**
+     * Finding the start of bytes in the readable
+     * part of the read buffer
+     *
+     * @param bytes The bytes to find
+     * @param length The amount of bytes to find from the start of the array
+     * @param from The position to start at
+     * @return The index of the bytes or -1 if they aren't there
+     */
+    private int indexOf(byte[] bytes, int length, int from) {
+        int last = this.readBuffer.limit() - length;
+        for (int i = from; i <= last; i++) {
+            int matched = 0;
+            while (matched < length && this.readBuffer.get(i + matched) == bytes[matched]) {
+                matched++;
+            }
+            if (matched == length) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
@@ -0,0 +1,351 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Http exchange of a request read by the nio http server
+ * so the handlers of the rest editor can be used unchanged
+ *
+ * The response is written into pooled buffers which are queued
+ * at the connection. Responses with unknown length use chunked
+ * transfer encoding or close the connection for HTTP/1.0
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class NioExchange extends HttpExchange {
+
+    /**
+     * The connection of the request
+     */
+    private final NioConnection connection;
+
+    /**
+     * The method of the request
+     */
+    private final String requestMethod;
+
+    /**
+     * The uri of the request
+     */
+    private final URI requestURI;
+
+    /**
+     * The protocol of the request
+     */
+    private final String protocol;
+
+    /**
+     * The headers of the request
+     */
+    private final Headers requestHeaders;
+
+    /**
+     * The headers of the response
+     */
+    private final Headers responseHeaders = new Headers();
+
+    /**
+     * The attributes of the exchange
+     */
+    private final HashMap<String, Object> attributes = new HashMap<>();
+
+    /**
+     * The body of the response
+     */
+    private final ResponseBodyStream responseBodyStream;
+
+    /**
+     * Whether the connection stays open after the response
+     */
+    private boolean keepAlive;
+
+    /**
+     * The body of the request
+     */
+    private InputStream requestBody;
+
+    /**
+     * The stream returned as response body which can
+     * be replaced with setStreams
+     */
+    private OutputStream responseBody;
+
+    /**
+     * The code of the response or -1
+     * if the headers weren't sent
+     */
+    private int responseCode = -1;
+
+    /**
+     * Whether the exchange is closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructor to create the exchange of a request
+     *
+     * @param connection The connection of the request
+     * @param requestMethod The method of the request
+     * @param requestURI The uri of the request
+     * @param protocol The protocol of the request
+     * @param requestHeaders The headers of the request
+     * @param keepAlive Whether the connection stays open after the response
+     */
+    NioExchange(NioConnection connection, String requestMethod, URI requestURI, String protocol, Headers requestHeaders,
+                boolean keepAlive) {
+        this.connection = connection;
+        this.requestMethod = requestMethod;
+        this.requestURI = requestURI;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.keepAlive = keepAlive;
+        this.responseBodyStream = new ResponseBodyStream(connection);
+        this.responseBody = this.responseBodyStream;
+    }
+
+    /**
+     * Sending the status line and the headers. They are written
+     * together with the first part of the body
+     *
+     * @param responseCode The response code
+     * @param responseLength The length of the response, 0 for unknown or -1 for no body
+     * @throws IOException Thrown when the headers were sent already
+     */
+    @Override
+    public void sendResponseHeaders(int responseCode, long responseLength) throws IOException {
+        if (this.responseCode != -1) {
+            throw new IOException("Headers already sent");
+        }
+        this.responseCode = responseCode;
+
+        boolean noBody = responseLength < 0 || responseCode == 204 || responseCode == 304 || responseCode < 200
+                || this.requestMethod.equalsIgnoreCase("HEAD");
+        ResponseBodyStream.Mode mode;
+        if (noBody) {
+            mode = ResponseBodyStream.Mode.NONE;
+            if (responseCode != 204 && responseCode != 304 && !this.requestMethod.equalsIgnoreCase("HEAD")) {
+                this.responseHeaders.set("Content-Length", "0");
+            }
+        } else if (responseLength > 0) {
+            mode = ResponseBodyStream.Mode.FIXED;
+            this.responseHeaders.set("Content-Length", String.valueOf(responseLength));
+        } else if (this.protocol.equals("HTTP/1.0")) {
+            //HTTP/1.0 has no chunks so the end of the body is the end of the connection
+            mode = ResponseBodyStream.Mode.CLOSE_DELIMITED;
+            this.keepAlive = false;
+        } else {
+            mode = ResponseBodyStream.Mode.CHUNKED;
+            this.responseHeaders.set("Transfer-Encoding", "chunked");
+        }
+        if (!this.keepAlive) {
+            this.responseHeaders.set("Connection", "close");
+        }
+
+        StringBuilder head = new StringBuilder(256).append("HTTP/1.1 ").append(responseCode).append(' ')
+                .append(this.getReasonPhrase(responseCode)).append("\r\n");
+        for (Map.Entry<String, List<String>> header : this.responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        head.append("\r\n");
+
+        this.responseBodyStream.start(head.toString().getBytes(StandardCharsets.ISO_8859_1), mode);
+    }
+
+    /**
+     * Closing the exchange after finishing the body
+     * so the next request of the connection can be read
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        //Closing the connection if no response was sent
+        if (this.responseCode == -1) {
+            this.connection.abort();
+            return;
+        }
+
+        try {
+            this.responseBody.close();
+            this.responseBodyStream.close();
+        } catch (IOException exception) {
+            this.connection.abort();
+            return;
+        }
+        this.connection.completeResponse(this.keepAlive);
+    }
+
+    /**
+     * Answering with an internal server error after the handler failed
+     * or closing the connection if the response was started already
+     */
+    void abort() {
+        if (this.closed) {
+            return;
+        }
+
+        if (this.responseCode == -1) {
+            try {
+                this.sendResponseHeaders(500, -1);
+                this.close();
+                return;
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        }
+        this.closed = true;
+        this.connection.abort();
+    }
+
+    /**
+     * Setting the body of the request
+     * after it was read
+     *
+     * @param requestBody The body of the request
+     */
+    void setRequestBody(InputStream requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    /**
+     * Getter for the connection of the exchange
+     *
+     * @return The connection
+     */
+    NioConnection getConnection() {
+        return this.connection;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return this.requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return this.responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return this.requestURI;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return this.requestMethod;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return this.requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return this.responseBody;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        try {
+            return (InetSocketAddress) this.connection.getChannel().getRemoteAddress();
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getResponseCode() {
+        return this.responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) this.connection.getChannel().getLocalAddress();
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getProtocol() {
+        return this.protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return this.attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        this.attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream inputStream, OutputStream outputStream) {
+        if (inputStream != null) {
+            this.requestBody = inputStream;
+        }
+        if (outputStream != null) {
+            this.responseBody = outputStream;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    /**
+     * Getting the reason phrase of the status codes
+     * sent by the handlers
+     *
+     * @param responseCode The status code
+     * @return The reason phrase
+     */
+    private String getReasonPhrase(int responseCode) {
+        return switch (responseCode) {
+            case 200 -> "OK";
+            case 204 -> "No Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 413 -> "Payload Too Large";
+            case 429 -> "Too Many Requests";
+            case 500 -> "Internal Server Error";
+            case 503 -> "Service Unavailable";
+            default -> "Status";
+        };
+    }
+
+}
@@ -0,0 +1,271 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Http server accepting, reading and writing all connections on one
+ * selector thread. Complete requests are handed to the handler on
+ * the executor and their responses are written by the selector thread
+ * again so slow clients never block a worker
+ *
+ * Connections are kept alive and pipelined requests are handled one
+ * after another in the order they arrived
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class NioHttpServer {
+
+    /**
+     * The time in milliseconds after which idle
+     * connections are closed
+     */
+    private static final long IDLE_TIMEOUT = 30_000;
+
+    /**
+     * The maximum time in milliseconds the selector waits
+     * so idle connections are checked regularly
+     */
+    private static final long SELECT_TIMEOUT = 1000;
+
+    /**
+     * The maximum amount of open connections. Further
+     * connections are closed right after accepting them
+     */
+    private static final int MAX_CONNECTIONS = 4096;
+
+    /**
+     * The handler of the requests
+     */
+    private final HttpHandler handler;
+
+    /**
+     * The executor running the handler
+     */
+    private final Executor executor;
+
+    /**
+     * The pool of the buffers used for reading and writing
+     */
+    private final BufferPool bufferPool = new BufferPool(1024, 16 * 1024);
+
+    /**
+     * The selector of all channels
+     */
+    private final Selector selector;
+
+    /**
+     * The channel accepting the connections
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Tasks of other threads which need to run on the
+     * selector thread like enabling writes
+     */
+    private final ConcurrentLinkedQueue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The selector thread
+     */
+    private final Thread loopThread = new Thread(this::loop, "report-nio-selector");
+
+    /**
+     * Whether the server is running
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Constructor binding the server to the address
+     *
+     * @param address The address to listen on
+     * @param handler The handler of the requests
+     * @param executor The executor to run the handler on
+     * @throws IOException Thrown when the address can't be bound
+     */
+    public NioHttpServer(InetSocketAddress address, HttpHandler handler, Executor executor) throws IOException {
+        this.handler = handler;
+        this.executor = executor;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starting the selector thread
+     */
+    public void start() {
+        this.loopThread.start();
+    }
+
+    /**
+     * Stopping the selector thread and closing
+     * every connection
+     */
+    public void stop() {
+        this.running = false;
+        this.selector.wakeup();
+        try {
+            this.loopThread.join(5000);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Running a task on the selector thread
+     *
+     * @param task The task to run
+     */
+    void runOnLoop(Runnable task) {
+        this.loopTasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Whether the current thread is the selector thread
+     *
+     * @return Whether it's the selector thread
+     */
+    boolean isLoopThread() {
+        return Thread.currentThread() == this.loopThread;
+    }
+
+    /**
+     * Getter for the pool of the buffers
+     *
+     * @return The buffer pool
+     */
+    BufferPool getBufferPool() {
+        return this.bufferPool;
+    }
+
+    /**
+     * Running the handler for a complete request on the executor.
+     * The connection is closed if the executor rejects it
+     *
+     * @param exchange The exchange of the request
+     */
+    void dispatch(NioExchange exchange) {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.handler.handle(exchange);
+                } catch (IOException | RuntimeException exception) {
+                    exception.printStackTrace();
+                    exchange.abort();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            exchange.getConnection().close();
+        }
+    }
+
+    /**
+     * The loop of the selector thread handling the
+     * channels and the tasks of other threads
+     */
+    private void loop() {
+        long lastIdleCheck = System.currentTimeMillis();
+
+        while (this.running) {
+            try {
+                this.selector.select(SELECT_TIMEOUT);
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                break;
+            }
+
+            Runnable task;
+            while ((task = this.loopTasks.poll()) != null) {
+                task.run();
+            }
+
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+
+                if (key.isAcceptable()) {
+                    this.accept();
+                    continue;
+                }
+                NioConnection connection = (NioConnection) key.attachment();
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.read();
+                }
+            }
+
+            //Closing idle connections
+            long now = System.currentTimeMillis();
+            if (now - lastIdleCheck >= SELECT_TIMEOUT) {
+                lastIdleCheck = now;
+                for (SelectionKey key : this.selector.keys()) {
+                    if (key.attachment() instanceof NioConnection connection && connection.isIdleSince(now - IDLE_TIMEOUT)) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+
+        //Closing every connection and the server
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof NioConnection connection) {
+                connection.close();
+            }
+        }
+        try {
+            this.serverChannel.close();
+            this.selector.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Accepting a new connection and registering
+     * it for reading if there are less than the maximum connections
+     */
+    private void accept() {
+        try {
+            SocketChannel channel = this.serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+
+            //The key of the server channel is one of the keys
+            if (this.selector.keys().size() > MAX_CONNECTIONS) {
+                channel.close();
+                return;
+            }
+
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            key.attach(new NioConnection(this, channel, key));
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import de.raik.reporting.server.editor.rest.RequestExecutor;
+import de.raik.reporting.server.editor.rest.RestEditor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Rest editor using the selector based nio http server instead
+ * of the http server of the jdk. It has the same routes, arguments
+ * and executor modes as the rest editor but keeps connections alive,
+ * answers pipelined requests and writes from pooled direct buffers
+ * It's registered in the services file and used with
+ * editorClass=de.raik.reporting.server.editor.rest.nio.NioRestEditor
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class NioRestEditor extends RestEditor {
+
+    /**
+     * The nio http server
+     */
+    private NioHttpServer httpServer;
+
+    /**
+     * Starting the nio http server which passes
+     * every request to the handle method
+     *
+     * @param port The port to listen on
+     * @param executor The executor to run the requests on
+     * @throws IOException Thrown when the server can't be started
+     */
+    @Override
+    protected void startServer(int port, RequestExecutor executor) throws IOException {
+        this.httpServer = new NioHttpServer(new InetSocketAddress(port), this::handle, executor);
+        this.httpServer.start();
+    }
+
+    /**
+     * Stopping the nio http server
+     */
+    @Override
+    protected void stopServer() {
+        this.httpServer.stop();
+    }
+
+}
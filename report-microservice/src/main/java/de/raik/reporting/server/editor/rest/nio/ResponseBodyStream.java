@@ -0,0 +1,212 @@
+package de.raik.reporting.server.editor.rest.nio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stream writing the response body into pooled buffers which
+ * are queued at the connection when they are full. The head of the
+ * response is queued with the first buffer so small responses are
+ * written with one write
+ *
+ * Every buffer keeps space in front and at the end so a
+ * chunk header and the line break can be put around the data
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class ResponseBodyStream extends OutputStream {
+
+    /**
+     * The space kept in front of the data
+     * for the chunk header
+     */
+    private static final int CHUNK_HEADER_SPACE = 8;
+
+    /**
+     * The space kept after the data for
+     * the line break of the chunk
+     */
+    private static final int CHUNK_TRAILER_SPACE = 2;
+
+    /**
+     * The last chunk ending the body
+     */
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * How the end of the body is marked
+     */
+    enum Mode {
+        NONE, FIXED, CHUNKED, CLOSE_DELIMITED
+    }
+
+    /**
+     * The connection to queue the buffers at
+     */
+    private final NioConnection connection;
+
+    /**
+     * The mode of the body or null if the
+     * headers weren't sent yet
+     */
+    private Mode mode = null;
+
+    /**
+     * The head of the response which
+     * wasn't queued yet
+     */
+    private byte[] head;
+
+    /**
+     * The buffer which is filled at the moment
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Whether the body is finished
+     */
+    private boolean finished = false;
+
+    /**
+     * Constructor to create the stream
+     *
+     * @param connection The connection to queue the buffers at
+     */
+    ResponseBodyStream(NioConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Starting the body after the head
+     *
+     * @param head The head of the response
+     * @param mode How the end of the body is marked
+     */
+    void start(byte[] head, Mode mode) {
+        this.head = head;
+        this.mode = mode;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        this.ensureWritable();
+        if (this.buffer == null) {
+            return;
+        }
+
+        this.buffer.put((byte) value);
+        if (this.buffer.position() == this.buffer.capacity() - CHUNK_TRAILER_SPACE) {
+            this.queueBuffer();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            this.ensureWritable();
+            if (this.buffer == null) {
+                return;
+            }
+
+            int amount = Math.min(length, this.buffer.capacity() - CHUNK_TRAILER_SPACE - this.buffer.position());
+            this.buffer.put(bytes, offset, amount);
+            offset += amount;
+            length -= amount;
+            if (this.buffer.position() == this.buffer.capacity() - CHUNK_TRAILER_SPACE) {
+                this.queueBuffer();
+            }
+        }
+    }
+
+    /**
+     * Queuing the written bytes so they are sent
+     * while the handler continues
+     *
+     * @throws IOException Thrown when the connection is closed
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.buffer != null && this.buffer.position() > CHUNK_HEADER_SPACE) {
+            this.queueBuffer();
+        }
+    }
+
+    /**
+     * Finishing the body by queuing the rest
+     * and the end of the chunks
+     *
+     * @throws IOException Thrown when the connection is closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.finished || this.mode == null) {
+            return;
+        }
+        this.finished = true;
+
+        this.flush();
+        if (this.buffer != null) {
+            this.connection.getServer().getBufferPool().giveBack(this.buffer);
+            this.buffer = null;
+        }
+        ByteBuffer lastChunk = ByteBuffer.wrap(LAST_CHUNK);
+        if (this.head != null) {
+            this.connection.enqueue(this.mode == Mode.CHUNKED
+                    ? new ByteBuffer[]{ByteBuffer.wrap(this.head), lastChunk} : new ByteBuffer[]{ByteBuffer.wrap(this.head)});
+            this.head = null;
+        } else if (this.mode == Mode.CHUNKED) {
+            this.connection.enqueue(lastChunk);
+        }
+    }
+
+    /**
+     * Making sure there is a buffer to write into
+     * if the body can be written
+     *
+     * @throws IOException Thrown when the headers weren't sent or the body is finished
+     */
+    private void ensureWritable() throws IOException {
+        if (this.mode == null || this.finished) {
+            throw new IOException(this.finished ? "Response body is closed" : "Headers not sent");
+        }
+        if (this.mode == Mode.NONE || this.buffer != null) {
+            return;
+        }
+
+        this.buffer = this.connection.getServer().getBufferPool().borrow();
+        this.buffer.position(CHUNK_HEADER_SPACE);
+    }
+
+    /**
+     * Queuing the filled buffer and putting
+     * the chunk header around the data
+     *
+     * @throws IOException Thrown when the connection is closed
+     */
+    private void queueBuffer() throws IOException {
+        ByteBuffer filled = this.buffer;
+        this.buffer = null;
+        int dataEnd = filled.position();
+        int dataStart = CHUNK_HEADER_SPACE;
+
+        if (this.mode == Mode.CHUNKED) {
+            byte[] chunkHeader = (Integer.toHexString(dataEnd - CHUNK_HEADER_SPACE) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            dataStart -= chunkHeader.length;
+            filled.put(dataStart, chunkHeader).put((byte) '\r').put((byte) '\n');
+            dataEnd += CHUNK_TRAILER_SPACE;
+        }
+        filled.limit(dataEnd).position(dataStart);
+
+        //Queuing the head together with the first buffer
+        if (this.head != null) {
+            this.connection.enqueue(ByteBuffer.wrap(this.head), filled);
+            this.head = null;
+            return;
+        }
+        this.connection.enqueue(filled);
+    }
+
+}
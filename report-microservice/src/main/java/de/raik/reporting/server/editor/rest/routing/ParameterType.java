@@ -0,0 +1,39 @@
+package de.raik.reporting.server.editor.rest.routing;
+
+import de.raik.reporting.server.report.ReportCodec;
+
+import java.util.UUID;
+
+/**
+ * Type of a path parameter parsing the segment
+ * into its value while the route is matched
+ *
+ * @param <T> The type of the parsed value
+ * @author Raik
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface ParameterType<T> {
+
+    /**
+     * Type keeping the segment as string
+     */
+    ParameterType<String> STRING = segment -> segment;
+
+    /**
+     * Type parsing the segment as uuid which only accepts
+     * the canonical form so every user has one path
+     */
+    ParameterType<UUID> UUID = new ReportCodec()::parseCanonicalUUID;
+
+    /**
+     * Parsing the segment of the path
+     *
+     * @param segment The segment to parse
+     * @return The parsed value
+     * @throws IllegalArgumentException Thrown when the segment doesn't fit the type
+     *                                  so the route doesn't match
+     */
+    T parse(String segment);
+
+}
@@ -0,0 +1,48 @@
+package de.raik.reporting.server.editor.rest.routing;
+
+import java.util.HashMap;
+
+/**
+ * The parameters parsed from the path
+ * of a request by the router
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class PathParameters {
+
+    /**
+     * The parsed values by the parameter names
+     */
+    private final HashMap<String, Object> values = new HashMap<>(4);
+
+    /**
+     * Constructor only used by the router
+     */
+    PathParameters() {
+    }
+
+    /**
+     * Setting the value of a parameter
+     *
+     * @param name The name of the parameter
+     * @param value The parsed value
+     */
+    void put(String name, Object value) {
+        this.values.put(name, value);
+    }
+
+    /**
+     * Getting the parsed value of a parameter
+     *
+     * @param name The name of the parameter in the route
+     * @param type The class of the parameter type
+     * @param <T> The type of the value
+     * @return The parsed value or null if the route has no such parameter
+     * @throws ClassCastException Thrown when the parameter has another type
+     */
+    public <T> T get(String name, Class<T> type) {
+        return type.cast(this.values.get(name));
+    }
+
+}
@@ -0,0 +1,150 @@
+package de.raik.reporting.server.editor.rest.routing;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Router dispatching requests to the handlers of their
+ * path and method. The routes are stored as trie of path segments
+ * so finding a route only depends on the length of the path and
+ * not on the amount of routes
+ *
+ * Routes are paths like /reports/{reported:uuid} where segments
+ * in braces are parameters with their name and optional type.
+ * Parameters are parsed once while matching and segments which don't
+ * fit the type don't match the route. Literal segments are case insensitive
+ * and trailing slashes are ignored
+ *
+ * Paths without route are answered with 404 and methods without
+ * handler with 405 and the Allow header listing the allowed methods
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class RequestRouter {
+
+    /**
+     * The node of the root path
+     */
+    private final RouteNode root = new RouteNode();
+
+    /**
+     * The types usable for parameters by their name
+     */
+    private final HashMap<String, ParameterType<?>> parameterTypes = new HashMap<>();
+
+    /**
+     * Constructor registering the default
+     * parameter types string and uuid
+     */
+    public RequestRouter() {
+        this.parameterTypes.put("string", ParameterType.STRING);
+        this.parameterTypes.put("uuid", ParameterType.UUID);
+    }
+
+    /**
+     * Registering a type usable for parameters
+     *
+     * @param name The name used in routes
+     * @param type The parameter type
+     * @return The router itself
+     */
+    public RequestRouter addParameterType(String name, ParameterType<?> type) {
+        this.parameterTypes.put(name, type);
+        return this;
+    }
+
+    /**
+     * Adding the handler for a method of a route
+     *
+     * @param method The http method
+     * @param route The path of the route
+     * @param handler The handler of the requests
+     * @return The router itself
+     * @throws IllegalArgumentException Thrown when the route is invalid or has a handler for the method already
+     */
+    public RequestRouter route(String method, String route, RouteHandler handler) {
+        RouteNode node = this.root;
+        for (String segment : route.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            if (!segment.startsWith("{") || !segment.endsWith("}")) {
+                node = node.literalChild(segment);
+                continue;
+            }
+            //Parameter with name and type separated by a colon
+            String[] parameter = segment.substring(1, segment.length() - 1).split(":", 2);
+            ParameterType<?> type = parameter.length == 2 ? this.parameterTypes.get(parameter[1]) : ParameterType.STRING;
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown parameter type in route " + route);
+            }
+            node = node.parameterChild(parameter[0], type);
+        }
+
+        node.addHandler(route, method.toUpperCase(Locale.ROOT), handler);
+        return this;
+    }
+
+    /**
+     * Whether a handler is registered for the
+     * route and method of the request
+     *
+     * @param httpExchange The http exchange of the request
+     * @return Whether the request would be handled
+     */
+    public boolean matches(HttpExchange httpExchange) {
+        RouteNode node = this.root.find(httpExchange.getRequestURI().getPath(), 1, new PathParameters());
+        return node != null && node.getHandler(httpExchange.getRequestMethod().toUpperCase(Locale.ROOT)) != null;
+    }
+
+    /**
+     * Finding the route of the request without
+     * handling it
+     *
+     * @param httpExchange The http exchange of the request
+     * @return The matched route as it was registered or null if no route matched
+     */
+    public String findRoute(HttpExchange httpExchange) {
+        RouteNode node = this.root.find(httpExchange.getRequestURI().getPath(), 1, new PathParameters());
+        return node != null ? node.getRoute() : null;
+    }
+
+    /**
+     * Dispatching the request to the handler of its
+     * route and method
+     *
+     * @param httpExchange The http exchange of the request
+     * @return The matched route as it was registered or null if
+     *         no route matched so it can be used as metric label
+     * @throws IOException Thrown when sending the response fails
+     */
+    public String dispatch(HttpExchange httpExchange) throws IOException {
+        PathParameters parameters = new PathParameters();
+        RouteNode node = this.root.find(httpExchange.getRequestURI().getPath(), 1, parameters);
+
+        //Sending 404 if not found
+        if (node == null || !node.hasHandlers()) {
+            httpExchange.sendResponseHeaders(404, 0);
+            httpExchange.close();
+            return null;
+        }
+
+        //Sending method not allowed with the allowed methods
+        RouteHandler handler = node.getHandler(httpExchange.getRequestMethod().toUpperCase(Locale.ROOT));
+        if (handler == null) {
+            httpExchange.getResponseHeaders().add("Allow", node.getAllowedMethods());
+            httpExchange.sendResponseHeaders(405, 0);
+            httpExchange.close();
+            return node.getRoute();
+        }
+
+        handler.handle(httpExchange, parameters);
+        return node.getRoute();
+    }
+
+}
@@ -0,0 +1,26 @@
+package de.raik.reporting.server.editor.rest.routing;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * Handler of one method of a route
+ * receiving the already parsed path parameters
+ *
+ * @author Raik
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface RouteHandler {
+
+    /**
+     * Handle the request matching the route
+     *
+     * @param httpExchange The http exchange to modify the http request
+     * @param parameters The parsed parameters of the path
+     * @throws IOException Thrown when sending the response fails
+     */
+    void handle(HttpExchange httpExchange, PathParameters parameters) throws IOException;
+
+}
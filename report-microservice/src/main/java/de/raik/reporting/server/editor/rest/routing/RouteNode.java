@@ -0,0 +1,182 @@
+package de.raik.reporting.server.editor.rest.routing;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Node of the route trie representing one
+ * path segment with the handlers of its route
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class RouteNode {
+
+    /**
+     * The children of literal segments by
+     * their lower case segment
+     */
+    private final HashMap<String, RouteNode> literalChildren = new HashMap<>();
+
+    /**
+     * The handlers of the route ending at this node by
+     * their upper case method sorted for the Allow header
+     */
+    private final TreeMap<String, RouteHandler> handlers = new TreeMap<>();
+
+    /**
+     * The child matching any segment of the parameter type
+     * or null if there is no parameter
+     */
+    private RouteNode parameterChild;
+
+    /**
+     * The name of the parameter of the parameter child
+     */
+    private String parameterName;
+
+    /**
+     * The type of the parameter of the parameter child
+     */
+    private ParameterType<?> parameterType;
+
+    /**
+     * The route ending at this node as it was registered
+     * or null if no route ends here
+     */
+    private String route;
+
+    /**
+     * Getting or creating the child of a literal segment
+     *
+     * @param segment The literal segment
+     * @return The child node
+     */
+    RouteNode literalChild(String segment) {
+        return this.literalChildren.computeIfAbsent(segment.toLowerCase(Locale.ROOT), key -> new RouteNode());
+    }
+
+    /**
+     * Getting or creating the child of a parameter
+     *
+     * @param name The name of the parameter
+     * @param type The type of the parameter
+     * @return The child node
+     * @throws IllegalArgumentException Thrown when there is another parameter at this position
+     */
+    RouteNode parameterChild(String name, ParameterType<?> type) {
+        if (this.parameterChild == null) {
+            this.parameterChild = new RouteNode();
+            this.parameterName = name;
+            this.parameterType = type;
+        } else if (!this.parameterName.equals(name) || this.parameterType != type) {
+            throw new IllegalArgumentException("Conflicting path parameters " + this.parameterName + " and " + name);
+        }
+
+        return this.parameterChild;
+    }
+
+    /**
+     * Adding the handler of a method
+     *
+     * @param route The route ending at this node
+     * @param method The upper case method
+     * @param handler The handler of the method
+     * @throws IllegalArgumentException Thrown when the method has a handler already
+     */
+    void addHandler(String route, String method, RouteHandler handler) {
+        if (this.handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalArgumentException("Route has a " + method + " handler already");
+        }
+        if (this.route == null) {
+            this.route = route;
+        }
+    }
+
+    /**
+     * Getting the route ending at this node
+     * as it was registered first
+     *
+     * @return The route or null if no route ends here
+     */
+    String getRoute() {
+        return this.route;
+    }
+
+    /**
+     * Getting the handler of a method
+     *
+     * @param method The upper case method
+     * @return The handler or null if the method isn't allowed
+     */
+    RouteHandler getHandler(String method) {
+        return this.handlers.get(method);
+    }
+
+    /**
+     * Whether a route ends at this node
+     *
+     * @return Whether there are handlers
+     */
+    boolean hasHandlers() {
+        return !this.handlers.isEmpty();
+    }
+
+    /**
+     * Getting the allowed methods for the Allow header
+     *
+     * @return The methods separated by commas
+     */
+    String getAllowedMethods() {
+        return String.join(", ", this.handlers.keySet());
+    }
+
+    /**
+     * Finding the node of the rest of the path starting at the position.
+     * Literal segments are preferred and parameters are only
+     * tried if the literal route doesn't match
+     *
+     * @param path The path of the request
+     * @param position The start of the next segment
+     * @param parameters The parameters to add the parsed values to
+     * @return The node of the path or null if nothing matches
+     */
+    RouteNode find(String path, int position, PathParameters parameters) {
+        //End of the path which may have a trailing slash
+        if (position >= path.length()) {
+            return this;
+        }
+
+        int segmentEnd = path.indexOf('/', position);
+        if (segmentEnd == -1) {
+            segmentEnd = path.length();
+        }
+        String segment = path.substring(position, segmentEnd);
+
+        RouteNode literalChild = this.literalChildren.get(segment.toLowerCase(Locale.ROOT));
+        if (literalChild != null) {
+            RouteNode found = literalChild.find(path, segmentEnd + 1, parameters);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        if (this.parameterChild == null || segment.isEmpty()) {
+            return null;
+        }
+        Object value;
+        try {
+            value = this.parameterType.parse(segment);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        RouteNode found = this.parameterChild.find(path, segmentEnd + 1, parameters);
+        if (found != null) {
+            parameters.put(this.parameterName, value);
+        }
+
+        return found;
+    }
+
+}
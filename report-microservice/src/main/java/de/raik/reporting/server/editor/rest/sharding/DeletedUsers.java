@@ -0,0 +1,50 @@
+package de.raik.reporting.server.editor.rest.sharding;
+
+import de.raik.reporting.server.report.Report;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The times the reports of users were deleted on this shard
+ *
+ * Reports moved here by rebalancing which were created before the deletion
+ * of their user are dropped. So deleting a user while its reports are still
+ * on its former owner doesn't get undone by moving them. The times are
+ * only kept in memory until the server is stopped
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class DeletedUsers {
+
+    /**
+     * The time of the last deletion of every user
+     */
+    private final ConcurrentHashMap<UUID, LocalDateTime> deletions = new ConcurrentHashMap<>();
+
+    /**
+     * Remembering that the reports of a user
+     * were deleted now
+     *
+     * @param reportedUser The uuid of the reported user
+     */
+    public void markDeleted(UUID reportedUser) {
+        LocalDateTime now = LocalDateTime.now();
+        this.deletions.merge(reportedUser, now, (former, deletion) -> former.isAfter(deletion) ? former : deletion);
+    }
+
+    /**
+     * Whether a report was created before its
+     * user was deleted on this shard
+     *
+     * @param report The report to check
+     * @return Whether the report is deleted
+     */
+    public boolean isDeleted(Report report) {
+        LocalDateTime deletion = this.deletions.get(report.reportedUser());
+        return deletion != null && !report.timestamp().isAfter(deletion);
+    }
+
+}
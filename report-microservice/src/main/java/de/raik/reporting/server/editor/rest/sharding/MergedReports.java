@@ -0,0 +1,139 @@
+package de.raik.reporting.server.editor.rest.sharding;
+
+import de.raik.reporting.server.report.Report;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Iterator merging the ordered reports of
+ * multiple shards into one order
+ *
+ * Only the next report of every shard is held so merging
+ * doesn't need more memory with more reports
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class MergedReports implements Iterator<Report> {
+
+    /**
+     * The shards with a next report
+     * ordered by their next report
+     */
+    private final PriorityQueue<Source> sources;
+
+    /**
+     * Whether a shard has more reports
+     * after the last one of its page
+     */
+    private boolean more = false;
+
+    /**
+     * Constructor to create the merging iterator
+     * without any shard
+     *
+     * @param order The order of the reports of every shard
+     */
+    public MergedReports(Comparator<Report> order) {
+        this.sources = new PriorityQueue<>((firstSource, secondSource) ->
+                order.compare(firstSource.next, secondSource.next));
+    }
+
+    /**
+     * Adding the reports of a shard
+     *
+     * @param reports The reports of the shard in the order
+     * @param more Whether the shard has more reports than the iterator returns
+     */
+    public void addSource(Iterator<Report> reports, boolean more) {
+        this.more |= more;
+        Source source = new Source(reports);
+        if (source.advance()) {
+            this.sources.add(source);
+        }
+    }
+
+    /**
+     * Returns whether there are more reports
+     *
+     * @return Whether there are more reports
+     */
+    @Override
+    public boolean hasNext() {
+        return !this.sources.isEmpty();
+    }
+
+    /**
+     * Returns the next report of all shards
+     *
+     * @return The next report
+     */
+    @Override
+    public Report next() {
+        Source source = this.sources.poll();
+        if (source == null) {
+            throw new NoSuchElementException();
+        }
+
+        Report report = source.next;
+        if (source.advance()) {
+            this.sources.add(source);
+        }
+        return report;
+    }
+
+    /**
+     * Whether there are more reports including
+     * the ones after the pages of the shards
+     *
+     * @return Whether there are more reports
+     */
+    public boolean hasMore() {
+        return this.hasNext() || this.more;
+    }
+
+    /**
+     * The reports of one shard with
+     * its next report
+     */
+    private static class Source {
+
+        /**
+         * The reports of the shard
+         */
+        private final Iterator<Report> reports;
+
+        /**
+         * The next report of the shard
+         */
+        private Report next;
+
+        /**
+         * Constructor to create the source
+         *
+         * @param reports The reports of the shard
+         */
+        private Source(Iterator<Report> reports) {
+            this.reports = reports;
+        }
+
+        /**
+         * Moving to the next report
+         *
+         * @return Whether there was a next report
+         */
+        private boolean advance() {
+            if (!this.reports.hasNext()) {
+                return false;
+            }
+
+            this.next = this.reports.next();
+            return true;
+        }
+
+    }
+
+}
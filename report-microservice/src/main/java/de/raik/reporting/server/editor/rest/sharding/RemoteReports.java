@@ -0,0 +1,120 @@
+package de.raik.reporting.server.editor.rest.sharding;
+
+import com.google.gson.stream.JsonReader;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCodec;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Iterator over the reports of a listing of another shard
+ * reading one report after another from the response body
+ * so the listing is never held in memory completely
+ *
+ * Failures of reading are thrown as UncheckedIOException
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class RemoteReports implements Iterator<Report>, Closeable {
+
+    /**
+     * The reader of the response body
+     */
+    private final JsonReader reader;
+
+    /**
+     * The codec to parse the uuids and timestamps
+     */
+    private final ReportCodec codec;
+
+    /**
+     * Constructor starting to read the listing
+     *
+     * @param body The body of the response
+     * @param codec The codec to parse the uuids and timestamps
+     * @throws IOException Thrown when the body isn't a json array
+     */
+    public RemoteReports(InputStream body, ReportCodec codec) throws IOException {
+        this.reader = new JsonReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        this.codec = codec;
+        try {
+            this.reader.beginArray();
+        } catch (IOException | IllegalStateException exception) {
+            this.reader.close();
+            throw new IOException("The listing of the shard isn't an array", exception);
+        }
+    }
+
+    /**
+     * Returns whether there are more reports
+     *
+     * @return Whether there are more reports
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            return this.reader.hasNext();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Reading the next report
+     *
+     * @return The next report
+     */
+    @Override
+    public Report next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            UUID reportedUser = null;
+            String reason = null;
+            UUID reporter = null;
+            LocalDateTime timestamp = null;
+            this.reader.beginObject();
+            while (this.reader.hasNext()) {
+                switch (this.reader.nextName()) {
+                    case "uuid" -> reportedUser = this.codec.parseUUID(this.reader.nextString());
+                    case "reason" -> reason = this.reader.nextString();
+                    case "reporter" -> reporter = this.codec.parseUUID(this.reader.nextString());
+                    case "date" -> timestamp = this.codec.parseTimestamp(this.reader.nextString());
+                    default -> this.reader.skipValue();
+                }
+            }
+            this.reader.endObject();
+
+            if (reportedUser == null || reason == null || reporter == null || timestamp == null) {
+                throw new IOException("A report of the shard misses attributes");
+            }
+            return new Report(reportedUser, reason, reporter, timestamp);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Closing the response body
+     *
+     * @throws IOException Thrown when closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+}
@@ -0,0 +1,157 @@
+package de.raik.reporting.server.editor.rest.sharding;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.raik.reporting.server.sharding.Shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Client sending requests of the rest editor to other shards
+ *
+ * Every request to a shard is marked with the shard header so the shard
+ * handles it with its own reports instead of routing it again. The shards
+ * share the auth key so the key of this server is sent
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ShardClient {
+
+    /**
+     * The header marking requests sent by another shard
+     */
+    public static final String SHARD_HEADER = "X-Report-Shard";
+
+    /**
+     * The headers of the request which are forwarded
+     */
+    private static final List<String> REQUEST_HEADERS = List.of("Content-Type", "If-None-Match");
+
+    /**
+     * The headers of the response which are forwarded
+     */
+    private static final List<String> RESPONSE_HEADERS = List.of("Content-Type", "ETag", "Retry-After", "Allow",
+            "X-Report-Count", "X-Duplicate-Count", "X-Next-Cursor");
+
+    /**
+     * The time to wait for the connection
+     * and the headers of the response
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * The client sending the requests
+     */
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    /**
+     * The shard of this server
+     */
+    private final Shard self;
+
+    /**
+     * The value of the authorization header
+     * or an empty string if there is no auth key
+     */
+    private final String authorization;
+
+    /**
+     * Constructor to create the client
+     *
+     * @param self The shard of this server
+     * @param authKey The auth key shared by the shards
+     */
+    public ShardClient(Shard self, String authKey) {
+        this.self = self;
+        this.authorization = authKey.isEmpty() ? "" : "Basic " + authKey;
+    }
+
+    /**
+     * Sending a request to a shard
+     *
+     * @param shard The shard to send to
+     * @param method The method of the request
+     * @param pathAndQuery The raw path with the query starting with a slash
+     * @param body The body of the request
+     * @param headers The headers of the request as names and values after each other
+     * @return The response with the body as stream which needs to be closed
+     * @throws IOException Thrown when the shard can't be reached
+     */
+    public HttpResponse<InputStream> send(Shard shard, String method, String pathAndQuery,
+                                          HttpRequest.BodyPublisher body, String... headers) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(shard.url() + pathAndQuery))
+                .timeout(TIMEOUT)
+                .method(method, body)
+                .header(SHARD_HEADER, this.self.name());
+        if (!this.authorization.isEmpty()) {
+            request.header("Authorization", this.authorization);
+        }
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+
+        try {
+            return this.client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for shard " + shard.name());
+        } catch (IllegalArgumentException exception) {
+            throw new IOException("Invalid url of shard " + shard.name(), exception);
+        }
+    }
+
+    /**
+     * Forwarding a request to the owning shard and sending its response.
+     * Bad gateway is sent if the shard can't be reached
+     *
+     * @param httpExchange The exchange of the request
+     * @param shard The shard to forward to
+     */
+    public void forward(HttpExchange httpExchange, Shard shard) throws IOException {
+        String method = httpExchange.getRequestMethod().toUpperCase();
+        String query = httpExchange.getRequestURI().getRawQuery();
+        HttpRequest.BodyPublisher body = method.equals("POST")
+                ? HttpRequest.BodyPublishers.ofInputStream(httpExchange::getRequestBody)
+                : HttpRequest.BodyPublishers.noBody();
+        String[] headers = REQUEST_HEADERS.stream()
+                .filter(httpExchange.getRequestHeaders()::containsKey)
+                .flatMap(name -> List.of(name, httpExchange.getRequestHeaders().getFirst(name)).stream())
+                .toArray(String[]::new);
+
+        HttpResponse<InputStream> response;
+        try {
+            response = this.send(shard, method, httpExchange.getRequestURI().getRawPath() + (query != null ? "?" + query : ""),
+                    body, headers);
+        } catch (IOException exception) {
+            httpExchange.sendResponseHeaders(502, -1);
+            httpExchange.close();
+            return;
+        }
+
+        try (InputStream responseBody = response.body()) {
+            RESPONSE_HEADERS.forEach(name -> response.headers().firstValue(name)
+                    .ifPresent(value -> httpExchange.getResponseHeaders().add(name, value)));
+            boolean empty = method.equals("HEAD") || response.statusCode() == 204 || response.statusCode() == 304;
+            httpExchange.sendResponseHeaders(response.statusCode(), empty ? -1 : 0);
+            if (!empty) {
+                responseBody.transferTo(httpExchange.getResponseBody());
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+}
@@ -24,13 +24,41 @@ public class LaunchArgumentParser {
      * to start the service even without parsing specific or even none
      * arguments.
      */
-    private static final Map<String, String> DEFAULT_ARGUMENTS = Map.of(
-            "file.name", "reports.csv",
-            "file.path", "./",
-            "configClass", "de.raik.reporting.server.config.file.CSVConfig",
-            "rest.port", "1337",
-            "rest.authKey", "hKw0dKTBJ2KLqgzJVRAV2aJu",
-            "editorClass", "de.raik.reporting.server.editor.rest.RestEditor"
+    private static final Map<String, String> DEFAULT_ARGUMENTS = Map.ofEntries(
+            Map.entry("file.name", "reports.csv"),
+            Map.entry("file.path", "./"),
+            Map.entry("file.compactionSize", "16777216"),
+            Map.entry("configClass", "de.raik.reporting.server.config.file.CSVConfig"),
+            Map.entry("save.interval", "5000"),
+            Map.entry("save.changes", "1000"),
+            Map.entry("store.changeLog", "100000"),
+            Map.entry("rest.port", "1337"),
+            Map.entry("rest.authKey", "hKw0dKTBJ2KLqgzJVRAV2aJu"),
+            Map.entry("rest.compression", "1024"),
+            Map.entry("rest.executor", "bounded"),
+            Map.entry("rest.threads", "10"),
+            Map.entry("rest.queueSize", "100"),
+            Map.entry("rest.retryAfter", "1"),
+            Map.entry("rest.metricsAuth", "true"),
+            Map.entry("rest.duplicateWindow", "0"),
+            Map.entry("rest.reporterLimit", "0"),
+            Map.entry("rest.reporterBurst", "3"),
+            Map.entry("rest.streamBuffer", "256"),
+            Map.entry("rest.streamRetained", "10000"),
+            Map.entry("rest.streamSubscribers", "100"),
+            Map.entry("retention.days", "0"),
+            Map.entry("retention.interval", "3600"),
+            Map.entry("retention.path", "./archive"),
+            Map.entry("replication.role", "none"),
+            Map.entry("replication.port", "1338"),
+            Map.entry("replication.host", "127.0.0.1"),
+            Map.entry("replication.authKey", "hKw0dKTBJ2KLqgzJVRAV2aJu"),
+            Map.entry("replication.leader", "localhost:1338"),
+            Map.entry("replication.leaderUrl", ""),
+            Map.entry("shard.nodes", ""),
+            Map.entry("shard.self", ""),
+            Map.entry("shard.virtualNodes", "160"),
+            Map.entry("editorClass", "de.raik.reporting.server.editor.rest.RestEditor")
     );
 
     /**
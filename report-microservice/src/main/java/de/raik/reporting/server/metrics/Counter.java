@@ -0,0 +1,56 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter only going up which can be incremented
+ * by many threads without contention
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class Counter implements Metric {
+
+    /**
+     * The value of the counter
+     */
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Incrementing the counter by one
+     */
+    public void increment() {
+        this.value.increment();
+    }
+
+    /**
+     * Incrementing the counter by an amount
+     *
+     * @param amount The amount which can't be negative
+     */
+    public void add(long amount) {
+        this.value.add(amount);
+    }
+
+    /**
+     * Getting the value of the counter
+     *
+     * @return The value
+     */
+    public long get() {
+        return this.value.sum();
+    }
+
+    @Override
+    public void write(Writer writer, String name, String labels) throws IOException {
+        writer.write(name + MetricsRegistry.braces(labels) + " " + this.value.sum() + "\n");
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+}
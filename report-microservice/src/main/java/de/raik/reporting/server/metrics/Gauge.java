@@ -0,0 +1,64 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauge which is either set or reads
+ * its value when written
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class Gauge implements Metric {
+
+    /**
+     * The supplier of the value or null
+     * if the value is set
+     */
+    private final DoubleSupplier supplier;
+
+    /**
+     * The value set last
+     */
+    private volatile double value = 0;
+
+    /**
+     * Constructor to create a gauge which is set
+     */
+    public Gauge() {
+        this(null);
+    }
+
+    /**
+     * Constructor to create a gauge reading
+     * its value when written
+     *
+     * @param supplier The supplier of the value
+     */
+    public Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Setting the value of the gauge
+     *
+     * @param value The new value
+     */
+    public void set(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public void write(Writer writer, String name, String labels) throws IOException {
+        double currentValue = this.supplier != null ? this.supplier.getAsDouble() : this.value;
+        writer.write(name + MetricsRegistry.braces(labels) + " " + MetricsRegistry.format(currentValue) + "\n");
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+}
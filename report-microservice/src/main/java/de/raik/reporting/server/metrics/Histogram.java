@@ -0,0 +1,76 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with fixed buckets. Recording only
+ * searches the bucket and increments adders so it's cheap
+ * enough for every request
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class Histogram implements Metric {
+
+    /**
+     * The upper bounds of the buckets in seconds
+     */
+    private static final double[] BUCKET_BOUNDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    /**
+     * The upper bounds of the buckets in nanoseconds
+     */
+    private static final long[] BUCKET_NANOS = Arrays.stream(BUCKET_BOUNDS).mapToLong(bound -> (long) (bound * 1e9)).toArray();
+
+    /**
+     * The amount of durations per bucket with
+     * one more bucket for the ones above all bounds
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+    /**
+     * The sum of all durations in nanoseconds
+     */
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Constructor creating the buckets
+     */
+    public Histogram() {
+        Arrays.setAll(this.buckets, index -> new LongAdder());
+    }
+
+    /**
+     * Recording a duration
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = Arrays.binarySearch(BUCKET_NANOS, nanos);
+        this.buckets[bucket >= 0 ? bucket : -bucket - 1].increment();
+        this.sumNanos.add(nanos);
+    }
+
+    @Override
+    public void write(Writer writer, String name, String labels) throws IOException {
+        String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+        long count = 0;
+        for (int i = 0; i < this.buckets.length; i++) {
+            count += this.buckets[i].sum();
+            String bound = i < BUCKET_BOUNDS.length ? MetricsRegistry.format(BUCKET_BOUNDS[i]) : "+Inf";
+            writer.write(name + "_bucket{" + labelPrefix + "le=\"" + bound + "\"} " + count + "\n");
+        }
+        writer.write(name + "_sum" + MetricsRegistry.braces(labels) + " " + MetricsRegistry.format(this.sumNanos.sum() / 1e9) + "\n");
+        writer.write(name + "_count" + MetricsRegistry.braces(labels) + " " + count + "\n");
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+
+}
@@ -0,0 +1,32 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A metric with one set of label values which
+ * writes its samples in the prometheus text format
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public interface Metric {
+
+    /**
+     * Writing the samples of the metric
+     *
+     * @param writer The writer to write to
+     * @param name The name of the metric family
+     * @param labels The rendered labels without braces which may be empty
+     * @throws IOException Thrown when writing fails
+     */
+    void write(Writer writer, String name, String labels) throws IOException;
+
+    /**
+     * Getting the prometheus type of the metric
+     *
+     * @return The type like counter or histogram
+     */
+    String getType();
+
+}
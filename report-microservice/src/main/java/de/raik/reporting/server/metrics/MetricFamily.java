@@ -0,0 +1,131 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Family of metrics with the same name and one
+ * metric per combination of label values
+ *
+ * @param <T> The type of the metrics
+ * @author Raik
+ * @version 1.0
+ */
+public class MetricFamily<T extends Metric> {
+
+    /**
+     * The name of the family
+     */
+    private final String name;
+
+    /**
+     * The help text of the family
+     */
+    private final String help;
+
+    /**
+     * The names of the labels
+     */
+    private final String[] labelNames;
+
+    /**
+     * The factory creating the metric of new label values
+     */
+    private final Supplier<T> factory;
+
+    /**
+     * The metrics by their label values
+     */
+    private final ConcurrentHashMap<List<String>, T> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to create the family
+     *
+     * @param name The name of the family
+     * @param help The help text of the family
+     * @param labelNames The names of the labels
+     * @param factory The factory creating the metric of new label values
+     */
+    MetricFamily(String name, String help, String[] labelNames, Supplier<T> factory) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = labelNames;
+        this.factory = factory;
+    }
+
+    /**
+     * Getting or creating the metric of the label values
+     *
+     * @param labelValues The values in the order of the label names
+     * @return The metric of the label values
+     * @throws IllegalArgumentException Thrown when the amount of values doesn't match the labels
+     */
+    public T labels(String... labelValues) {
+        if (labelValues.length != this.labelNames.length) {
+            throw new IllegalArgumentException("Expected " + this.labelNames.length + " label values for " + this.name);
+        }
+
+        return this.metrics.computeIfAbsent(List.of(labelValues), key -> this.factory.get());
+    }
+
+    /**
+     * Adding a metric with label values which
+     * replaces an existing one
+     *
+     * @param metric The metric to add
+     * @param labelValues The values in the order of the label names
+     */
+    void put(T metric, String... labelValues) {
+        this.metrics.put(List.of(labelValues), metric);
+    }
+
+    /**
+     * Writing the help, type and the samples
+     * of every metric of the family
+     *
+     * @param writer The writer to write to
+     * @throws IOException Thrown when writing fails
+     */
+    void write(Writer writer) throws IOException {
+        if (this.metrics.isEmpty()) {
+            return;
+        }
+
+        writer.write("# HELP " + this.name + " " + this.help + "\n");
+        writer.write("# TYPE " + this.name + " " + this.metrics.values().iterator().next().getType() + "\n");
+        for (Map.Entry<List<String>, T> metric : this.metrics.entrySet()) {
+            metric.getValue().write(writer, this.name, this.renderLabels(metric.getKey()));
+        }
+    }
+
+    /**
+     * Rendering the labels as name="value" pairs
+     * with escaped values
+     *
+     * @param labelValues The values of the labels
+     * @return The rendered labels separated by commas
+     */
+    private String renderLabels(List<String> labelValues) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < this.labelNames.length; i++) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(this.labelNames[i]).append("=\"").append(labelValues.get(i).replace("\\", "\\\\")
+                    .replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+
+        return labels.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.name + Arrays.toString(this.labelNames);
+    }
+
+}
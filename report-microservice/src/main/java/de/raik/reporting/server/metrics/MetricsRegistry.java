@@ -0,0 +1,126 @@
+package de.raik.reporting.server.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the metrics of the report server which
+ * are written in the prometheus text format
+ * The server creates one registry and passes it to the editor
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class MetricsRegistry {
+
+    /**
+     * The families by their name sorted
+     * to write them in a stable order
+     */
+    private final ConcurrentSkipListMap<String, MetricFamily<?>> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Getting or creating a family of counters
+     *
+     * @param name The name of the family
+     * @param help The help text of the family
+     * @param labelNames The names of the labels
+     * @return The family of the counters
+     */
+    public MetricFamily<Counter> counters(String name, String help, String... labelNames) {
+        return this.family(name, help, labelNames, Counter::new);
+    }
+
+    /**
+     * Getting or creating a family of histograms
+     *
+     * @param name The name of the family
+     * @param help The help text of the family
+     * @param labelNames The names of the labels
+     * @return The family of the histograms
+     */
+    public MetricFamily<Histogram> histograms(String name, String help, String... labelNames) {
+        return this.family(name, help, labelNames, Histogram::new);
+    }
+
+    /**
+     * Getting or creating a family of gauges which are set
+     *
+     * @param name The name of the family
+     * @param help The help text of the family
+     * @param labelNames The names of the labels
+     * @return The family of the gauges
+     */
+    public MetricFamily<Gauge> gauges(String name, String help, String... labelNames) {
+        return this.family(name, help, labelNames, Gauge::new);
+    }
+
+    /**
+     * Adding a gauge without labels reading
+     * its value when written
+     *
+     * @param name The name of the gauge
+     * @param help The help text of the gauge
+     * @param supplier The supplier of the value
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        this.gauges(name, help).put(new Gauge(supplier));
+    }
+
+    /**
+     * Writing every metric in the prometheus text format
+     *
+     * @param writer The writer to write to
+     * @throws IOException Thrown when writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        for (MetricFamily<?> family : this.families.values()) {
+            family.write(writer);
+        }
+    }
+
+    /**
+     * Getting or creating a family
+     *
+     * @param name The name of the family
+     * @param help The help text of the family
+     * @param labelNames The names of the labels
+     * @param factory The factory of the metrics
+     * @param <T> The type of the metrics
+     * @return The family
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Metric> MetricFamily<T> family(String name, String help, String[] labelNames, Supplier<T> factory) {
+        return (MetricFamily<T>) this.families.computeIfAbsent(name, key -> new MetricFamily<>(name, help, labelNames, factory));
+    }
+
+    /**
+     * Putting rendered labels into braces
+     *
+     * @param labels The rendered labels which may be empty
+     * @return The labels in braces or an empty string
+     */
+    static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    /**
+     * Formatting a number without exponent and
+     * without fraction for whole numbers
+     *
+     * @param value The number to format
+     * @return The formatted number
+     */
+    static String format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf";
+        }
+
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+}
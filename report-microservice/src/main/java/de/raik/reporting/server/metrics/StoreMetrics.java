@@ -0,0 +1,82 @@
+package de.raik.reporting.server.metrics;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.report.ReportStoreListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener of the report store registering the gauges
+ * of the store. The heap usage of the reports is estimated from
+ * fixed sizes of the objects and the length of the reasons which are
+ * tracked on every change so writing the metrics never scans the store
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class StoreMetrics implements ReportStoreListener {
+
+    /**
+     * The estimated bytes of one report without its reason.
+     * Counting the record, both uuids, the timestamp and the entries
+     * in the list of the user and the timeline
+     */
+    private static final long REPORT_BYTES = 256;
+
+    /**
+     * The estimated bytes of the string holding a reason
+     * without its characters
+     */
+    private static final long REASON_BYTES = 40;
+
+    /**
+     * The estimated bytes of a reported user
+     * in the store with its list
+     */
+    private static final long USER_BYTES = 96;
+
+    /**
+     * The length of all stored reasons
+     */
+    private final LongAdder reasonLength = new LongAdder();
+
+    /**
+     * Constructor adding the listener to the store and
+     * registering the gauges. Needs to be created before
+     * the reports are loaded
+     *
+     * @param reports The store to observe
+     * @param metrics The registry to register the gauges at
+     */
+    public StoreMetrics(ReportStore reports, MetricsRegistry metrics) {
+        reports.addListener(this);
+
+        metrics.gauge("report_store_reports", "Amount of stored reports", reports::size);
+        metrics.gauge("report_store_reported_users", "Amount of distinct reported users", reports::getReportedUserCount);
+        metrics.gauge("report_store_heap_estimate_bytes", "Estimated heap used by the stored reports",
+                () -> reports.size() * (REPORT_BYTES + REASON_BYTES) + reports.getReportedUserCount() * USER_BYTES
+                        + this.reasonLength.sum());
+        metrics.gauge("report_jvm_heap_used_bytes", "Heap used by the whole server",
+                () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+    }
+
+    @Override
+    public void reportAdded(Report report) {
+        this.reasonLength.add(report.reportReason().length());
+    }
+
+    @Override
+    public void reportsRemoved(UUID reportedUser, List<Report> removed) {
+        removed.forEach(report -> this.reasonLength.add(-report.reportReason().length()));
+    }
+
+    @Override
+    public void reportsExpired(UUID reportedUser, LocalDateTime cutoff, List<Report> expired) {
+        this.reportsRemoved(reportedUser, expired);
+    }
+
+}
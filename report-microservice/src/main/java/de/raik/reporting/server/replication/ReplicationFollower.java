@@ -0,0 +1,253 @@
+package de.raik.reporting.server.replication;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportChange;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The follower connecting to the leader and applying
+ * its changes to the own store on an own thread
+ *
+ * The follower remembers the sequence of the last applied change of the leader
+ * and continues with it after reconnecting. The changes are applied with
+ * the methods of the store so the config of the follower persists them
+ * like changes of its own editor
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class ReplicationFollower {
+
+    /**
+     * The milliseconds to wait before reconnecting
+     */
+    private static final long RECONNECT_DELAY = 1000;
+
+    /**
+     * The store to apply the changes to
+     */
+    private final ReportStore reports;
+
+    /**
+     * The unresolved address of the leader
+     */
+    private final InetSocketAddress leader;
+
+    /**
+     * Callback called after changes were applied
+     */
+    private final Runnable updateCallback;
+
+    /**
+     * The auth key sent to the leader
+     */
+    private final String authKey;
+
+    /**
+     * The sequence of the last change of the
+     * leader which was applied or -1 if none
+     */
+    private volatile long lastApplied = -1;
+
+    /**
+     * The last sequence of the leader
+     * the follower knows about
+     */
+    private volatile long leaderSequence = -1;
+
+    /**
+     * The current connection to the leader
+     */
+    private volatile Socket socket;
+
+    /**
+     * Whether the follower is stopped
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor to create the follower
+     *
+     * @param reports The store to apply the changes to
+     * @param leader The unresolved address of the leader
+     * @param updateCallback Callback called after changes were applied
+     * @param authKey The auth key sent to the leader
+     */
+    ReplicationFollower(ReportStore reports, InetSocketAddress leader, Runnable updateCallback, String authKey) {
+        this.reports = reports;
+        this.leader = leader;
+        this.updateCallback = updateCallback;
+        this.authKey = authKey;
+    }
+
+    /**
+     * Starting to follow the leader
+     */
+    void start() {
+        Thread thread = new Thread(this::run, "report-replication");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Connecting to the leader again
+     * until the follower is stopped
+     */
+    private void run() {
+        while (!this.stopped) {
+            try (Socket socket = new Socket()) {
+                this.socket = socket;
+                //Resolving the leader on every connect as its address can change
+                socket.connect(new InetSocketAddress(this.leader.getHostString(), this.leader.getPort()), ReplicationProtocol.TIMEOUT);
+                socket.setSoTimeout(ReplicationProtocol.TIMEOUT);
+                socket.setTcpNoDelay(true);
+                this.follow(socket);
+            } catch (IOException exception) {
+                if (!this.stopped) {
+                    System.out.println("Lost connection to the replication leader " + this.leader.getHostString() + ":"
+                            + this.leader.getPort() + ": " + exception);
+                }
+            } finally {
+                this.socket = null;
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sending the hello and applying the
+     * messages of the leader
+     *
+     * @param socket The connected socket
+     * @throws IOException Thrown when the connection fails or a message is invalid
+     */
+    private void follow(Socket socket) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        output.writeInt(ReplicationProtocol.MAGIC);
+        ReplicationProtocol.writeAuthKey(output, this.authKey);
+        output.writeLong(this.lastApplied);
+        output.flush();
+
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+        while (!this.stopped) {
+            byte type = input.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT -> this.applySnapshot(input);
+                case ReplicationProtocol.CHANGE -> this.apply(ReplicationProtocol.readChange(input));
+                case ReplicationProtocol.HEARTBEAT -> this.leaderSequence = input.readLong();
+                default -> throw new IOException("Unknown message type " + type);
+            }
+
+            //Saving once the received messages are applied
+            if (type != ReplicationProtocol.HEARTBEAT && input.available() == 0) {
+                this.updateCallback.run();
+            }
+        }
+    }
+
+    /**
+     * Replacing the reports of the store
+     * with the reports of the snapshot
+     *
+     * @param input The stream to read the snapshot from
+     * @throws IOException Thrown when reading fails
+     */
+    private void applySnapshot(DataInputStream input) throws IOException {
+        long sequence = input.readLong();
+        int amount = input.readInt();
+        if (amount < 0) {
+            throw new IOException("Invalid snapshot size " + amount);
+        }
+
+        //Reading the whole snapshot before changing the store
+        HashMap<UUID, List<Report>> snapshot = new HashMap<>();
+        for (int i = 0; i < amount; i++) {
+            Report report = ReplicationProtocol.readReport(input);
+            snapshot.computeIfAbsent(report.reportedUser(), user -> new ArrayList<>()).add(report);
+        }
+
+        //Replacing the reports of one user at once so readers never see an empty store
+        HashSet<UUID> users = new HashSet<>(snapshot.keySet());
+        this.reports.stream().map(Report::reportedUser).forEach(users::add);
+        users.forEach(user -> {
+            this.reports.removeReports(user);
+            this.reports.addAll(snapshot.getOrDefault(user, List.of()));
+        });
+
+        this.lastApplied = sequence;
+        this.leaderSequence = Math.max(this.leaderSequence, sequence);
+        System.out.println("Applied replication snapshot with " + amount + " reports");
+    }
+
+    /**
+     * Applying a change of the leader
+     *
+     * @param change The change to apply
+     */
+    private void apply(ReportChange change) {
+        switch (change.type()) {
+            case ADD -> this.reports.add(change.report());
+            case DELETE -> this.reports.removeReports(change.reportedUser());
+            case EXPIRE -> this.reports.expireReports(change.reportedUser(), change.before());
+        }
+
+        this.lastApplied = change.sequence();
+        this.leaderSequence = Math.max(this.leaderSequence, change.sequence());
+    }
+
+    /**
+     * Getter for the amount of changes of the
+     * leader which weren't applied yet
+     *
+     * @return The amount of changes
+     */
+    long getLag() {
+        return this.leaderSequence - this.lastApplied;
+    }
+
+    /**
+     * Getter for whether the follower
+     * is connected to the leader
+     *
+     * @return Whether it's connected
+     */
+    boolean isConnected() {
+        Socket socket = this.socket;
+        return socket != null && socket.isConnected();
+    }
+
+    /**
+     * Stopping to follow the leader
+     */
+    void shutdown() {
+        this.stopped = true;
+        Socket socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        }
+    }
+
+}
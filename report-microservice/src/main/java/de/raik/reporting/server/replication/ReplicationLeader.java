@@ -0,0 +1,251 @@
+package de.raik.reporting.server.replication;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportChange;
+import de.raik.reporting.server.report.ReportSnapshot;
+import de.raik.reporting.server.report.ReportStore;
+import de.raik.reporting.server.report.ReportStoreListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The leader accepting followers and streaming the changes
+ * of its store to every follower on an own thread
+ *
+ * A follower continues at its last applied sequence if the change log still
+ * contains the changes after it. Otherwise it gets a snapshot first and
+ * continues at the sequence of the snapshot. A follower falling behind
+ * the change log is disconnected and gets a snapshot after reconnecting
+ *
+ * Followers have to send the shared auth key in their hello. Connections
+ * over the maximum amount of followers are closed right away
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class ReplicationLeader implements ReportStoreListener {
+
+    /**
+     * The maximum amount of changes read
+     * from the log at once
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * The maximum amount of followers connected
+     * at once as every follower has an own thread
+     */
+    private static final int MAX_FOLLOWERS = 64;
+
+    /**
+     * The store to replicate
+     */
+    private final ReportStore reports;
+
+    /**
+     * The socket accepting the followers
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * The auth key the followers have to send
+     */
+    private final String authKey;
+
+    /**
+     * The sockets of the connected followers
+     */
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Monitor the follower threads wait at
+     * until the store changes
+     */
+    private final Object changeSignal = new Object();
+
+    /**
+     * Constructor binding the socket for the followers
+     *
+     * @param reports The store to replicate
+     * @param host The host to listen on
+     * @param port The port to listen on
+     * @param authKey The auth key the followers have to send
+     * @throws IOException Thrown when the port can't be bound
+     */
+    ReplicationLeader(ReportStore reports, String host, int port, String authKey) throws IOException {
+        this.reports = reports;
+        this.authKey = authKey;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(host, port));
+    }
+
+    /**
+     * Starting to accept followers
+     */
+    void start() {
+        this.reports.addListener(this);
+        Thread acceptor = new Thread(this::accept, "report-replication");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accepting followers and starting a
+     * thread for every follower
+     */
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                //Only the acceptor adds followers so the size can't grow in between
+                if (this.followers.size() >= MAX_FOLLOWERS) {
+                    System.out.println("Rejected replication follower " + socket.getRemoteSocketAddress()
+                            + " as " + MAX_FOLLOWERS + " followers are connected");
+                    socket.close();
+                    continue;
+                }
+                this.followers.add(socket);
+                Thread follower = new Thread(() -> this.serve(socket), "report-replication-" + socket.getRemoteSocketAddress());
+                follower.setDaemon(true);
+                follower.start();
+            } catch (IOException exception) {
+                if (!this.serverSocket.isClosed()) {
+                    exception.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sending the snapshot if needed and the changes
+     * to one follower until it disconnects
+     *
+     * @param socket The socket of the follower
+     */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(ReplicationProtocol.TIMEOUT);
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+            if (input.readInt() != ReplicationProtocol.MAGIC || !ReplicationProtocol.readAuthKey(input, this.authKey)) {
+                System.out.println("Rejected replication follower " + socket.getRemoteSocketAddress()
+                        + " with an invalid hello");
+                return;
+            }
+
+            //Sending a snapshot if the follower can't continue with the log
+            long sent = input.readLong();
+            if (sent < 0 || this.reports.getChanges(sent, 0) == null) {
+                ReportSnapshot snapshot = this.reports.snapshot();
+                output.writeByte(ReplicationProtocol.SNAPSHOT);
+                output.writeLong(snapshot.sequence());
+                output.writeInt(snapshot.reports().size());
+                for (Report report : snapshot.reports()) {
+                    ReplicationProtocol.writeReport(output, report);
+                }
+                sent = snapshot.sequence();
+            }
+
+            while (!socket.isClosed()) {
+                List<ReportChange> changes = this.reports.getChanges(sent, BATCH_SIZE);
+                if (changes == null) {
+                    //The follower fell behind the log and needs a snapshot
+                    return;
+                }
+
+                for (ReportChange change : changes) {
+                    ReplicationProtocol.writeChange(output, change);
+                }
+                if (!changes.isEmpty()) {
+                    sent = changes.get(changes.size() - 1).sequence();
+                    continue;
+                }
+
+                //Waiting for changes and sending a heartbeat if there are none
+                output.flush();
+                synchronized (this.changeSignal) {
+                    if (this.reports.getVersion() == sent) {
+                        this.changeSignal.wait(ReplicationProtocol.HEARTBEAT_INTERVAL);
+                    }
+                }
+                if (this.reports.getVersion() == sent) {
+                    output.writeByte(ReplicationProtocol.HEARTBEAT);
+                    output.writeLong(sent);
+                }
+            }
+        } catch (IOException exception) {
+            //The follower disconnected and will reconnect
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.followers.remove(socket);
+        }
+    }
+
+    /**
+     * Waking up the follower threads
+     * waiting for changes
+     */
+    private void signalChange() {
+        synchronized (this.changeSignal) {
+            this.changeSignal.notifyAll();
+        }
+    }
+
+    @Override
+    public void reportAdded(Report report) {
+        this.signalChange();
+    }
+
+    @Override
+    public void reportsRemoved(UUID reportedUser, List<Report> removed) {
+        this.signalChange();
+    }
+
+    @Override
+    public void reportsExpired(UUID reportedUser, LocalDateTime cutoff, List<Report> expired) {
+        this.signalChange();
+    }
+
+    /**
+     * Getter for the amount of connected followers
+     *
+     * @return The amount of followers
+     */
+    int getFollowerCount() {
+        return this.followers.size();
+    }
+
+    /**
+     * Closing the socket and disconnecting every follower
+     */
+    void shutdown() {
+        try {
+            this.serverSocket.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+        this.followers.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,197 @@
+package de.raik.reporting.server.replication;
+
+import de.raik.reporting.server.accessor.oneussage.OneUsageAccessor;
+import de.raik.reporting.server.metrics.MetricsRegistry;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+
+/**
+ * The node replicating the reports from one leader to its followers
+ * over tcp. The leader streams the changes of its store and the
+ * followers apply them to their own store and config
+ *
+ * Followers only serve reading requests. Writes are redirected to
+ * the rest url of the leader if one is set and rejected otherwise
+ *
+ * Arguments with the prefix replication:
+ * role - none, leader or follower
+ * port - The port the leader listens for followers on
+ * host - The host the leader listens on which is only the loopback by default
+ * authKey - The key the followers send to the leader which has to match on both
+ * leader - The host and port of the leader the follower connects to
+ * leaderUrl - The url of the rest editor of the leader writes are redirected to
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ReplicationNode implements OneUsageAccessor {
+
+    /**
+     * The role of the node
+     */
+    private Role role;
+
+    /**
+     * The port the leader listens on
+     */
+    private int port;
+
+    /**
+     * The host the leader listens on
+     */
+    private String host;
+
+    /**
+     * The auth key shared by the leader and its followers
+     */
+    private String authKey;
+
+    /**
+     * The address of the leader
+     */
+    private InetSocketAddress leaderAddress;
+
+    /**
+     * The url of the rest editor of the leader
+     * or an empty string if there is none
+     */
+    private String leaderUrl;
+
+    /**
+     * The leader if the node is one
+     */
+    private ReplicationLeader leader;
+
+    /**
+     * The follower if the node is one
+     */
+    private ReplicationFollower follower;
+
+    /**
+     * A callback runnable which should be called when
+     * changes of the leader were applied it also has a setter
+     */
+    private Runnable updateCallback = () -> {};
+
+    public void setUpdateCallback(Runnable updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * The registry the node records its metrics at
+     * which is set by the report server before the initialization
+     */
+    private MetricsRegistry metrics = new MetricsRegistry();
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Getter for the prefix of the arguments
+     *
+     * @return The prefix replication
+     */
+    @Override
+    public String getConfigArgumentPrefix() {
+        return "replication";
+    }
+
+    /**
+     * Loading the role and the addresses
+     *
+     * @param arguments Map of arguments with key as the attribute and value as its value
+     */
+    @Override
+    public void loadArguments(HashMap<String, String> arguments) {
+        this.role = Role.valueOf(arguments.get("role").toUpperCase());
+        this.port = Integer.parseInt(arguments.get("port"));
+        this.host = arguments.get("host");
+        this.authKey = arguments.get("authKey");
+        this.leaderUrl = arguments.get("leaderUrl");
+
+        String leader = arguments.get("leader");
+        int separator = leader.lastIndexOf(':');
+        if (separator == -1) {
+            throw new IllegalArgumentException("The leader needs to be given as host:port");
+        }
+        this.leaderAddress = InetSocketAddress.createUnresolved(leader.substring(0, separator),
+                Integer.parseInt(leader.substring(separator + 1)));
+    }
+
+    /**
+     * Starting the leader or the follower
+     *
+     * @param reports The reports to replicate
+     */
+    @Override
+    public void initAccessor(ReportStore reports) {
+        switch (this.role) {
+            case LEADER -> {
+                try {
+                    this.leader = new ReplicationLeader(reports, this.host, this.port, this.authKey);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException("Can't listen for followers on " + this.host + ":" + this.port, exception);
+                }
+                this.leader.start();
+                this.metrics.gauge("report_replication_followers", "Followers connected to the leader",
+                        this.leader::getFollowerCount);
+            }
+            case FOLLOWER -> {
+                this.follower = new ReplicationFollower(reports, this.leaderAddress, this.updateCallback, this.authKey);
+                this.follower.start();
+                this.metrics.gauge("report_replication_lag", "Changes of the leader which weren't applied yet",
+                        this.follower::getLag);
+                this.metrics.gauge("report_replication_connected", "Whether the follower is connected to the leader",
+                        () -> this.follower.isConnected() ? 1 : 0);
+            }
+            case NONE -> {
+            }
+        }
+    }
+
+    /**
+     * Getter for whether the node is a follower
+     * and only serves reading requests
+     *
+     * @return Whether it's a follower
+     */
+    public boolean isFollower() {
+        return this.role == Role.FOLLOWER;
+    }
+
+    /**
+     * Getter for the url writes are redirected to
+     *
+     * @return The url of the leader or an empty string
+     */
+    public String getLeaderUrl() {
+        return this.leaderUrl;
+    }
+
+    /**
+     * Stopping the replication
+     */
+    public void shutdown() {
+        if (this.leader != null) {
+            this.leader.shutdown();
+        }
+        if (this.follower != null) {
+            this.follower.shutdown();
+        }
+    }
+
+    /**
+     * The roles of a node
+     */
+    private enum Role {
+        NONE,
+        LEADER,
+        FOLLOWER
+    }
+
+}
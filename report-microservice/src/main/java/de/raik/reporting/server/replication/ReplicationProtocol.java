@@ -0,0 +1,229 @@
+package de.raik.reporting.server.replication;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportChange;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * The messages sent between the leader and its followers
+ * over one tcp connection per follower
+ *
+ * Follower to leader once after connecting:
+ * HELLO - magic, the auth key, the last applied sequence of the leader or -1
+ * The leader closes the connection if the magic or the key doesn't match
+ *
+ * Leader to follower:
+ * SNAPSHOT - sequence, amount and the reports if the follower can't continue with the log
+ * CHANGE - sequence, type and the data of one change after the last sent sequence
+ * HEARTBEAT - the last sequence of the leader sent while nothing changes
+ *
+ * @author Raik
+ * @version 1.0
+ */
+final class ReplicationProtocol {
+
+    /**
+     * The first int sent by a follower
+     */
+    static final int MAGIC = 0x52505231;
+
+    /**
+     * Message type of a snapshot
+     */
+    static final byte SNAPSHOT = 'S';
+
+    /**
+     * Message type of a change
+     */
+    static final byte CHANGE = 'C';
+
+    /**
+     * Message type of a heartbeat
+     */
+    static final byte HEARTBEAT = 'H';
+
+    /**
+     * The milliseconds between two heartbeats
+     */
+    static final int HEARTBEAT_INTERVAL = 1000;
+
+    /**
+     * The milliseconds without any message
+     * after which the connection is seen as dead
+     */
+    static final int TIMEOUT = 5000;
+
+    /**
+     * The maximum length of a reason in bytes so an invalid
+     * message doesn't allocate too much memory
+     */
+    private static final int MAX_REASON_LENGTH = 1024 * 1024;
+
+    /**
+     * Private constructor as there are only static methods
+     */
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Writing the auth key of the hello
+     *
+     * @param output The stream to write to
+     * @param authKey The auth key shared by leader and followers
+     * @throws IOException Thrown when writing fails
+     */
+    static void writeAuthKey(DataOutputStream output, String authKey) throws IOException {
+        output.writeUTF(authKey);
+    }
+
+    /**
+     * Reading the auth key of the hello and comparing it
+     * in constant time so the key can't be guessed by timing
+     *
+     * @param input The stream to read from
+     * @param authKey The auth key of the leader
+     * @return Whether the sent key matches
+     * @throws IOException Thrown when reading fails
+     */
+    static boolean readAuthKey(DataInputStream input, String authKey) throws IOException {
+        byte[] sentKey = input.readUTF().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(sentKey, authKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writing a change as message
+     *
+     * @param output The stream to write to
+     * @param change The change to write
+     * @throws IOException Thrown when writing fails
+     */
+    static void writeChange(DataOutputStream output, ReportChange change) throws IOException {
+        output.writeByte(CHANGE);
+        output.writeLong(change.sequence());
+        output.writeByte(change.type().ordinal());
+        switch (change.type()) {
+            case ADD -> writeReport(output, change.report());
+            case DELETE -> writeUUID(output, change.reportedUser());
+            case EXPIRE -> {
+                writeUUID(output, change.reportedUser());
+                writeTimestamp(output, change.before());
+            }
+        }
+    }
+
+    /**
+     * Reading the change of a message
+     * after its type was read
+     *
+     * @param input The stream to read from
+     * @return The change
+     * @throws IOException Thrown when reading fails or the change is invalid
+     */
+    static ReportChange readChange(DataInputStream input) throws IOException {
+        long sequence = input.readLong();
+        int type = input.readByte();
+        if (type < 0 || type >= ReportChange.Type.values().length) {
+            throw new IOException("Unknown change type " + type);
+        }
+
+        return switch (ReportChange.Type.values()[type]) {
+            case ADD -> {
+                Report report = readReport(input);
+                yield new ReportChange(sequence, ReportChange.Type.ADD, report.reportedUser(), report, null);
+            }
+            case DELETE -> new ReportChange(sequence, ReportChange.Type.DELETE, readUUID(input), null, null);
+            case EXPIRE -> new ReportChange(sequence, ReportChange.Type.EXPIRE, readUUID(input), null, readTimestamp(input));
+        };
+    }
+
+    /**
+     * Writing a report
+     *
+     * @param output The stream to write to
+     * @param report The report to write
+     * @throws IOException Thrown when writing fails
+     */
+    static void writeReport(DataOutputStream output, Report report) throws IOException {
+        writeUUID(output, report.reportedUser());
+        writeUUID(output, report.reporter());
+        writeTimestamp(output, report.timestamp());
+        byte[] reason = report.reportReason().getBytes(StandardCharsets.UTF_8);
+        output.writeInt(reason.length);
+        output.write(reason);
+    }
+
+    /**
+     * Reading a report
+     *
+     * @param input The stream to read from
+     * @return The report
+     * @throws IOException Thrown when reading fails
+     */
+    static Report readReport(DataInputStream input) throws IOException {
+        UUID reportedUser = readUUID(input);
+        UUID reporter = readUUID(input);
+        LocalDateTime timestamp = readTimestamp(input);
+        int reasonLength = input.readInt();
+        if (reasonLength < 0 || reasonLength > MAX_REASON_LENGTH) {
+            throw new IOException("Invalid reason length " + reasonLength);
+        }
+        byte[] reason = new byte[reasonLength];
+        input.readFully(reason);
+        return new Report(reportedUser, new String(reason, StandardCharsets.UTF_8), reporter, timestamp);
+    }
+
+    /**
+     * Writing a uuid
+     *
+     * @param output The stream to write to
+     * @param uuid The uuid to write
+     * @throws IOException Thrown when writing fails
+     */
+    private static void writeUUID(DataOutputStream output, UUID uuid) throws IOException {
+        output.writeLong(uuid.getMostSignificantBits());
+        output.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Reading a uuid
+     *
+     * @param input The stream to read from
+     * @return The uuid
+     * @throws IOException Thrown when reading fails
+     */
+    private static UUID readUUID(DataInputStream input) throws IOException {
+        return new UUID(input.readLong(), input.readLong());
+    }
+
+    /**
+     * Writing a timestamp
+     *
+     * @param output The stream to write to
+     * @param timestamp The timestamp to write
+     * @throws IOException Thrown when writing fails
+     */
+    private static void writeTimestamp(DataOutputStream output, LocalDateTime timestamp) throws IOException {
+        output.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        output.writeInt(timestamp.getNano());
+    }
+
+    /**
+     * Reading a timestamp
+     *
+     * @param input The stream to read from
+     * @return The timestamp
+     * @throws IOException Thrown when reading fails
+     */
+    private static LocalDateTime readTimestamp(DataInputStream input) throws IOException {
+        return LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,92 @@
+package de.raik.reporting.server.report;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded log of the last changes of the report store giving every
+ * change its sequence number. The changes are kept in a ring so
+ * the oldest change is dropped when the log is full
+ *
+ * The sequence numbers start at the current time in nanoseconds so the numbers
+ * of a restarted server are higher than the ones of a former run and clients
+ * asking for changes of the former run are told to resync
+ *
+ * @author Raik
+ * @version 1.0
+ */
+class ChangeLog {
+
+    /**
+     * The changes in a ring ordered by their sequence
+     */
+    private final ReportChange[] changes;
+
+    /**
+     * The sequence number of the last change
+     */
+    private volatile long lastSequence = System.currentTimeMillis() * 1_000_000;
+
+    /**
+     * The amount of changes in the ring
+     */
+    private int size = 0;
+
+    /**
+     * Constructor to create the log
+     *
+     * @param capacity The amount of changes kept
+     */
+    ChangeLog(int capacity) {
+        this.changes = new ReportChange[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appending a change with the next sequence number
+     *
+     * @param type What was changed
+     * @param reportedUser The user whose reports were changed
+     * @param report The added report or null if reports were removed
+     * @param before The time the expired reports were older than or null if they didn't expire
+     */
+    synchronized void append(ReportChange.Type type, UUID reportedUser, Report report, LocalDateTime before) {
+        long sequence = this.lastSequence + 1;
+        this.changes[(int) (sequence % this.changes.length)] = new ReportChange(sequence, type, reportedUser, report, before);
+        this.size = Math.min(this.size + 1, this.changes.length);
+        this.lastSequence = sequence;
+    }
+
+    /**
+     * Getting the changes after a sequence number
+     *
+     * @param since The sequence number of the last known change
+     * @param limit The maximum amount of changes
+     * @return The changes ordered by their sequence or null if the
+     *         changes after the sequence number aren't kept anymore
+     */
+    synchronized List<ReportChange> getChanges(long since, int limit) {
+        if (since > this.lastSequence || since < this.lastSequence - this.size) {
+            return null;
+        }
+
+        int amount = (int) Math.min(this.lastSequence - since, limit);
+        ArrayList<ReportChange> result = new ArrayList<>(amount);
+        for (long sequence = since + 1; sequence <= since + amount; sequence++) {
+            result.add(this.changes[(int) (sequence % this.changes.length)]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Getter for the sequence number of the last change
+     *
+     * @return The sequence number
+     */
+    long getLastSequence() {
+        return this.lastSequence;
+    }
+
+}
@@ -0,0 +1,29 @@
+package de.raik.reporting.server.report;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A record representing one change of the report store
+ * with the sequence number it got from the store
+ *
+ * Attributes:
+ * sequence - The sequence number of the change which increases with every change
+ * type - What was changed
+ * reportedUser - The user whose reports were changed
+ * report - The added report or null if reports were removed
+ * before - The time the expired reports were older than or null if they didn't expire
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record ReportChange(long sequence, Type type, UUID reportedUser, Report report, LocalDateTime before) {
+
+    /**
+     * The types of changes
+     */
+    public enum Type {
+        ADD, DELETE, EXPIRE
+    }
+
+}
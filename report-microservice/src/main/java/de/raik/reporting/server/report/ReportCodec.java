@@ -0,0 +1,298 @@
+package de.raik.reporting.server.report;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Codec parsing and formatting the uuids and timestamps of reports
+ * directly from and to char arrays or char sequences without creating
+ * strings in between as UUID.fromString, LocalDateTime.parse and
+ * their toString methods do
+ *
+ * The formats are the same as the ones of the uuid and LocalDateTime
+ * methods so data written by one can be read by the other
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ReportCodec {
+
+    /**
+     * The length of a formatted uuid
+     */
+    public static final int UUID_LENGTH = 36;
+
+    /**
+     * The maximum length of a formatted timestamp
+     * with nanoseconds
+     */
+    public static final int MAX_TIMESTAMP_LENGTH = 29;
+
+    /**
+     * The hex digits to format uuids
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Parsing a uuid in the format of UUID.toString
+     *
+     * @param chars The chars containing the uuid
+     * @param start The start of the uuid
+     * @param end The end of the uuid
+     * @return The parsed uuid
+     * @throws IllegalArgumentException Thrown when the uuid is invalid
+     */
+    public UUID parseUUID(CharSequence chars, int start, int end) {
+        //Fall back to the lenient uuid parsing of java for uuids without leading zeros
+        if (end - start != UUID_LENGTH) {
+            return UUID.fromString(chars.subSequence(start, end).toString());
+        }
+        if (chars.charAt(start + 8) != '-' || chars.charAt(start + 13) != '-' || chars.charAt(start + 18) != '-'
+                || chars.charAt(start + 23) != '-') {
+            throw new IllegalArgumentException("Invalid UUID string: " + chars.subSequence(start, end));
+        }
+
+        long mostSignificantBits = this.parseHex(chars, start, start + 8) << 32
+                | this.parseHex(chars, start + 9, start + 13) << 16
+                | this.parseHex(chars, start + 14, start + 18);
+        long leastSignificantBits = this.parseHex(chars, start + 19, start + 23) << 48
+                | this.parseHex(chars, start + 24, start + 36);
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Parsing a whole string as uuid
+     *
+     * @param string The string of the uuid
+     * @return The parsed uuid
+     * @throws IllegalArgumentException Thrown when the uuid is invalid
+     */
+    public UUID parseUUID(String string) {
+        return this.parseUUID(string, 0, string.length());
+    }
+
+    /**
+     * Parsing a whole string as uuid only accepting
+     * the canonical form of UUID.toString with 36 chars
+     * and without the lenient fallback
+     *
+     * @param string The string of the uuid
+     * @return The parsed uuid
+     * @throws IllegalArgumentException Thrown when the uuid is invalid or not canonical
+     */
+    public UUID parseCanonicalUUID(String string) {
+        if (string.length() != UUID_LENGTH) {
+            throw new IllegalArgumentException("Invalid UUID string: " + string);
+        }
+        return this.parseUUID(string, 0, UUID_LENGTH);
+    }
+
+    /**
+     * Formatting a uuid like UUID.toString into a char array
+     *
+     * @param uuid The uuid to format
+     * @param target The array to write to which needs UUID_LENGTH chars left
+     * @param offset The position in the array to start at
+     * @return The position after the uuid
+     */
+    public int formatUUID(UUID uuid, char[] target, int offset) {
+        long mostSignificantBits = uuid.getMostSignificantBits();
+        long leastSignificantBits = uuid.getLeastSignificantBits();
+
+        this.formatHex(mostSignificantBits >>> 32, target, offset, 8);
+        target[offset + 8] = '-';
+        this.formatHex(mostSignificantBits >>> 16, target, offset + 9, 4);
+        target[offset + 13] = '-';
+        this.formatHex(mostSignificantBits, target, offset + 14, 4);
+        target[offset + 18] = '-';
+        this.formatHex(leastSignificantBits >>> 48, target, offset + 19, 4);
+        target[offset + 23] = '-';
+        this.formatHex(leastSignificantBits, target, offset + 24, 12);
+
+        return offset + UUID_LENGTH;
+    }
+
+    /**
+     * Parsing a timestamp in the format of LocalDateTime.toString
+     * which is uuuu-MM-ddTHH:mm with optional seconds and fraction
+     *
+     * @param chars The chars containing the timestamp
+     * @param start The start of the timestamp
+     * @param end The end of the timestamp
+     * @return The parsed timestamp
+     * @throws DateTimeParseException Thrown when the timestamp is invalid
+     */
+    public LocalDateTime parseTimestamp(CharSequence chars, int start, int end) {
+        int length = end - start;
+        //Fall back to java for years with more or less than 4 digits
+        if (length < 16 || chars.charAt(start + 4) != '-') {
+            return LocalDateTime.parse(chars.subSequence(start, end));
+        }
+        if (chars.charAt(start + 7) != '-' || chars.charAt(start + 10) != 'T' || chars.charAt(start + 13) != ':'
+                || (length > 16 && (length < 19 || chars.charAt(start + 16) != ':'))
+                || (length > 19 && (length == 20 || length > 29 || chars.charAt(start + 19) != '.'))) {
+            throw new DateTimeParseException("Invalid timestamp", chars.subSequence(start, end), 0);
+        }
+
+        int second = length > 16 ? this.parseDecimal(chars, start + 17, start + 19) : 0;
+        int nano = 0;
+        if (length > 19) {
+            nano = this.parseDecimal(chars, start + 20, end);
+            //Filling up the missing digits of the fraction
+            for (int digits = end - start - 20; digits < 9; digits++) {
+                nano *= 10;
+            }
+        }
+
+        try {
+            return LocalDateTime.of(this.parseDecimal(chars, start, start + 4), this.parseDecimal(chars, start + 5, start + 7),
+                    this.parseDecimal(chars, start + 8, start + 10), this.parseDecimal(chars, start + 11, start + 13),
+                    this.parseDecimal(chars, start + 14, start + 16), second, nano);
+        } catch (RuntimeException exception) {
+            throw new DateTimeParseException("Invalid timestamp", chars.subSequence(start, end), 0, exception);
+        }
+    }
+
+    /**
+     * Parsing a whole string as timestamp
+     *
+     * @param string The string of the timestamp
+     * @return The parsed timestamp
+     * @throws DateTimeParseException Thrown when the timestamp is invalid
+     */
+    public LocalDateTime parseTimestamp(String string) {
+        return this.parseTimestamp(string, 0, string.length());
+    }
+
+    /**
+     * Formatting a timestamp like LocalDateTime.toString into a char array
+     *
+     * @param timestamp The timestamp to format
+     * @param target The array to write to which needs MAX_TIMESTAMP_LENGTH chars left
+     * @param offset The position in the array to start at
+     * @return The position after the timestamp
+     */
+    public int formatTimestamp(LocalDateTime timestamp, char[] target, int offset) {
+        //Let java format years which don't have 4 digits
+        if (timestamp.getYear() < 0 || timestamp.getYear() > 9999) {
+            String formatted = timestamp.toString();
+            formatted.getChars(0, formatted.length(), target, offset);
+            return offset + formatted.length();
+        }
+
+        this.formatDecimal(timestamp.getYear(), target, offset, 4);
+        target[offset + 4] = '-';
+        this.formatDecimal(timestamp.getMonthValue(), target, offset + 5, 2);
+        target[offset + 7] = '-';
+        this.formatDecimal(timestamp.getDayOfMonth(), target, offset + 8, 2);
+        target[offset + 10] = 'T';
+        this.formatDecimal(timestamp.getHour(), target, offset + 11, 2);
+        target[offset + 13] = ':';
+        this.formatDecimal(timestamp.getMinute(), target, offset + 14, 2);
+        offset += 16;
+
+        //Seconds and fraction are left out like LocalDateTime does if they are zero
+        int second = timestamp.getSecond();
+        int nano = timestamp.getNano();
+        if (second == 0 && nano == 0) {
+            return offset;
+        }
+        target[offset] = ':';
+        this.formatDecimal(second, target, offset + 1, 2);
+        offset += 3;
+        if (nano == 0) {
+            return offset;
+        }
+
+        target[offset++] = '.';
+        if (nano % 1_000_000 == 0) {
+            this.formatDecimal(nano / 1_000_000, target, offset, 3);
+            return offset + 3;
+        }
+        if (nano % 1000 == 0) {
+            this.formatDecimal(nano / 1000, target, offset, 6);
+            return offset + 6;
+        }
+        this.formatDecimal(nano, target, offset, 9);
+        return offset + 9;
+    }
+
+    /**
+     * Parsing hex digits into a long
+     *
+     * @param chars The chars containing the digits
+     * @param start The start of the digits
+     * @param end The end of the digits
+     * @return The parsed number
+     * @throws IllegalArgumentException Thrown when a char is no hex digit
+     */
+    private long parseHex(CharSequence chars, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char character = chars.charAt(i);
+            //Only ascii digits as Character.digit also accepts other scripts
+            int digit = character < 128 ? Character.digit(character, 16) : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid UUID string: " + chars);
+            }
+            value = value << 4 | digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Parsing decimal digits into an int
+     *
+     * @param chars The chars containing the digits
+     * @param start The start of the digits
+     * @param end The end of the digits
+     * @return The parsed number
+     * @throws DateTimeParseException Thrown when a char is no digit
+     */
+    private int parseDecimal(CharSequence chars, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char digit = chars.charAt(i);
+            if (digit < '0' || digit > '9') {
+                throw new DateTimeParseException("Invalid timestamp", chars, i);
+            }
+            value = value * 10 + digit - '0';
+        }
+
+        return value;
+    }
+
+    /**
+     * Formatting the lowest hex digits of a number
+     *
+     * @param value The number to format
+     * @param target The array to write to
+     * @param offset The position to start at
+     * @param digits The amount of digits to write
+     */
+    private void formatHex(long value, char[] target, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * Formatting a number with leading zeros
+     *
+     * @param value The number to format
+     * @param target The array to write to
+     * @param offset The position to start at
+     * @param digits The amount of digits to write
+     */
+    private void formatDecimal(int value, char[] target, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+}
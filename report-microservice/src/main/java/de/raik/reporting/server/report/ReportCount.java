@@ -0,0 +1,26 @@
+package de.raik.reporting.server.report;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * A record representing the amount of reports
+ * of one reported user
+ *
+ * Attributes:
+ * reportedUser - The user who was reported
+ * reports - The amount of stored reports of the user
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record ReportCount(UUID reportedUser, int reports) {
+
+    /**
+     * The order of the ranking with the most
+     * reported user first and equal counts ordered by user
+     */
+    static final Comparator<ReportCount> RANKING_ORDER = Comparator.comparingInt(ReportCount::reports).reversed()
+            .thenComparing(ReportCount::reportedUser);
+
+}
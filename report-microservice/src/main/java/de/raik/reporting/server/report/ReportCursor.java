@@ -0,0 +1,15 @@
+package de.raik.reporting.server.report;
+
+/**
+ * A record representing a position in the timeline of the
+ * report store to continue iterating from there later
+ *
+ * Attributes:
+ * position - The report the position is at. It doesn't need to be stored anymore
+ * skip - The amount of equal reports at the position which were already visited
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record ReportCursor(Report position, int skip) {
+}
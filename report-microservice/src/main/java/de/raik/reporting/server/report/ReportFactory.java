@@ -1,6 +1,7 @@
 package de.raik.reporting.server.report;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.UUID;
 
 /**
@@ -14,6 +15,11 @@ import java.util.UUID;
  */
 public class ReportFactory {
 
+    /**
+     * The codec to parse the uuids and timestamps
+     */
+    private final ReportCodec codec = new ReportCodec();
+
     /**
      * Create a report with player and reason specific
      * attributes it's specified as new because the report timestamp
@@ -26,7 +32,20 @@ public class ReportFactory {
      * @return The new created report
      */
     public Report createNewFromSpecified(String reportedUser, String reason, String reporter) {
-        return new Report(UUID.fromString(reportedUser), reason, UUID.fromString(reporter), LocalDateTime.now());
+        return this.createNewFromSpecified(this.codec.parseUUID(reportedUser), reason, reporter);
+    }
+
+    /**
+     * Create a new report like createNewFromSpecified for
+     * an already parsed reported user
+     *
+     * @param reportedUser The reported User
+     * @param reason The reason of the report
+     * @param reporter The player who reported the user
+     * @return The new created report
+     */
+    public Report createNewFromSpecified(UUID reportedUser, String reason, String reporter) {
+        return new Report(reportedUser, reason, this.codec.parseUUID(reporter), LocalDateTime.now());
     }
 
     /**
@@ -51,8 +70,92 @@ public class ReportFactory {
             throw new IllegalArgumentException("The data string needs 4 elements to create a report!");
         }
 
-        return new Report(UUID.fromString(dateString[0]), dateString[1], UUID.fromString(dateString[2]),
-                LocalDateTime.parse(dateString[3]));
+        return new Report(this.codec.parseUUID(dateString[0]), dateString[1], this.codec.parseUUID(dateString[2]),
+                this.codec.parseTimestamp(dateString[3]));
+    }
+
+    /**
+     * Create a report from a line of chars without creating
+     * strings for the uuids and the timestamp. Should be used
+     * when loading many reports from text
+     *
+     * @param chars The chars containing the report attributes
+     * @param reportedStart The start of the uuid of the reported user
+     * @param reasonStart The start of the reason which ends one char before the reporter
+     * @param reporterStart The start of the uuid of the reporter which ends one char before the timestamp
+     * @param timestampStart The start of the timestamp
+     * @param end The end of the timestamp
+     * @throws IllegalArgumentException Thrown when a uuid is invalid
+     * @throws java.time.format.DateTimeParseException Thrown when the timestamp is invalid
+     * @return The report created from the chars
+     */
+    public Report createFromCharData(CharSequence chars, int reportedStart, int reasonStart, int reporterStart,
+                                     int timestampStart, int end) {
+        return new Report(this.codec.parseUUID(chars, reportedStart, reasonStart - 1),
+                chars.subSequence(reasonStart, reporterStart - 1).toString(),
+                this.codec.parseUUID(chars, reporterStart, timestampStart - 1),
+                this.codec.parseTimestamp(chars, timestampStart, end));
+    }
+
+    /**
+     * Create a report from a csv line. The reason is everything between
+     * the first comma and the reporter so reasons containing commas are kept
+     *
+     * @param chars The chars containing the line
+     * @param start The start of the line
+     * @param end The end of the line without the line break
+     * @return The report or null if the line is invalid
+     */
+    public Report createFromLine(CharSequence chars, int start, int end) {
+        int reasonStart = indexOf(chars, start, end) + 1;
+        int timestampStart = lastIndexOf(chars, start, end) + 1;
+        int reporterStart = lastIndexOf(chars, start, timestampStart - 1) + 1;
+        //Commas need to be inside of the line and in the right order
+        if (reasonStart <= start || reporterStart <= reasonStart || timestampStart <= reporterStart) {
+            return null;
+        }
+
+        try {
+            return this.createFromCharData(chars, start, reasonStart, reporterStart, timestampStart, end);
+        } catch (IllegalArgumentException | DateTimeParseException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Finding the first comma in a range of chars
+     *
+     * @param chars The chars to search in
+     * @param start The start of the range
+     * @param end The end of the range
+     * @return The index of the comma or -1 if there is none
+     */
+    private static int indexOf(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) == ',') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finding the last comma in a range of chars
+     *
+     * @param chars The chars to search in
+     * @param start The start of the range
+     * @param end The end of the range
+     * @return The index of the comma or -1 if there is none
+     */
+    private static int lastIndexOf(CharSequence chars, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (chars.charAt(i) == ',') {
+                return i;
+            }
+        }
+
+        return -1;
     }
 
 }
@@ -0,0 +1,17 @@
+package de.raik.reporting.server.report;
+
+import java.util.List;
+
+/**
+ * A record representing all reports of the store
+ * at the time of one sequence number
+ *
+ * Attributes:
+ * sequence - The sequence number of the last change contained in the snapshot
+ * reports - The reports of the store after that change
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record ReportSnapshot(long sequence, List<Report> reports) {
+}
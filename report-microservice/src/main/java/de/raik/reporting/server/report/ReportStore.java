@@ -0,0 +1,468 @@
+package de.raik.reporting.server.report;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * The store holding all reports of the report server.
+ * It's safe to be used by multiple threads at once as the
+ * editor and the config access it at the same time
+ *
+ * The reports are indexed by the reported user so the reports
+ * of one player can be looked up and deleted without scanning
+ * every stored report. They are also indexed by their timestamp
+ * to get the newest or oldest reports without sorting
+ * The amount of reports of every user is kept in a ranking
+ * to get the most reported users without counting
+ * Every change gets a sequence number and the last changes are
+ * kept in a log so copies of the reports can be updated with the changes only
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ReportStore implements Iterable<Report> {
+
+    /**
+     * The amount of changes kept if no size is given
+     */
+    public static final int DEFAULT_CHANGE_LOG_SIZE = 100000;
+
+    /**
+     * The order of the reports in the timeline. Equal timestamps
+     * are ordered by the other attributes so only equal reports are the same
+     */
+    public static final Comparator<Report> TIMELINE_ORDER = (firstReport, secondReport) -> {
+        int comparison = firstReport.timestamp().compareTo(secondReport.timestamp());
+        if (comparison == 0) {
+            comparison = firstReport.reportedUser().compareTo(secondReport.reportedUser());
+        }
+        if (comparison == 0) {
+            comparison = firstReport.reporter().compareTo(secondReport.reporter());
+        }
+
+        return comparison != 0 ? comparison : firstReport.reportReason().compareTo(secondReport.reportReason());
+    };
+
+    /**
+     * The reports mapped by the uuid of the reported user.
+     * The lists are only modified inside of compute calls of the map
+     * so adding and deleting for one user is atomic. Copy on write lists are used
+     * to let readers iterate without locking
+     */
+    private final ConcurrentHashMap<UUID, CopyOnWriteArrayList<Report>> reportsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * All reports ordered by their timestamp with the amount of equal reports
+     * as value because the same report can be stored multiple times
+     */
+    private final ConcurrentSkipListMap<Report, Integer> timeline = new ConcurrentSkipListMap<>(TIMELINE_ORDER);
+
+    /**
+     * The amount of reports of every reported user ordered with the most
+     * reported user first. The entry of a user is replaced inside of the compute
+     * calls of the user so there is one entry per user after every change
+     */
+    private final ConcurrentSkipListSet<ReportCount> ranking = new ConcurrentSkipListSet<>(ReportCount.RANKING_ORDER);
+
+    /**
+     * The amount of all stored reports to not
+     * count them every time
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * The log of the last changes giving every change
+     * its sequence number inside of the compute call
+     */
+    private final ChangeLog changeLog;
+
+    /**
+     * Lock held shared by every change and exclusive while taking a snapshot
+     * so a snapshot contains exactly the changes up to its sequence number
+     */
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    /**
+     * The listeners which will be notified
+     * about every change of the store
+     */
+    private final CopyOnWriteArrayList<ReportStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor to create a store keeping
+     * the default amount of changes
+     */
+    public ReportStore() {
+        this(DEFAULT_CHANGE_LOG_SIZE);
+    }
+
+    /**
+     * Constructor to create a store
+     *
+     * @param changeLogSize The amount of the last changes kept for clients syncing changes
+     */
+    public ReportStore(int changeLogSize) {
+        this.changeLog = new ChangeLog(changeLogSize);
+    }
+
+    /**
+     * Adding a listener to get notified about changes
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(ReportStoreListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Adding a report to the store
+     * into the list of the reported user
+     *
+     * @param report The report to add
+     */
+    public void add(Report report) {
+        this.snapshotLock.readLock().lock();
+        try {
+            this.reportsByUser.compute(report.reportedUser(), (reportedUser, reports) ->
+                    this.addToUser(reportedUser, reports, List.of(report)));
+        } finally {
+            this.snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adding the reports of one reported user which aren't stored yet.
+     * Every report is stored at least as often as it's given afterwards so adding
+     * the same reports again doesn't change anything e.g. when retrying
+     *
+     * @param reportedUser The uuid of the reported user of every report
+     * @param reports The reports of the user
+     * @return The reports which were added
+     */
+    public List<Report> addMissing(UUID reportedUser, Collection<Report> reports) {
+        Report[] sortedReports = reports.toArray(new Report[0]);
+        Arrays.sort(sortedReports, TIMELINE_ORDER);
+
+        ArrayList<Report> added = new ArrayList<>();
+        this.snapshotLock.readLock().lock();
+        try {
+            this.reportsByUser.compute(reportedUser, (user, storedReports) -> {
+                //Every stored report matches one given equal report
+                HashMap<Report, Integer> unmatched = new HashMap<>();
+                if (storedReports != null) {
+                    storedReports.forEach(report -> unmatched.merge(report, 1, Integer::sum));
+                }
+
+                for (Report report : sortedReports) {
+                    if (unmatched.containsKey(report)) {
+                        unmatched.computeIfPresent(report, (unmatchedReport, amount) -> amount == 1 ? null : amount - 1);
+                        continue;
+                    }
+                    added.add(report);
+                }
+                return added.isEmpty() ? storedReports : this.addToUser(user, storedReports, added);
+            });
+        } finally {
+            this.snapshotLock.readLock().unlock();
+        }
+
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Adding reports of one user to its list and to the indexes.
+     * The list is copied only once for all of them.
+     * Only called inside of the compute calls of the user
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param reports The reports of the user or null if there are none
+     * @param added The reports to add which is not empty
+     * @return The reports of the user
+     */
+    private CopyOnWriteArrayList<Report> addToUser(UUID reportedUser, CopyOnWriteArrayList<Report> reports,
+                                                   List<Report> added) {
+        if (reports == null) {
+            reports = new CopyOnWriteArrayList<>();
+        }
+
+        int formerSize = reports.size();
+        reports.addAll(added);
+        //Adding the new count first so readers never miss the user
+        this.ranking.add(new ReportCount(reportedUser, reports.size()));
+        if (formerSize > 0) {
+            this.ranking.remove(new ReportCount(reportedUser, formerSize));
+        }
+        for (Report report : added) {
+            this.timeline.merge(report, 1, Integer::sum);
+            this.size.incrementAndGet();
+            this.changeLog.append(ReportChange.Type.ADD, reportedUser, report, null);
+            this.listeners.forEach(listener -> listener.reportAdded(report));
+        }
+        return reports;
+    }
+
+    /**
+     * Adding multiple reports to the store
+     * e.g. when loading them from a config
+     * The reports are added in the order of the timeline because
+     * inserting into the timeline in random order is many times slower.
+     * They are grouped by their user so every list is copied only once
+     *
+     * @param reports The reports to add
+     */
+    public void addAll(Collection<Report> reports) {
+        Report[] sortedReports = reports.toArray(new Report[0]);
+        Arrays.sort(sortedReports, TIMELINE_ORDER);
+
+        LinkedHashMap<UUID, List<Report>> reportsByUser = new LinkedHashMap<>();
+        for (Report report : sortedReports) {
+            reportsByUser.computeIfAbsent(report.reportedUser(), user -> new ArrayList<>()).add(report);
+        }
+
+        reportsByUser.forEach((reportedUser, userReports) -> {
+            this.snapshotLock.readLock().lock();
+            try {
+                this.reportsByUser.compute(reportedUser,
+                        (user, storedReports) -> this.addToUser(user, storedReports, userReports));
+            } finally {
+                this.snapshotLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Getter for the reports of one reported user
+     *
+     * @param reportedUser The uuid of the reported user
+     * @return An unmodifiable list of the reports of the user which is empty
+     *         if the user was never reported
+     */
+    public List<Report> getReports(UUID reportedUser) {
+        List<Report> reports = this.reportsByUser.get(reportedUser);
+        return reports == null ? Collections.emptyList() : Collections.unmodifiableList(reports);
+    }
+
+    /**
+     * Removing all reports of one reported user
+     *
+     * @param reportedUser The uuid of the reported user
+     * @return The removed reports which is empty if nothing was removed
+     */
+    public List<Report> removeReports(UUID reportedUser) {
+        ArrayList<Report> removed = new ArrayList<>();
+        this.snapshotLock.readLock().lock();
+        try {
+            this.reportsByUser.computeIfPresent(reportedUser, (user, reports) -> {
+                removed.addAll(reports);
+                this.ranking.remove(new ReportCount(user, reports.size()));
+                reports.forEach(report -> this.timeline.computeIfPresent(report, (timelineReport, amount) ->
+                        amount == 1 ? null : amount - 1));
+                this.size.addAndGet(-reports.size());
+                this.changeLog.append(ReportChange.Type.DELETE, user, null, null);
+                this.listeners.forEach(listener -> listener.reportsRemoved(user, reports));
+                //Returning null removes the user from the map
+                return null;
+            });
+        } finally {
+            this.snapshotLock.readLock().unlock();
+        }
+
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Removing every report older than the cutoff. The old reports are
+     * found at the start of the timeline so only the expired reports are visited
+     *
+     * @param cutoff The time the removed reports are older than
+     * @return The removed reports
+     */
+    public List<Report> expireReports(LocalDateTime cutoff) {
+        //Collecting the users first as the timeline changes while expiring
+        LinkedHashSet<UUID> reportedUsers = new LinkedHashSet<>();
+        for (Report report : this.timeline.keySet()) {
+            if (!report.timestamp().isBefore(cutoff)) {
+                break;
+            }
+            reportedUsers.add(report.reportedUser());
+        }
+
+        ArrayList<Report> expired = new ArrayList<>();
+        reportedUsers.forEach(reportedUser -> expired.addAll(this.expireReports(reportedUser, cutoff)));
+        return Collections.unmodifiableList(expired);
+    }
+
+    /**
+     * Removing the reports of one reported user
+     * which are older than the cutoff
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param cutoff The time the removed reports are older than
+     * @return The removed reports which is empty if nothing was removed
+     */
+    public List<Report> expireReports(UUID reportedUser, LocalDateTime cutoff) {
+        ArrayList<Report> expired = new ArrayList<>();
+        this.snapshotLock.readLock().lock();
+        try {
+            this.reportsByUser.computeIfPresent(reportedUser, (user, reports) -> {
+                reports.stream().filter(report -> report.timestamp().isBefore(cutoff)).forEach(expired::add);
+                if (expired.isEmpty()) {
+                    return reports;
+                }
+
+                int formerSize = reports.size();
+                reports.removeIf(report -> report.timestamp().isBefore(cutoff));
+                expired.forEach(report -> this.timeline.computeIfPresent(report, (timelineReport, amount) ->
+                        amount == 1 ? null : amount - 1));
+                if (!reports.isEmpty()) {
+                    this.ranking.add(new ReportCount(user, reports.size()));
+                }
+                this.ranking.remove(new ReportCount(user, formerSize));
+                this.size.addAndGet(-expired.size());
+                this.changeLog.append(ReportChange.Type.EXPIRE, user, null, cutoff);
+                this.listeners.forEach(listener -> listener.reportsExpired(user, cutoff, expired));
+                //Returning null removes the user from the map if nothing is left
+                return reports.isEmpty() ? null : reports;
+            });
+        } finally {
+            this.snapshotLock.readLock().unlock();
+        }
+
+        return Collections.unmodifiableList(expired);
+    }
+
+    /**
+     * Iterator over all stored reports.
+     * Reports added or removed while iterating may or may not be
+     * visited but it will never fail because of concurrent changes
+     *
+     * @return The iterator of the reports
+     */
+    @Override
+    public Iterator<Report> iterator() {
+        return this.stream().iterator();
+    }
+
+    /**
+     * Stream of all stored reports with the same
+     * behaviour as the iterator on concurrent changes
+     *
+     * @return The stream of the reports
+     */
+    public Stream<Report> stream() {
+        return this.reportsByUser.values().stream().flatMap(Collection::stream);
+    }
+
+    /**
+     * Iterator over the reports ordered by their timestamp
+     * which can continue at a cursor of a former iterator
+     *
+     * @param cursor The cursor to continue at or null to start at the beginning
+     * @param newestFirst Whether the newest or the oldest reports should come first
+     * @return The iterator over the timeline
+     */
+    public TimelineIterator timeline(ReportCursor cursor, boolean newestFirst) {
+        return new TimelineIterator(newestFirst ? this.timeline.descendingMap() : this.timeline, cursor);
+    }
+
+    /**
+     * Getter for the version of the store which is the
+     * sequence number of the last change
+     *
+     * @return The current version
+     */
+    public long getVersion() {
+        return this.changeLog.getLastSequence();
+    }
+
+    /**
+     * Taking a snapshot of all reports with the sequence number of the
+     * last change it contains. Changes wait while the reports are copied
+     *
+     * @return The snapshot
+     */
+    public ReportSnapshot snapshot() {
+        this.snapshotLock.writeLock().lock();
+        try {
+            ArrayList<Report> reports = new ArrayList<>(this.size.get());
+            this.reportsByUser.values().forEach(reports::addAll);
+            return new ReportSnapshot(this.changeLog.getLastSequence(), Collections.unmodifiableList(reports));
+        } finally {
+            this.snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Getting the changes after a sequence number from the change log
+     * so a copy of the reports can be updated in O(changes)
+     *
+     * @param since The sequence number of the last known change
+     * @param limit The maximum amount of changes
+     * @return The changes ordered by their sequence or null if the changes
+     *         after the sequence number aren't kept anymore and every report needs to be read again
+     */
+    public List<ReportChange> getChanges(long since, int limit) {
+        return this.changeLog.getChanges(since, limit);
+    }
+
+    /**
+     * Getting the most reported users from the ranking without counting
+     * the reports. Takes O(n) as the ranking is ordered already
+     * A user changed while reading may have the count before the change
+     *
+     * @param amount The maximum amount of users
+     * @return The counts of the users with the most reported first
+     */
+    public List<ReportCount> getMostReported(int amount) {
+        ArrayList<ReportCount> mostReported = new ArrayList<>(Math.min(amount, 1024));
+        //A user can be seen twice while its entry is replaced
+        HashSet<UUID> seenUsers = new HashSet<>();
+        for (ReportCount count : this.ranking) {
+            if (mostReported.size() >= amount) {
+                break;
+            }
+            if (seenUsers.add(count.reportedUser())) {
+                mostReported.add(count);
+            }
+        }
+
+        return mostReported;
+    }
+
+    /**
+     * Getter for the amount of distinct reported users
+     *
+     * @return The amount of reported users
+     */
+    public int getReportedUserCount() {
+        return this.reportsByUser.size();
+    }
+
+    /**
+     * Getter for the amount of stored reports
+     *
+     * @return The amount of reports
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+}
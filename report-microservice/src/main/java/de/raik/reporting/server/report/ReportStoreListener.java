@@ -0,0 +1,47 @@
+package de.raik.reporting.server.report;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Listener which can be added to the report store
+ * to get notified about every change of the stored reports
+ *
+ * The methods are called while the store holds the lock of the
+ * reported user so the changes of one user arrive in the same order
+ * they were applied. Because of that the listener should only do
+ * short work and must never access the store itself
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public interface ReportStoreListener {
+
+    /**
+     * Called when a report was added to the store
+     *
+     * @param report The added report
+     */
+    void reportAdded(Report report);
+
+    /**
+     * Called when all reports of a reported user were removed
+     * from the store
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param removed The reports which were removed
+     */
+    void reportsRemoved(UUID reportedUser, List<Report> removed);
+
+    /**
+     * Called when the reports of a reported user older
+     * than the cutoff were removed from the store
+     *
+     * @param reportedUser The uuid of the reported user
+     * @param cutoff The time every removed report is older than
+     * @param expired The reports which were removed
+     */
+    void reportsExpired(UUID reportedUser, LocalDateTime cutoff, List<Report> expired);
+
+}
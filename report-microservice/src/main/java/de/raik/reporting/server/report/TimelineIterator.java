@@ -0,0 +1,119 @@
+package de.raik.reporting.server.report;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over the reports of the store ordered by their
+ * timestamp. It can return a cursor at any time to continue
+ * at the same position later without visiting any report twice
+ *
+ * Equal reports are stored once with their amount in the timeline
+ * so the iterator returns them as often as they were added
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class TimelineIterator implements Iterator<Report> {
+
+    /**
+     * The iterator of the timeline entries with the report
+     * and the amount of equal reports
+     */
+    private final Iterator<Map.Entry<Report, Integer>> entries;
+
+    /**
+     * The report of the current entry
+     */
+    private Report current;
+
+    /**
+     * The amount of reports of the current entry
+     * which were not returned yet
+     */
+    private int remaining;
+
+    /**
+     * The amount of reports of the current entry
+     * which were already returned
+     */
+    private int visited;
+
+    /**
+     * Constructor starting the iteration in the timeline at the
+     * cursor or at the beginning if there is none
+     *
+     * @param timeline The timeline to iterate in the wanted order
+     * @param cursor The cursor to start at or null to start at the beginning
+     */
+    TimelineIterator(NavigableMap<Report, Integer> timeline, ReportCursor cursor) {
+        this.entries = (cursor == null ? timeline : timeline.tailMap(cursor.position(), true)).entrySet().iterator();
+
+        //Skip already visited reports if the cursor position still exists
+        if (cursor != null && this.advance() && this.current.equals(cursor.position())) {
+            this.visited = cursor.skip();
+            this.remaining -= cursor.skip();
+        }
+    }
+
+    /**
+     * Returns whether there are more reports
+     *
+     * @return Whether there are more reports
+     */
+    @Override
+    public boolean hasNext() {
+        while (this.remaining <= 0) {
+            if (!this.advance()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the next report in the timeline
+     *
+     * @return The next report
+     */
+    @Override
+    public Report next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        this.remaining--;
+        this.visited++;
+        return this.current;
+    }
+
+    /**
+     * Getter for a cursor pointing behind the last returned report
+     *
+     * @return The cursor to continue at or null if nothing was returned yet
+     */
+    public ReportCursor getCursor() {
+        return this.current == null ? null : new ReportCursor(this.current, this.visited);
+    }
+
+    /**
+     * Moving to the next entry of the timeline
+     *
+     * @return Whether there was a next entry
+     */
+    private boolean advance() {
+        if (!this.entries.hasNext()) {
+            return false;
+        }
+
+        Map.Entry<Report, Integer> entry = this.entries.next();
+        this.current = entry.getKey();
+        this.remaining = entry.getValue();
+        this.visited = 0;
+        return true;
+    }
+
+}
@@ -0,0 +1,250 @@
+package de.raik.reporting.server.retention;
+
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportCodec;
+import de.raik.reporting.server.report.ReportFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive of the reports which were removed from the store
+ * because they expired. The archive is append only: every archiving
+ * writes new gzip compressed csv segments and never changes existing ones
+ *
+ * Segments are bucketed by the month of the reports:
+ * reports-2021-08.1630454400000.csv.gz - Reports of august 2021 archived at that millisecond
+ *
+ * A segment is written to a temporary file and renamed afterwards
+ * so a crash never leaves a half written segment behind.
+ * Reading only decompresses the segments of the requested months
+ * which is slower than the store but doesn't need any memory until asked
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ReportArchive {
+
+    /**
+     * The start of the segment file names
+     */
+    private static final String FILE_PREFIX = "reports-";
+
+    /**
+     * The ending of the segment files
+     */
+    private static final String FILE_ENDING = ".csv.gz";
+
+    /**
+     * The ending of segments which are written at the moment
+     */
+    private static final String TEMPORARY_ENDING = ".tmp";
+
+    /**
+     * The directory containing the segments
+     */
+    private final File directory;
+
+    /**
+     * The factory to parse the archived lines
+     */
+    private final ReportFactory factory = new ReportFactory();
+
+    /**
+     * The codec to format the uuids and timestamps
+     */
+    private final ReportCodec codec = new ReportCodec();
+
+    /**
+     * The suffix of the last written segments to
+     * keep the names unique when archiving in the same millisecond
+     */
+    private long lastSuffix = 0;
+
+    /**
+     * Constructor to create the archive
+     *
+     * @param directory The directory containing the segments
+     */
+    public ReportArchive(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Appending reports to the archive as new segments
+     * one for every month the reports are from. The segments
+     * are synced to the disk before returning
+     *
+     * @param reports The reports to archive
+     * @throws IOException Thrown when a segment can't be written
+     */
+    public synchronized void append(Collection<Report> reports) throws IOException {
+        if (reports.isEmpty()) {
+            return;
+        }
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("Can't create archive directory " + this.directory);
+        }
+
+        TreeMap<YearMonth, List<Report>> reportsByMonth = new TreeMap<>();
+        reports.forEach(report -> reportsByMonth.computeIfAbsent(YearMonth.from(report.timestamp()),
+                month -> new ArrayList<>()).add(report));
+
+        this.lastSuffix = Math.max(System.currentTimeMillis(), this.lastSuffix + 1);
+        for (Map.Entry<YearMonth, List<Report>> month : reportsByMonth.entrySet()) {
+            File segment = new File(this.directory, FILE_PREFIX + month.getKey() + "." + this.lastSuffix + FILE_ENDING);
+            this.writeSegment(segment, month.getValue());
+        }
+    }
+
+    /**
+     * Reading the archived reports of a time range
+     * ordered by their timestamp
+     *
+     * @param reportedUser The reported user to get the reports of or null for every user
+     * @param from The start of the range which is inclusive
+     * @param to The end of the range which is exclusive
+     * @param limit The maximum amount of reports
+     * @return The archived reports
+     * @throws IOException Thrown when a segment can't be read
+     */
+    public List<Report> read(UUID reportedUser, LocalDateTime from, LocalDateTime to, int limit) throws IOException {
+        ArrayList<Report> reports = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<File>> month : this.getSegments(YearMonth.from(from), YearMonth.from(to)).entrySet()) {
+            //Reports of a month are only ordered after reading all of its segments
+            ArrayList<Report> monthReports = new ArrayList<>();
+            for (File segment : month.getValue()) {
+                this.readSegment(segment, report -> (reportedUser == null || reportedUser.equals(report.reportedUser()))
+                        && !report.timestamp().isBefore(from) && report.timestamp().isBefore(to), monthReports);
+            }
+
+            monthReports.sort(Comparator.comparing(Report::timestamp));
+            for (Report report : monthReports) {
+                if (reports.size() == limit) {
+                    return reports;
+                }
+                reports.add(report);
+            }
+        }
+
+        return reports;
+    }
+
+    /**
+     * Getting the segments of a range of months
+     * ordered by the month and the time they were written
+     *
+     * @param first The first month
+     * @param last The last month which is inclusive
+     * @return The segments by their month
+     */
+    private TreeMap<YearMonth, List<File>> getSegments(YearMonth first, YearMonth last) {
+        TreeMap<YearMonth, List<File>> segments = new TreeMap<>();
+        File[] files = Objects.requireNonNullElse(this.directory.listFiles((directory, name) ->
+                name.startsWith(FILE_PREFIX) && name.endsWith(FILE_ENDING)), new File[0]);
+        Arrays.sort(files);
+
+        for (File file : files) {
+            String name = file.getName();
+            YearMonth month;
+            try {
+                month = YearMonth.parse(name.substring(FILE_PREFIX.length(), name.indexOf('.')));
+            } catch (DateTimeParseException exception) {
+                continue;
+            }
+
+            if (!month.isBefore(first) && !month.isAfter(last)) {
+                segments.computeIfAbsent(month, key -> new ArrayList<>()).add(file);
+            }
+        }
+
+        return segments;
+    }
+
+    /**
+     * Writing reports into a new segment
+     *
+     * @param segment The file of the segment
+     * @param reports The reports of the segment
+     * @throws IOException Thrown when the segment can't be written
+     */
+    private void writeSegment(File segment, List<Report> reports) throws IOException {
+        File temporary = new File(segment.getPath() + TEMPORARY_ENDING);
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            GZIPOutputStream gzipStream = new GZIPOutputStream(fileStream, 65536);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzipStream, StandardCharsets.UTF_8));
+            //Buffer for the formatted uuids and timestamp with two commas and the line break reused for every line
+            char[] line = new char[ReportCodec.UUID_LENGTH + ReportCodec.MAX_TIMESTAMP_LENGTH + 3];
+            for (Report report : reports) {
+                int length = this.codec.formatUUID(report.reportedUser(), line, 0);
+                line[length++] = ',';
+                writer.write(line, 0, length);
+                writer.write(report.reportReason());
+
+                line[0] = ',';
+                length = this.codec.formatUUID(report.reporter(), line, 1);
+                line[length++] = ',';
+                length = this.codec.formatTimestamp(report.timestamp(), line, length);
+                line[length++] = '\n';
+                writer.write(line, 0, length);
+            }
+
+            //Finishing the gzip stream without closing the file to sync it
+            writer.flush();
+            gzipStream.finish();
+            fileStream.getFD().sync();
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temporary.toPath());
+            throw exception;
+        }
+
+        Files.move(temporary.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reading the reports of a segment which
+     * match the filter
+     *
+     * @param segment The file of the segment
+     * @param filter The filter the reports need to match
+     * @param target The list to add the reports to
+     * @throws IOException Thrown when the segment can't be read
+     */
+    private void readSegment(File segment, Predicate<Report> filter, List<Report> target) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                new FileInputStream(segment), 65536), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Report report = this.factory.createFromLine(line, 0, line.length());
+                if (report != null && filter.test(report)) {
+                    target.add(report);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package de.raik.reporting.server.retention;
+
+import de.raik.reporting.server.accessor.oneussage.OneUsageAccessor;
+import de.raik.reporting.server.metrics.Counter;
+import de.raik.reporting.server.metrics.Histogram;
+import de.raik.reporting.server.metrics.MetricsRegistry;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy moving reports older than the retention from the
+ * store into the archive on its own thread in an interval
+ *
+ * The expired reports are found at the start of the timeline of the store
+ * which is ordered by the timestamp so a run only visits expired reports.
+ * Exactly the reports removed from the store are archived so reports added or
+ * deleted in between are neither archived twice nor archived while deleted.
+ * If archiving fails they are added to the store again
+ *
+ * Arguments with the prefix retention:
+ * days - The days reports are kept in the store. 0 disables expiring
+ * interval - The seconds between two runs
+ * path - The directory of the archive
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class RetentionPolicy implements OneUsageAccessor {
+
+    /**
+     * The days reports are kept in the store
+     * or 0 if they are kept forever
+     */
+    private long retentionDays;
+
+    /**
+     * The seconds between two runs
+     */
+    private long interval;
+
+    /**
+     * The archive of the expired reports
+     */
+    private ReportArchive archive;
+
+    /**
+     * The store to remove the expired reports from
+     */
+    private ReportStore reports;
+
+    /**
+     * The thread expiring the reports
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A callback runnable which should be called
+     * when reports expired it also has a setter
+     */
+    private Runnable updateCallback = () -> {};
+
+    public void setUpdateCallback(Runnable updateCallback) {
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * The registry the policy records its metrics at
+     * which is set by the report server before the initialization
+     */
+    private MetricsRegistry metrics = new MetricsRegistry();
+
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The durations of the runs
+     */
+    private Histogram runDuration;
+
+    /**
+     * The amount of archived reports
+     */
+    private Counter archivedReports;
+
+    /**
+     * Getter for the prefix of the arguments
+     *
+     * @return The prefix retention
+     */
+    @Override
+    public String getConfigArgumentPrefix() {
+        return "retention";
+    }
+
+    /**
+     * Loading the retention, the interval and
+     * the directory of the archive
+     *
+     * @param arguments Map of arguments with key as the attribute and value as its value
+     */
+    @Override
+    public void loadArguments(HashMap<String, String> arguments) {
+        this.retentionDays = Long.parseLong(arguments.get("days"));
+        this.interval = Long.parseLong(arguments.get("interval"));
+        this.archive = new ReportArchive(new File(arguments.get("path")));
+    }
+
+    /**
+     * Starting the runs if a retention is set
+     *
+     * @param reports The reports to expire
+     */
+    @Override
+    public void initAccessor(ReportStore reports) {
+        this.reports = reports;
+        this.runDuration = this.metrics.histograms("report_retention_duration_seconds",
+                "Duration of archiving the expired reports").labels();
+        this.archivedReports = this.metrics.counters("report_retention_archived_total",
+                "Amount of reports moved to the archive").labels();
+
+        if (this.retentionDays > 0) {
+            this.executor.scheduleWithFixedDelay(this::expire, 0, this.interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Moving the reports older than the retention
+     * from the store into the archive
+     */
+    public void expire() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(this.retentionDays);
+        try {
+            List<Report> expired = this.reports.expireReports(cutoff);
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            try {
+                this.archive.append(expired);
+            } catch (IOException | RuntimeException exception) {
+                //Reports stay in the store until they can be archived
+                this.reports.addAll(expired);
+                throw exception;
+            }
+
+            this.archivedReports.add(expired.size());
+            this.updateCallback.run();
+        } catch (IOException | RuntimeException exception) {
+            exception.printStackTrace();
+        } finally {
+            this.runDuration.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Getter for the archive to read
+     * the expired reports
+     *
+     * @return The archive
+     */
+    public ReportArchive getArchive() {
+        return this.archive;
+    }
+
+    /**
+     * Stopping the runs and waiting for
+     * a running one
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package de.raik.reporting.server.sharding;
+
+/**
+ * A record representing one shard of the reports
+ *
+ * Attributes:
+ * name - The name placing the shard on the ring which must not change when the shard moves
+ * url - The url of the rest editor of the shard without a trailing slash
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public record Shard(String name, String url) {
+}
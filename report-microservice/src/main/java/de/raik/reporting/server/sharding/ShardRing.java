@@ -0,0 +1,137 @@
+package de.raik.reporting.server.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring assigning every reported user to one shard
+ *
+ * Every shard is placed on the ring with many virtual nodes hashed from its name.
+ * A user belongs to the first virtual node at or after the hash of its uuid.
+ * Adding or removing a shard only moves the users of the ranges next to its
+ * virtual nodes so about 1/N of the users move instead of nearly all of them
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ShardRing {
+
+    /**
+     * The virtual nodes mapped by their position
+     */
+    private final TreeMap<Long, Shard> ring = new TreeMap<>();
+
+    /**
+     * All shards in the configured order
+     */
+    private final List<Shard> shards;
+
+    /**
+     * The shard of this server
+     */
+    private final Shard self;
+
+    /**
+     * Constructor placing the shards on the ring
+     *
+     * @param shards All shards
+     * @param self The shard of this server
+     * @param virtualNodes The amount of positions of every shard on the ring
+     */
+    public ShardRing(List<Shard> shards, Shard self, int virtualNodes) {
+        this.shards = Collections.unmodifiableList(shards);
+        this.self = self;
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException exception) {
+            //Every java platform has to support MD5
+            throw new IllegalStateException(exception);
+        }
+        for (Shard shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] hash = digest.digest((shard.name() + "#" + i).getBytes(StandardCharsets.UTF_8));
+                long position = 0;
+                for (int j = 0; j < Long.BYTES; j++) {
+                    position = position << 8 | (hash[j] & 0xFF);
+                }
+                //Keeping the first shard if two positions collide so every server builds the same ring
+                this.ring.putIfAbsent(position, shard);
+            }
+        }
+    }
+
+    /**
+     * Getting the shard owning the reports of a user
+     *
+     * @param reportedUser The uuid of the user
+     * @return The owning shard
+     */
+    public Shard getOwner(UUID reportedUser) {
+        Map.Entry<Long, Shard> entry = this.ring.ceilingEntry(this.hash(reportedUser));
+        return entry != null ? entry.getValue() : this.ring.firstEntry().getValue();
+    }
+
+    /**
+     * Whether the reports of a user
+     * belong to this server
+     *
+     * @param reportedUser The uuid of the user
+     * @return Whether they belong to this server
+     */
+    public boolean isOwnedBySelf(UUID reportedUser) {
+        return this.getOwner(reportedUser).equals(this.self);
+    }
+
+    /**
+     * Hashing a uuid onto the ring. The bits are mixed as
+     * uuids of offline players share their version bits
+     *
+     * @param uuid The uuid to hash
+     * @return The position on the ring
+     */
+    private long hash(UUID uuid) {
+        return this.mix(uuid.getMostSignificantBits() ^ this.mix(uuid.getLeastSignificantBits()));
+    }
+
+    /**
+     * Mixing the bits of a long like
+     * the finalizer of murmur3
+     *
+     * @param value The value to mix
+     * @return The mixed value
+     */
+    private long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ value >>> 33;
+    }
+
+    /**
+     * Getter for all shards
+     *
+     * @return The shards in the configured order
+     */
+    public List<Shard> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Getter for the shard of this server
+     *
+     * @return The own shard
+     */
+    public Shard getSelf() {
+        return this.self;
+    }
+
+}
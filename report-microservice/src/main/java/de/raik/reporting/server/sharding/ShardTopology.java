@@ -0,0 +1,139 @@
+package de.raik.reporting.server.sharding;
+
+import de.raik.reporting.server.accessor.oneussage.OneUsageAccessor;
+import de.raik.reporting.server.report.Report;
+import de.raik.reporting.server.report.ReportStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The topology of the shards splitting the reports by the reported user
+ * across multiple servers. Every server gets the same list of shards and
+ * its own name. Without shards the server keeps every report itself
+ *
+ * Reports of one user are routed to the owning shard by every server. Listings
+ * and the most reported users are collected from all shards and merged. Every
+ * shard can have its own followers replicating it
+ *
+ * Rebalancing after adding, removing or renaming a shard:
+ * 1. Start the new shard with the new topology. It owns no reports yet
+ * 2. Restart every other shard with the new topology. From now on the reports
+ *    of a user are written to its new owner. Reports not moved yet are missing
+ *    from the requests for one user but are still part of the listings
+ * 3. Send POST /reports/rebalance to every shard. It sends the reports of the
+ *    users it doesn't own anymore to their owners and removes them afterwards
+ * 4. Repeat step 3 for every shard whose response has failed users
+ *    before shutting down a removed shard
+ * Moving reports only adds the ones the owner doesn't store yet so step 3 can
+ * always be repeated. Deleting a user from step 2 on only deletes the reports at its
+ * new owner. The owner remembers the time and drops the moved reports of the user
+ * created before, but the listings still contain them until step 3 is done. The
+ * time is only kept in memory so the owner must not be restarted before step 4
+ * Changing the url of a shard doesn't move any report as the ring only uses the names
+ *
+ * Arguments with the prefix shard:
+ * nodes - The shards as name=url separated by commas. Empty disables sharding
+ * self - The name of the shard of this server
+ * virtualNodes - The amount of positions of every shard on the ring
+ *
+ * @author Raik
+ * @version 1.0
+ */
+public class ShardTopology implements OneUsageAccessor {
+
+    /**
+     * The ring of the shards or null
+     * if sharding is disabled
+     */
+    private ShardRing ring;
+
+    /**
+     * Getter for the prefix of the arguments
+     *
+     * @return The prefix shard
+     */
+    @Override
+    public String getConfigArgumentPrefix() {
+        return "shard";
+    }
+
+    /**
+     * Loading the shards and creating the ring
+     *
+     * @param arguments Map of arguments with key as the attribute and value as its value
+     */
+    @Override
+    public void loadArguments(HashMap<String, String> arguments) {
+        String nodes = arguments.get("nodes");
+        if (nodes.isBlank()) {
+            return;
+        }
+
+        List<Shard> shards = new ArrayList<>();
+        HashSet<String> names = new HashSet<>();
+        Shard self = null;
+        for (String node : nodes.split(",")) {
+            int separator = node.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Every shard needs to be given as name=url");
+            }
+
+            String name = node.substring(0, separator).trim();
+            String url = node.substring(separator + 1).trim();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("The shard " + name + " is given twice");
+            }
+            Shard shard = new Shard(name, url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+            shards.add(shard);
+            if (name.equals(arguments.get("self"))) {
+                self = shard;
+            }
+        }
+        if (self == null) {
+            throw new IllegalArgumentException("The own shard " + arguments.get("self") + " isn't part of the shards");
+        }
+
+        this.ring = new ShardRing(shards, self, Integer.parseInt(arguments.get("virtualNodes")));
+    }
+
+    /**
+     * Telling about loaded reports which belong to other
+     * shards and need to be rebalanced
+     *
+     * @param reports The loaded reports
+     */
+    @Override
+    public void initAccessor(ReportStore reports) {
+        if (this.ring == null) {
+            return;
+        }
+
+        HashSet<UUID> foreignUsers = new HashSet<>();
+        long foreignReports = 0;
+        for (Report report : reports) {
+            if (!this.ring.isOwnedBySelf(report.reportedUser())) {
+                foreignUsers.add(report.reportedUser());
+                foreignReports++;
+            }
+        }
+        System.out.println("Started as shard " + this.ring.getSelf().name() + " of " + this.ring.getShards().size() + " shards");
+        if (foreignReports > 0) {
+            System.out.println(foreignReports + " reports of " + foreignUsers.size()
+                    + " users belong to other shards. Send POST /reports/rebalance once every shard uses the new topology");
+        }
+    }
+
+    /**
+     * Getter for the ring of the shards
+     *
+     * @return The ring or null if sharding is disabled
+     */
+    public ShardRing getRing() {
+        return this.ring;
+    }
+
+}